@@ -0,0 +1,70 @@
+package com.alperenulukaya.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.alperenulukaya.logic.Assembler;
+import com.alperenulukaya.logic.CpuCore;
+
+/**
+ * The cost of one {@link CpuCore#step()} of the interactive UI path, and of
+ * disassembling an instruction word for the memory view.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CpuCoreBenchmark {
+
+    // No HLT: the PC wraps around and the program runs forever, so step() never stops early.
+    private static final String PROGRAM = String.join("\n",
+            "        LDA x",
+            "        ADD one",
+            "        STA x",
+            "        OUT",
+            "        ADD x",
+            "        STA y",
+            "        LDA y",
+            "        OUT",
+            "        NOP",
+            "        NOP",
+            "        NOP",
+            "        NOP",
+            "        NOP",
+            "one:    .byte 1",
+            "x:      .byte 0",
+            "y:      .byte 0");
+
+    private CpuCore core;
+    private int instruction;
+
+    @Setup
+    public void setUp() {
+        core = new CpuCore();
+        core.loadProgram(new Assembler().assemble(PROGRAM), 0);
+    }
+
+    @Benchmark
+    public int step() {
+        core.step();
+        return core.getRegisterValue(CpuCore.Register.AC);
+    }
+
+    @Benchmark
+    public String disassemble() {
+        instruction = (instruction + 1) & 0xFF;
+        return CpuCore.disassemble(instruction);
+    }
+}
@@ -0,0 +1,182 @@
+package com.alperenulukaya.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.alperenulukaya.logic.Adder4Bit;
+import com.alperenulukaya.logic.Comparator4Bit;
+import com.alperenulukaya.logic.Counter;
+import com.alperenulukaya.logic.Counter4Bit;
+import com.alperenulukaya.logic.Crc;
+import com.alperenulukaya.logic.Multiplier;
+import com.alperenulukaya.logic.Mux;
+import com.alperenulukaya.logic.Mux4to1;
+import com.alperenulukaya.logic.Mux8to1;
+import com.alperenulukaya.logic.RegisterFile;
+import com.alperenulukaya.logic.ShiftRegister4Bit;
+import com.alperenulukaya.logic.UniversalShiftRegister;
+
+/**
+ * The logic components: the gate-level parts behind the lab modules, the
+ * word-level muxes, counters, shift register and register file, CRC and the
+ * arithmetic netlists. Inputs cycle through changing patterns so the JIT
+ * cannot fold the logic into a constant.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LogicBenchmark {
+
+    private static final boolean[][] NIBBLES = new boolean[16][4];
+    private static final boolean[][] BYTES = new boolean[256][8];
+
+    static {
+        for (int value = 0; value < 16; value++) {
+            for (int bit = 0; bit < 4; bit++) {
+                NIBBLES[value][bit] = (value >> bit & 1) != 0;
+            }
+        }
+        for (int value = 0; value < 256; value++) {
+            for (int bit = 0; bit < 8; bit++) {
+                BYTES[value][bit] = (value >> bit & 1) != 0;
+            }
+        }
+    }
+
+    private final Adder4Bit adder = new Adder4Bit();
+    private final Comparator4Bit comparator = new Comparator4Bit();
+    private final Counter4Bit counter = new Counter4Bit();
+    private final ShiftRegister4Bit shiftRegister = new ShiftRegister4Bit();
+    private final Mux4to1 mux4 = new Mux4to1();
+    private final Mux8to1 mux8 = new Mux8to1();
+    private final Counter binaryCounter = Counter.binary(32);
+    private final Counter lfsr = Counter.lfsr(32);
+    private final UniversalShiftRegister wideRegister = new UniversalShiftRegister(256);
+    private final long[] serialStream = new long[16];
+    private final byte[] crcData = new byte[4096];
+    private final RegisterFile registerFile = new RegisterFile(32, 64, 2, 1);
+    private final Multiplier dadda8 = new Multiplier(Multiplier.Architecture.DADDA, 8);
+    private final long[] multiplierInputs = new long[16];
+    private final long[] multiplierValues = dadda8.getNetlist().newValueBuffer();
+    private final long[] multiplierOutputs = new long[16];
+    private final Mux wordMux8 = new Mux(8, 1);
+    private final long[] wordData = new long[1];
+    private final Mux busMux = new Mux(16, 32);
+    private final long[] busData = new long[busMux.getDataWords()];
+    private final boolean[] select = new boolean[2];
+    private int input;
+
+    @Benchmark
+    public boolean adderUpdate() {
+        int value = input++;
+        adder.update(NIBBLES[value & 0x0F], NIBBLES[value >> 4 & 0x0F], (value & 0x100) != 0);
+        return adder.getCarryOut();
+    }
+
+    @Benchmark
+    public boolean comparatorCompare() {
+        int value = input++;
+        comparator.compare(NIBBLES[value & 0x0F], NIBBLES[value >> 4 & 0x0F]);
+        return comparator.isAGreaterThanB();
+    }
+
+    @Benchmark
+    public int counterClock() {
+        counter.clock();
+        return counter.getValue();
+    }
+
+    @Benchmark
+    public long counterFastForward() {
+        binaryCounter.clock(1_000_000 + (input++ & 0xFF));
+        return binaryCounter.getValue();
+    }
+
+    @Benchmark
+    public long lfsrFastForward() {
+        lfsr.clock(1_000_000 + (input++ & 0xFF));
+        return lfsr.getValue();
+    }
+
+    @Benchmark
+    public boolean shiftRegisterClock() {
+        shiftRegister.setDataInput((input++ & 1) != 0);
+        shiftRegister.clock();
+        return shiftRegister.getSerialOut();
+    }
+
+    @Benchmark
+    public long shiftRegisterStream1024() {
+        serialStream[input++ & 15] ^= input;
+        wideRegister.shiftLeftSerial(serialStream, 0, 1024, null, 0);
+        return wideRegister.getValue();
+    }
+
+    @Benchmark
+    public long crc32SliceBy8x4K() {
+        crcData[input++ & 4095]++;
+        return Crc.CRC32.compute(crcData);
+    }
+
+    @Benchmark
+    public long crc32BitSerialx4K() {
+        crcData[input++ & 4095]++;
+        return Crc.CRC32.computeBitSerial(crcData);
+    }
+
+    @Benchmark
+    public long registerFileCycle() {
+        int value = input++;
+        long sum = registerFile.read(0, value & 31) + registerFile.read(1, value >> 5 & 31);
+        registerFile.write(0, value >> 10 & 31, sum);
+        registerFile.clock();
+        return sum;
+    }
+
+    @Benchmark
+    public long daddaMultiplier8x64Vectors() {
+        multiplierInputs[input++ & 15] ^= input;
+        dadda8.getNetlist().evaluate(multiplierInputs, multiplierValues, multiplierOutputs);
+        return multiplierOutputs[15];
+    }
+
+    @Benchmark
+    public boolean mux4to1() {
+        int value = input++;
+        select[0] = (value & 0x10) != 0;
+        select[1] = (value & 0x20) != 0;
+        return mux4.getOutput(NIBBLES[value & 0x0F], select);
+    }
+
+    @Benchmark
+    public boolean mux8to1() {
+        int value = input++;
+        return mux8.getOutput(BYTES[value & 0xFF], (value & 0x400) != 0, (value & 0x200) != 0, (value & 0x100) != 0);
+    }
+
+    @Benchmark
+    public long muxWord8to1() {
+        int value = input++;
+        wordData[0] = value & 0xFF;
+        return wordMux8.select(wordData, value >> 8 & 7);
+    }
+
+    @Benchmark
+    public long muxBus16x32() {
+        int value = input++;
+        busData[value & 7] = value;
+        return busMux.select(busData, value >> 3 & 15);
+    }
+}
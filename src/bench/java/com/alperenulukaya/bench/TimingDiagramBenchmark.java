@@ -0,0 +1,58 @@
+package com.alperenulukaya.bench;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.alperenulukaya.util.TimingDiagram;
+
+/**
+ * Building a timing diagram history of a given length, as the flip-flop
+ * modules do one clock at a time. The canvas is never shown, so this measures
+ * the history bookkeeping and the recorded drawing commands, not rasterization.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimingDiagramBenchmark {
+
+    private static final String[] SIGNALS = { "CLK", "J", "K", "Q" };
+
+    @Param({ "16", "64", "256" })
+    public int length;
+
+    private TimingDiagram diagram;
+    private final Map<String, Boolean> state = new LinkedHashMap<>();
+
+    @Setup
+    public void setUp() {
+        diagram = new TimingDiagram(800, SIGNALS);
+    }
+
+    @Benchmark
+    public TimingDiagram appendHistory() {
+        diagram.clear();
+        for (int t = 0; t < length; t++) {
+            for (int i = 0; i < SIGNALS.length; i++) {
+                state.put(SIGNALS[i], (t >> i & 1) != 0);
+            }
+            diagram.addState(state);
+        }
+        return diagram;
+    }
+}
@@ -0,0 +1,227 @@
+package com.alperenulukaya.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+import com.alperenulukaya.modules.CounterModule;
+import com.alperenulukaya.modules.EncoderModule;
+import com.alperenulukaya.modules.MuxModule;
+import com.alperenulukaya.util.TimingDiagram;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+
+/**
+ * Measures the UI cost of module updates without a display. JavaFX is booted
+ * on the Monocle headless platform with the software renderer, each module is
+ * shown in its own stage, and its update path is driven in a tight loop on
+ * the FX thread. Every update is followed by what a pulse would do for it:
+ * CSS and layout, then rendering the scene (into a snapshot image, since there
+ * is no screen). Per update the harness reports:
+ * <ul>
+ * <li>update: the module's own update method</li>
+ * <li>pulse: CSS and layout of the scene graph the update changed</li>
+ * <li>frame: update, pulse and rendering together</li>
+ * <li>alloc: bytes allocated on the FX thread for the whole frame</li>
+ * </ul>
+ * The update methods are private, so they are called by reflection; this adds
+ * a few nanoseconds, well below the microseconds the UI work takes.
+ *
+ * Run with: mvn -Pbench compile exec:exec@ui [-Dui.updates=N]
+ */
+public class UiBenchmark {
+
+    private static final int WARMUP_UPDATES = 500;
+
+    private final int updates;
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public UiBenchmark(int updates) {
+        this.updates = updates;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("glass.platform", "Monocle");
+        System.setProperty("monocle.platform", "Headless");
+        System.setProperty("prism.order", "sw");
+        int updates = Integer.getInteger("ui.updates", 5_000);
+
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+        Platform.setImplicitExit(false);
+
+        new UiBenchmark(updates).runAll();
+        Platform.exit();
+    }
+
+    private void runAll() throws Exception {
+        System.out.printf("%-26s %12s %12s %12s %12s %12s%n", "Update path", "update us", "pulse us", "frame us",
+                "frame p99 us", "alloc KB");
+
+        run("CounterModule.updateUI", () -> {
+            CounterModule module = new CounterModule();
+            Method clock = privateMethod(module, "handleClock");
+            return scenario(module.getView(), i -> invoke(clock, module));
+        });
+        run("MuxModule.redrawUI", () -> {
+            MuxModule module = new MuxModule();
+            Method redraw = privateMethod(module, "redrawUI");
+            return scenario(module.getView(), i -> invoke(redraw, module));
+        });
+        for (int size : new int[] { 4, 64 }) {
+            run("MuxModule.updatePaths " + size, () -> {
+                MuxModule module = new MuxModule();
+                invoke(privateMethod(module, "setMuxSize", int.class), module, size);
+                Method updatePaths = privateMethod(module, "updatePaths", int.class);
+                return scenario(module.getView(), i -> invoke(updatePaths, module, i & (size - 1)));
+            });
+        }
+        run("EncoderModule.drawWires", () -> {
+            EncoderModule module = new EncoderModule();
+            Method drawWires = privateMethod(module, "drawWires");
+            return scenario(module.getView(), i -> invoke(drawWires, module));
+        });
+        run("TimingDiagram.draw", () -> {
+            String[] signals = { "CLK", "J", "K", "Q" };
+            TimingDiagram diagram = new TimingDiagram(1000, signals);
+            Map<String, Boolean> state = new LinkedHashMap<>();
+            // Every append redraws the diagram; restart at the width a module shows.
+            return scenario(diagram.getCanvas(), i -> {
+                if (i % 36 == 0) {
+                    diagram.clear();
+                }
+                for (int s = 0; s < signals.length; s++) {
+                    state.put(signals[s], (i >> s & 1) != 0);
+                }
+                diagram.addState(state);
+            });
+        });
+    }
+
+    /**
+     * A view to show and the update to drive on it, given the update index.
+     */
+    private static final class Scenario {
+        final Node view;
+        final IntConsumer update;
+
+        Scenario(Node view, IntConsumer update) {
+            this.view = view;
+            this.update = update;
+        }
+    }
+
+    private interface ScenarioFactory {
+        Scenario create() throws ReflectiveOperationException;
+    }
+
+    private static Scenario scenario(Node view, IntConsumer update) {
+        return new Scenario(view, update);
+    }
+
+    private void run(String name, ScenarioFactory factory) throws Exception {
+        AtomicReference<Object> result = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                result.set(measure(factory.create()));
+            } catch (Throwable e) {
+                result.set(e);
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        if (result.get() instanceof Throwable) {
+            System.out.printf("%-26s failed: %s%n", name, result.get());
+            return;
+        }
+        long[][] samples = (long[][]) result.get();
+        System.out.printf("%-26s %12.2f %12.2f %12.2f %12.2f %12.2f%n", name, mean(samples[0]) / 1e3,
+                mean(samples[1]) / 1e3, mean(samples[2]) / 1e3, percentile(samples[2], 0.99) / 1e3,
+                mean(samples[3]) / 1024);
+    }
+
+    /**
+     * Runs on the FX thread.
+     * @return Per-update update, pulse and frame times in ns and allocated bytes.
+     */
+    private long[][] measure(Scenario scenario) {
+        Parent root = new StackPane(scenario.view);
+        Scene scene = new Scene(root, 1200, 800);
+        Stage stage = new Stage();
+        stage.setScene(scene);
+        stage.show();
+        WritableImage image = new WritableImage(1200, 800);
+        long thread = Thread.currentThread().getId();
+
+        long[][] samples = new long[4][updates];
+        try {
+            for (int i = -WARMUP_UPDATES; i < updates; i++) {
+                long allocated = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                scenario.update.accept(i + WARMUP_UPDATES);
+                long updated = System.nanoTime();
+                root.applyCss();
+                root.layout();
+                long pulsed = System.nanoTime();
+                scene.snapshot(image);
+                long rendered = System.nanoTime();
+                if (i >= 0) {
+                    samples[0][i] = updated - start;
+                    samples[1][i] = pulsed - updated;
+                    samples[2][i] = rendered - start;
+                    samples[3][i] = threads.getThreadAllocatedBytes(thread) - allocated;
+                }
+            }
+        } finally {
+            stage.close();
+        }
+        return samples;
+    }
+
+    private static Method privateMethod(Object target, String name, Class<?>... parameterTypes)
+            throws ReflectiveOperationException {
+        Method method = target.getClass().getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return method;
+    }
+
+    private static void invoke(Method method, Object target, Object... args) {
+        try {
+            method.invoke(target, args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double mean(long[] values) {
+        double sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    private static double percentile(long[] values, double fraction) {
+        if (values.length == 0) {
+            return 0;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(fraction * (sorted.length - 1)))];
+    }
+}
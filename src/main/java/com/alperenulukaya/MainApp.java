@@ -15,6 +15,7 @@ import com.alperenulukaya.modules.MuxModule;
 import com.alperenulukaya.modules.SRLatchModule;
 import com.alperenulukaya.modules.ShiftRegisterModule;
 import com.alperenulukaya.modules.TFlipFlopModule;
+import com.alperenulukaya.modules.TruthTableModule;
 
 import javafx.application.Application;
 import javafx.event.ActionEvent;
@@ -55,6 +56,7 @@ public class MainApp extends Application {
     private Adder4BitModule adder4BitModule;
     private Comparator4BitModule comparator4BitModule;
     private CPUModule cpuModule;
+    private TruthTableModule truthTableModule;
 
     @Override
     public void start(Stage primaryStage) {
@@ -98,6 +100,7 @@ public class MainApp extends Application {
         Button fullAdderButton = createMenuButton("1-Bit Full Adder", e -> showFullAdderModule());
         Button adder4BitButton = createMenuButton("4-Bit Adder", e -> showAdder4BitModule());
         Button comparatorButton = createMenuButton("4-Bit Comparator", e -> showComparatorModule());
+        Button truthTableButton = createMenuButton("Truth Table Generator", e -> showTruthTableModule());
 
         // Add all components to the menu VBox
         menuBox.getChildren().addAll(
@@ -117,7 +120,8 @@ public class MainApp extends Application {
                 encoderButton,
                 fullAdderButton,
                 adder4BitButton,
-                comparatorButton
+                comparatorButton,
+                truthTableButton
         );
 
         return menuBox;
@@ -252,6 +256,13 @@ public class MainApp extends Application {
         switchModule(comparator4BitModule.getView(), "4-Bit Comparator");
     }
 
+    private void showTruthTableModule() {
+        if (truthTableModule == null) {
+            truthTableModule = new TruthTableModule();
+        }
+        switchModule(truthTableModule.getView(), "Truth Table Generator");
+    }
+
     private void stopAllTimelines() {
         if (cpuModule != null) {
             cpuModule.stopTimeline();
@@ -295,6 +306,9 @@ public class MainApp extends Application {
         if (comparator4BitModule != null) {
             comparator4BitModule.stopTimeline();
         }
+        if (truthTableModule != null) {
+            truthTableModule.stopTimeline();
+        }
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,383 @@
+package com.alperenulukaya.logic;
+
+/**
+ * An N-bit arithmetic logic unit with N, Z, C and V flags, built the way
+ * {@link Adder4Bit} and {@link Comparator4Bit} are, but of any width from 1 to
+ * 64 bits. It has two paths that always agree:
+ * <ul>
+ * <li>{@link #execute} works on whole words and is what CPU cores call on
+ * every instruction</li>
+ * <li>{@link #executeGates} evaluates the same operation bit by bit through a
+ * ripple chain of {@link FullAdder}s, per-bit logic gates, a barrel shifter
+ * of 2:1 multiplexer stages and an MSB-first magnitude comparator, and
+ * records every internal carry for visualization</li>
+ * </ul>
+ *
+ * Subtraction is A + NOT B + 1, so C is the carry out of that sum: set when
+ * no borrow occurs (A &gt;= B unsigned). V is two's complement overflow. Logic
+ * operations clear C and V; shifts and rotates set C to the last bit shifted
+ * out and clear V. CMP subtracts without producing a result and also sets the
+ * three comparator outputs of {@link Comparator4Bit}.
+ */
+public class Alu {
+
+    public enum Operation {
+        ADD, ADC, SUB, SBC, CMP, AND, OR, XOR, NOT, SHL, SHR, SAR, ROL, ROR, PASS_B
+    }
+
+    /** Bits of {@link #getFlags()}. */
+    public static final int FLAG_V = 1, FLAG_C = 2, FLAG_Z = 4, FLAG_N = 8;
+
+    private final int width;
+    private final long mask;
+    private final long signBit;
+    private final FullAdder[] adders;
+    private final boolean[] carries;
+
+    private long result;
+    private boolean negative;
+    private boolean zero;
+    private boolean carry;
+    private boolean overflow;
+    private boolean aGreaterThanB;
+    private boolean aLessThanB;
+    private boolean aEqualsB;
+
+    /**
+     * @param width The word width, 1 to 64 bits.
+     */
+    public Alu(int width) {
+        if (width < 1 || width > 64) {
+            throw new IllegalArgumentException("ALU width must be 1 to 64: " + width);
+        }
+        this.width = width;
+        this.mask = BitLanes.mask(width);
+        this.signBit = 1L << (width - 1);
+        this.adders = new FullAdder[width];
+        this.carries = new boolean[width + 1];
+        for (int i = 0; i < width; i++) {
+            adders[i] = new FullAdder();
+        }
+    }
+
+    /**
+     * Executes an operation on whole words.
+     * @param a The A operand; bits beyond the width are ignored.
+     * @param b The B operand, or the shift amount for shifts and rotates.
+     * @param carryIn The carry flag, used by ADC and SBC.
+     * @return The result, which is also kept with the flags.
+     */
+    public long execute(Operation op, long a, long b, boolean carryIn) {
+        a &= mask;
+        long r;
+        switch (op) {
+            case ADD:
+                return add(a, b & mask, false);
+            case ADC:
+                return add(a, b & mask, carryIn);
+            case SUB:
+                return add(a, ~b & mask, true);
+            case SBC:
+                return add(a, ~b & mask, carryIn);
+            case CMP:
+                add(a, ~b & mask, true);
+                compareFlags(a, b & mask);
+                result = a;
+                return a;
+            case SHL:
+            case SHR:
+            case SAR:
+            case ROL:
+            case ROR:
+                return shift(op, a, b);
+            case AND:
+                r = a & b;
+                break;
+            case OR:
+                r = a | b;
+                break;
+            case XOR:
+                r = a ^ b;
+                break;
+            case NOT:
+                r = ~a;
+                break;
+            default: // PASS_B
+                r = b;
+                break;
+        }
+        return logicFlags(r & mask);
+    }
+
+    /**
+     * The common ADD: A + B with no carry in. This is the path CpuCore takes
+     * on every ADD instruction.
+     */
+    public long add(long a, long b) {
+        return add(a & mask, b & mask, false);
+    }
+
+    private long add(long a, long b, boolean carryIn) {
+        long r = (a + b + (carryIn ? 1 : 0)) & mask;
+        // The carry out of the top bit is the majority of its inputs: a, b and the carry into it.
+        carry = (((a & b) | ((a | b) & ~r)) & signBit) != 0;
+        overflow = ((a ^ r) & (b ^ r) & signBit) != 0;
+        return setResult(r);
+    }
+
+    private long shift(Operation op, long a, long b) {
+        int amount = (int) Math.min(b & Long.MAX_VALUE, 127);
+        long r;
+        boolean out;
+        switch (op) {
+            case SHL:
+                r = amount >= 64 ? 0 : a << amount;
+                out = amount > 0 && amount <= width && (a >>> (width - amount) & 1) != 0;
+                break;
+            case SHR:
+                r = amount >= 64 ? 0 : a >>> amount;
+                out = amount > 0 && amount <= width && (a >>> (amount - 1) & 1) != 0;
+                break;
+            case SAR: {
+                long signed = (a & signBit) != 0 ? a | ~mask : a;
+                r = signed >> Math.min(amount, 63);
+                out = amount > 0 && (signed >> Math.min(amount - 1, 63) & 1) != 0;
+                break;
+            }
+            case ROL: {
+                int k = amount % width;
+                r = k == 0 ? a : a << k | a >>> (width - k);
+                out = amount > 0 && (r & 1) != 0;
+                break;
+            }
+            default: { // ROR
+                int k = amount % width;
+                r = k == 0 ? a : a >>> k | a << (width - k);
+                out = amount > 0 && (r & signBit) != 0;
+                break;
+            }
+        }
+        carry = out;
+        overflow = false;
+        return setResult(r & mask);
+    }
+
+    private long logicFlags(long r) {
+        carry = false;
+        overflow = false;
+        return setResult(r);
+    }
+
+    private long setResult(long r) {
+        result = r;
+        negative = (r & signBit) != 0;
+        zero = r == 0;
+        return r;
+    }
+
+    private void compareFlags(long a, long b) {
+        int order = Long.compareUnsigned(a, b);
+        aGreaterThanB = order > 0;
+        aLessThanB = order < 0;
+        aEqualsB = order == 0;
+    }
+
+    /**
+     * Executes an operation bit by bit through the gate-level model. Produces
+     * the same result and flags as {@link #execute}; afterwards
+     * {@link #getCarries()} holds the carry into every adder stage.
+     */
+    public long executeGates(Operation op, long a, long b, boolean carryIn) {
+        boolean[] bitsA = toBits(a);
+        boolean[] bitsB = toBits(b);
+        boolean[] out = new boolean[width];
+        switch (op) {
+            case ADD:
+            case ADC:
+            case SUB:
+            case SBC:
+            case CMP: {
+                boolean subtract = op == Operation.SUB || op == Operation.SBC || op == Operation.CMP;
+                boolean cin = op == Operation.ADD ? false : op == Operation.SUB || op == Operation.CMP ? true : carryIn;
+                carries[0] = cin;
+                for (int i = 0; i < width; i++) {
+                    // An XOR gate on each B input turns the adder into a subtractor.
+                    adders[i].update(bitsA[i], bitsB[i] ^ subtract, carries[i]);
+                    out[i] = adders[i].getSum();
+                    carries[i + 1] = adders[i].getCarryOut();
+                }
+                carry = carries[width];
+                overflow = carries[width] ^ carries[width - 1];
+                setResult(fromBits(out));
+                if (op == Operation.CMP) {
+                    compareGates(bitsA, bitsB);
+                    result = fromBits(bitsA);
+                }
+                return result;
+            }
+            case AND:
+            case OR:
+            case XOR:
+            case NOT:
+            case PASS_B:
+                for (int i = 0; i < width; i++) {
+                    switch (op) {
+                        case AND: out[i] = bitsA[i] && bitsB[i]; break;
+                        case OR: out[i] = bitsA[i] || bitsB[i]; break;
+                        case XOR: out[i] = bitsA[i] ^ bitsB[i]; break;
+                        case NOT: out[i] = !bitsA[i]; break;
+                        default: out[i] = bitsB[i]; break;
+                    }
+                }
+                return logicFlags(fromBits(out));
+            default:
+                return shiftGates(op, bitsA, b);
+        }
+    }
+
+    /**
+     * A logarithmic barrel shifter: stage s shifts by 2^s or passes through,
+     * one 2:1 mux per bit, driven by bit s of the amount. Amounts of at least
+     * the width are handled by a final stage that fills the word, as the
+     * upper amount bits would in hardware.
+     */
+    private long shiftGates(Operation op, boolean[] bits, long b) {
+        long amount = Math.min(b & Long.MAX_VALUE, 127);
+        boolean rotate = op == Operation.ROL || op == Operation.ROR;
+        boolean left = op == Operation.SHL || op == Operation.ROL;
+        boolean fill = op == Operation.SAR && bits[width - 1];
+        long k = rotate ? amount % width : Math.min(amount, width);
+        boolean out = false;
+        boolean[] current = bits;
+        for (int stage = 0; (1L << stage) <= k; stage++) {
+            if ((k >> stage & 1) == 0) {
+                continue;
+            }
+            int distance = 1 << stage;
+            boolean[] next = new boolean[width];
+            for (int i = 0; i < width; i++) {
+                int source = left ? i - distance : i + distance;
+                if (rotate) {
+                    next[i] = current[Math.floorMod(source, width)];
+                } else {
+                    next[i] = source >= 0 && source < width ? current[source] : fill;
+                }
+            }
+            current = next;
+        }
+        if (amount > 0) {
+            if (rotate) {
+                out = left ? current[0] : current[width - 1];
+            } else if (amount > width) {
+                out = fill;
+            } else {
+                out = left ? bits[width - (int) amount] : bits[(int) amount - 1];
+            }
+        }
+        carry = out;
+        overflow = false;
+        return setResult(fromBits(current));
+    }
+
+    /**
+     * The MSB-first magnitude comparator of {@link Comparator4Bit}, at any width.
+     */
+    private void compareGates(boolean[] a, boolean[] b) {
+        aGreaterThanB = false;
+        aLessThanB = false;
+        aEqualsB = false;
+        for (int i = width - 1; i >= 0; i--) {
+            if (a[i] != b[i]) {
+                aGreaterThanB = a[i];
+                aLessThanB = !a[i];
+                return;
+            }
+        }
+        aEqualsB = true;
+    }
+
+    private boolean[] toBits(long value) {
+        boolean[] bits = new boolean[width];
+        for (int i = 0; i < width; i++) {
+            bits[i] = (value >>> i & 1) != 0;
+        }
+        return bits;
+    }
+
+    private long fromBits(boolean[] bits) {
+        long value = 0;
+        for (int i = 0; i < width; i++) {
+            if (bits[i]) {
+                value |= 1L << i;
+            }
+        }
+        return value;
+    }
+
+    public long getResult() {
+        return result;
+    }
+
+    public boolean isNegative() {
+        return negative;
+    }
+
+    public boolean isZero() {
+        return zero;
+    }
+
+    public boolean isCarry() {
+        return carry;
+    }
+
+    public boolean isOverflow() {
+        return overflow;
+    }
+
+    /**
+     * @return N, Z, C and V packed as {@link #FLAG_N} | {@link #FLAG_Z} | {@link #FLAG_C} | {@link #FLAG_V}.
+     */
+    public int getFlags() {
+        return (negative ? FLAG_N : 0) | (zero ? FLAG_Z : 0) | (carry ? FLAG_C : 0) | (overflow ? FLAG_V : 0);
+    }
+
+    /**
+     * @return After CMP, whether A &gt; B unsigned.
+     */
+    public boolean isAGreaterThanB() {
+        return aGreaterThanB;
+    }
+
+    /**
+     * @return After CMP, whether A &lt; B unsigned.
+     */
+    public boolean isALessThanB() {
+        return aLessThanB;
+    }
+
+    /**
+     * @return After CMP, whether A = B.
+     */
+    public boolean isAEqualsB() {
+        return aEqualsB;
+    }
+
+    /**
+     * @return After CMP, whether A &lt; B as two's complement numbers (N differs from V).
+     */
+    public boolean isSignedLess() {
+        return negative != overflow;
+    }
+
+    /**
+     * @return The carry into each adder stage from the last gate-level
+     *         arithmetic operation; element width is the carry out.
+     */
+    public boolean[] getCarries() {
+        return carries.clone();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+}
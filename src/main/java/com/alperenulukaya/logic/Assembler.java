@@ -0,0 +1,233 @@
+package com.alperenulukaya.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A two-pass assembler for the 4-bit CPU instruction set.
+ * It turns mnemonic source code into a 16-cell memory image that can be passed
+ * directly to {@link CpuCore#loadProgram(int[], int)}.
+ *
+ * Supported syntax (one statement per line, ';' starts a comment):
+ * <pre>
+ * start:  LDA a        ; instructions: LDA, ADD, STA, OUT, HLT, NOP
+ *         ADD b
+ *         OUT
+ *         HLT
+ *         .org 0xE     ; move the location counter
+ * a:      .byte 9      ; data directive (DB is an alias)
+ * b:      .byte 0b1000
+ * </pre>
+ * Operands may be labels or numbers in decimal, 0x hex, 0b binary, or bare hex
+ * digits as printed by {@link CpuCore#disassemble(int)} (e.g. "LDA E").
+ */
+public class Assembler {
+
+    public static final int MEMORY_SIZE = CpuCore.MEMORY_SIZE;
+
+    private static final Map<String, Integer> OPCODES = new HashMap<>();
+
+    static {
+        OPCODES.put("NOP", 0b0000);
+        OPCODES.put("LDA", 0b0001);
+        OPCODES.put("ADD", 0b0010);
+        OPCODES.put("STA", 0b0011);
+        OPCODES.put("OUT", 0b0100);
+        OPCODES.put("HLT", 0b1111);
+    }
+
+    /**
+     * Assembles a complete program.
+     * @param source The assembly source text.
+     * @return A new 16-cell memory image (unused cells are 0).
+     * @throws IllegalArgumentException if the source contains an error; the message names the line.
+     */
+    public int[] assemble(String source) {
+        List<Statement> statements = parse(source);
+        Map<String, Integer> labels = resolveLabels(statements);
+
+        int[] image = new int[MEMORY_SIZE];
+        for (Statement st : statements) {
+            if (st.mnemonic == null || st.mnemonic.equals(".ORG")) {
+                continue;
+            }
+            if (st.mnemonic.equals(".BYTE") || st.mnemonic.equals("DB")) {
+                for (int i = 0; i < st.operands.size(); i++) {
+                    image[st.address + i] = evaluate(st.operands.get(i), labels, st.line, 0xFF);
+                }
+            } else {
+                int operand = st.operands.isEmpty() ? 0 : evaluate(st.operands.get(0), labels, st.line, 0x0F);
+                image[st.address] = (OPCODES.get(st.mnemonic) << 4) | operand;
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Assembles several programs that are separated by a line containing only ".end".
+     * Useful for producing batch image files with {@code ProgramLoader.writeImages}.
+     * @param source The concatenated source text.
+     * @return One memory image per program, in source order.
+     */
+    public List<int[]> assembleAll(String source) {
+        List<int[]> images = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : source.split("\\R", -1)) {
+            if (stripComment(line).trim().equalsIgnoreCase(".end")) {
+                images.add(assemble(current.toString()));
+                current.setLength(0);
+            } else {
+                current.append(line).append('\n');
+            }
+        }
+        if (!stripComment(current.toString()).isBlank()) {
+            images.add(assemble(current.toString()));
+        }
+        return images;
+    }
+
+    // --- Pass 1: tokenize and assign addresses ---
+
+    private List<Statement> parse(String source) {
+        List<Statement> statements = new ArrayList<>();
+        String[] lines = source.split("\\R", -1);
+        for (int i = 0; i < lines.length; i++) {
+            String text = stripComment(lines[i]).trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            Statement st = new Statement(i + 1);
+            int colon = text.indexOf(':');
+            if (colon >= 0) {
+                st.label = text.substring(0, colon).trim();
+                if (!st.label.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+                    throw error(st.line, "invalid label '" + st.label + "'");
+                }
+                text = text.substring(colon + 1).trim();
+            }
+            if (!text.isEmpty()) {
+                String[] parts = text.split("\\s+", 2);
+                st.mnemonic = parts[0].toUpperCase(Locale.ROOT);
+                if (parts.length > 1) {
+                    for (String operand : parts[1].split(",")) {
+                        st.operands.add(operand.trim());
+                    }
+                }
+            }
+            statements.add(st);
+        }
+        return statements;
+    }
+
+    private Map<String, Integer> resolveLabels(List<Statement> statements) {
+        Map<String, Integer> labels = new HashMap<>();
+        int[] usedBy = new int[MEMORY_SIZE]; // The line that fills each cell, 0 if none
+        int location = 0;
+        for (Statement st : statements) {
+            if (".ORG".equals(st.mnemonic)) {
+                if (st.operands.size() != 1) {
+                    throw error(st.line, ".org expects one address");
+                }
+                location = parseNumber(st.operands.get(0), st.line);
+                if (location < 0 || location >= MEMORY_SIZE) {
+                    throw error(st.line, "address out of range: " + st.operands.get(0));
+                }
+            }
+            st.address = location;
+            if (st.label != null && labels.put(st.label, location) != null) {
+                throw error(st.line, "duplicate label '" + st.label + "'");
+            }
+            if (st.mnemonic == null || st.mnemonic.equals(".ORG")) {
+                continue;
+            }
+
+            int size;
+            if (st.mnemonic.equals(".BYTE") || st.mnemonic.equals("DB")) {
+                if (st.operands.isEmpty()) {
+                    throw error(st.line, ".byte expects at least one value");
+                }
+                size = st.operands.size();
+            } else if (OPCODES.containsKey(st.mnemonic)) {
+                boolean needsOperand = st.mnemonic.equals("LDA") || st.mnemonic.equals("ADD") || st.mnemonic.equals("STA");
+                if (needsOperand && st.operands.size() != 1) {
+                    throw error(st.line, st.mnemonic + " expects one operand");
+                }
+                if (!needsOperand && !st.operands.isEmpty()) {
+                    throw error(st.line, st.mnemonic + " takes no operand");
+                }
+                size = 1;
+            } else {
+                throw error(st.line, "unknown mnemonic '" + st.mnemonic + "'");
+            }
+            if (location + size > MEMORY_SIZE) {
+                throw error(st.line, "program does not fit in " + MEMORY_SIZE + " memory cells");
+            }
+            for (int address = location; address < location + size; address++) {
+                if (usedBy[address] != 0) {
+                    throw error(st.line, String.format("overlaps line %d at address 0x%X", usedBy[address], address));
+                }
+                usedBy[address] = st.line;
+            }
+            location += size;
+        }
+        return labels;
+    }
+
+    // --- Pass 2 helpers ---
+
+    private int evaluate(String token, Map<String, Integer> labels, int line, int max) {
+        Integer value = labels.get(token);
+        if (value == null) {
+            value = parseNumber(token, line);
+        }
+        if (value < 0 || value > max) {
+            throw error(line, "value out of range: " + token);
+        }
+        return value;
+    }
+
+    private int parseNumber(String token, int line) {
+        String t = token.toLowerCase(Locale.ROOT);
+        try {
+            if (t.startsWith("0x")) {
+                return Integer.parseInt(t.substring(2), 16);
+            } else if (t.startsWith("0b")) {
+                return Integer.parseInt(t.substring(2), 2);
+            } else if (t.matches("[0-9]+")) {
+                return Integer.parseInt(t);
+            } else if (t.matches("[0-9a-f]+")) {
+                return Integer.parseInt(t, 16); // Bare hex, as produced by the disassembler
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the error below
+        }
+        throw error(line, "undefined label or bad number '" + token + "'");
+    }
+
+    private static String stripComment(String line) {
+        int semicolon = line.indexOf(';');
+        return semicolon >= 0 ? line.substring(0, semicolon) : line;
+    }
+
+    private static IllegalArgumentException error(int line, String message) {
+        return new IllegalArgumentException("Line " + line + ": " + message);
+    }
+
+    /**
+     * One parsed source line: an optional label, mnemonic/directive and operands.
+     */
+    private static class Statement {
+        final int line;
+        String label;
+        String mnemonic;
+        final List<String> operands = new ArrayList<>();
+        int address;
+
+        Statement(int line) {
+            this.line = line;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.alperenulukaya.logic;
+
+/**
+ * Packs fixed-width lanes into long words, as used by the word-level
+ * {@link Mux} and {@link Demux}, and reads, writes and copies runs of bits at
+ * any position in such words.
+ *
+ * Lanes of up to 64 bits are stored back to back, least significant bit first:
+ * lane i occupies bits {@code i * width} to {@code i * width + width - 1} of
+ * the array, where bit b is bit {@code b % 64} of word {@code b / 64}. A lane
+ * may straddle two words. Lanes wider than 64 bits start on a word boundary
+ * and take {@link #laneWords(int)} words each.
+ */
+public final class BitLanes {
+
+    private BitLanes() {
+    }
+
+    /**
+     * @return The number of words a lane of the given width takes when wider than 64 bits.
+     */
+    public static int laneWords(int width) {
+        return (width + 63) >>> 6;
+    }
+
+    /**
+     * @return The number of words needed to hold lanes of the given width.
+     */
+    public static int wordsFor(int lanes, int width) {
+        return width <= 64 ? (int) (((long) lanes * width + 63) >>> 6) : lanes * laneWords(width);
+    }
+
+    /**
+     * @return A mask of the low width bits (all ones for 64).
+     */
+    public static long mask(int width) {
+        return width >= 64 ? -1L : (1L << width) - 1;
+    }
+
+    /**
+     * Reads a lane of up to 64 bits.
+     */
+    public static long getLane(long[] words, int index, int width) {
+        return getBits(words, (long) index * width, width);
+    }
+
+    /**
+     * Writes a lane of up to 64 bits; bits of value above the width are ignored.
+     */
+    public static void setLane(long[] words, int index, int width, long value) {
+        setBits(words, (long) index * width, width, value);
+    }
+
+    /**
+     * Reads count bits, 1 to 64, starting at any bit position.
+     */
+    public static long getBits(long[] words, long position, int count) {
+        int word = (int) (position >>> 6);
+        int shift = (int) (position & 63);
+        long value = words[word] >>> shift;
+        if (shift + count > 64) {
+            value |= words[word + 1] << (64 - shift);
+        }
+        return value & mask(count);
+    }
+
+    /**
+     * Writes count bits, 1 to 64, starting at any bit position; bits of value
+     * above count are ignored.
+     */
+    public static void setBits(long[] words, long position, int count, long value) {
+        long mask = mask(count);
+        int word = (int) (position >>> 6);
+        int shift = (int) (position & 63);
+        value &= mask;
+        words[word] = (words[word] & ~(mask << shift)) | (value << shift);
+        if (shift + count > 64) {
+            long high = mask(shift + count - 64);
+            words[word + 1] = (words[word + 1] & ~high) | (value >>> (64 - shift));
+        }
+    }
+
+    /**
+     * Copies a run of bits between arbitrary bit positions, 64 at a time.
+     * The ranges must not overlap if src and dst are the same array.
+     */
+    public static void copy(long[] src, long srcPosition, long[] dst, long dstPosition, long length) {
+        while (length > 0) {
+            int count = (int) Math.min(64, length);
+            setBits(dst, dstPosition, count, getBits(src, srcPosition, count));
+            srcPosition += count;
+            dstPosition += count;
+            length -= count;
+        }
+    }
+}
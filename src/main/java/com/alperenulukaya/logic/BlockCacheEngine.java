@@ -0,0 +1,291 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * An execution engine that translates straight-line runs of instructions into
+ * cached basic blocks of pre-decoded micro-ops.
+ *
+ * The ISA has no jumps, so a block simply starts at some PC and runs until a HLT
+ * or until it has covered all 16 cells once. Blocks are kept per start address
+ * and re-validated against memory whenever the core reports changed cells, so
+ * stores that do not change how a cell decodes (e.g. data cells that execute as
+ * NOP) leave the cache intact. A start address whose block keeps getting
+ * invalidated is treated as self-modifying code and handed to the interpreter.
+ */
+public class BlockCacheEngine implements ExecutionEngine {
+
+    // Invalidations after which a start address falls back to the interpreter.
+    private static final int SELF_MODIFYING_THRESHOLD = 16;
+
+    static final int KIND_NOP = 0b0000;
+    static final int KIND_LDA = 0b0001;
+    static final int KIND_ADD = 0b0010;
+    static final int KIND_STA = 0b0011;
+    static final int KIND_OUT = 0b0100;
+    static final int KIND_HLT = 0b1111;
+
+    private final CpuCore core;
+    private final Block[] blocks = new Block[CpuCore.MEMORY_SIZE];
+    private final int[] invalidations = new int[CpuCore.MEMORY_SIZE];
+
+    private int pendingDirty;
+
+    private long blocksBuilt;
+    private long blockRuns;
+    private long interpretedSteps;
+
+    public BlockCacheEngine(CpuCore core) {
+        this.core = core;
+    }
+
+    @Override
+    public String getName() {
+        return "Block cache";
+    }
+
+    @Override
+    public CpuCore getCore() {
+        return core;
+    }
+
+    @Override
+    public long run(long maxSteps) {
+        if (core.debugActive || core.ioBus.mappedMask != 0) {
+            return core.run(maxSteps); // Only the interpreter checks debug stops and devices
+        }
+        long executed = 0;
+        core.updateOutputStall();
+        while (executed < maxSteps && !core.isHalted && !core.outputStalled) {
+            executed += runBlock(maxSteps - executed);
+        }
+        return executed;
+    }
+
+    /**
+     * Executes the block at the current PC, or a single interpreted instruction
+     * if that address is self-modifying. The caller must check that the core is
+     * not halted.
+     * @param budget The maximum number of instructions to execute.
+     * @return The number of instructions executed.
+     */
+    int runBlock(long budget) {
+        if ((core.dirtyMask | pendingDirty) != 0) {
+            revalidate();
+        }
+        int start = core.pc;
+        if (invalidations[start] >= SELF_MODIFYING_THRESHOLD) {
+            core.execute();
+            interpretedSteps++;
+            return 1;
+        }
+        Block block = blocks[start];
+        if (block == null) {
+            block = translate(start);
+            blocks[start] = block;
+            blocksBuilt++;
+        }
+        blockRuns++;
+        return execute(block, budget);
+    }
+
+    /**
+     * Records changed cells on behalf of a higher tier that consumed the core's
+     * dirty mask first, so this cache still re-validates them.
+     */
+    void noteDirty(int mask) {
+        pendingDirty |= mask;
+    }
+
+    /**
+     * Drops every cached block and forgets which addresses were self-modifying.
+     */
+    public void flush() {
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = null;
+            invalidations[i] = 0;
+        }
+    }
+
+    /**
+     * @return A one-line summary of cache activity since construction.
+     */
+    public String getStats() {
+        return String.format("blocks built=%d, block runs=%d, interpreted steps=%d",
+                blocksBuilt, blockRuns, interpretedSteps);
+    }
+
+    /**
+     * Normalizes an instruction word to the micro-op it executes as. Operands of
+     * NOP, OUT and HLT do not matter, so those collapse to a single value each.
+     */
+    static int decode(int instruction) {
+        int opcode = instruction >> 4;
+        switch (opcode) {
+            case KIND_LDA:
+            case KIND_ADD:
+            case KIND_STA:
+                return (opcode << 4) | (instruction & 0x0F);
+            case KIND_OUT:
+            case KIND_HLT:
+                return opcode << 4;
+            default:
+                return KIND_NOP << 4;
+        }
+    }
+
+    private Block translate(int start) {
+        int[] ops = decodeRun(core.memory, start);
+        return new Block(start, ops.length, ops);
+    }
+
+    /**
+     * Decodes the straight-line run starting at the given address: up to and
+     * including the first HLT, or one full lap of memory.
+     * @return The normalized micro-ops of the run.
+     */
+    static int[] decodeRun(int[] memory, int start) {
+        int[] ops = new int[CpuCore.MEMORY_SIZE];
+        int length = 0;
+        while (length < CpuCore.MEMORY_SIZE) {
+            int op = decode(memory[(start + length) & 0x0F]);
+            ops[length++] = op;
+            if ((op >> 4) == KIND_HLT) {
+                break;
+            }
+        }
+        return Arrays.copyOf(ops, length);
+    }
+
+    private void revalidate() {
+        int dirty = core.dirtyMask | pendingDirty;
+        core.dirtyMask = 0;
+        pendingDirty = 0;
+        // A freshly reset or reloaded core is a new program, not self-modification.
+        boolean newProgram = core.cycleCount == 0;
+        for (int start = 0; start < blocks.length; start++) {
+            if (newProgram) {
+                invalidations[start] = 0;
+            }
+            Block block = blocks[start];
+            if (block != null && !block.matches(core.memory, dirty)) {
+                blocks[start] = null;
+                if (!newProgram) {
+                    invalidations[start]++;
+                }
+            }
+        }
+    }
+
+    private int execute(Block block, long budget) {
+        int[] memory = core.memory;
+        int[] ops = block.ops;
+        int n = (int) Math.min(block.length, budget);
+        int acc = core.ac;
+        boolean zero = core.zFlag;
+        boolean carry = false;
+        CpuProfiler profiler = core.profiler;
+        CacheModel cache = core.cache;
+
+        int i = 0;
+        while (i < n) {
+            if (profiler != null || cache != null) {
+                int address = (block.start + i) & 0x0F;
+                if (profiler != null) {
+                    profiler.record(address, memory[address]);
+                }
+                if (cache != null) {
+                    cache.accessInstruction(address, memory[address]);
+                }
+            }
+            int op = ops[i++];
+            int operand = op & 0x0F;
+            carry = false;
+            switch (op >> 4) {
+                case KIND_LDA:
+                    acc = memory[operand] & 0x0F;
+                    zero = acc == 0;
+                    break;
+                case KIND_ADD:
+                    int result = acc + (memory[operand] & 0x0F);
+                    acc = result & 0x0F;
+                    zero = acc == 0;
+                    carry = result > 15;
+                    break;
+                case KIND_STA:
+                    int old = memory[operand];
+                    if (old != acc) {
+                        core.writeMemory(operand, acc);
+                        // Leave the block if we just rewrote one of its own later ops.
+                        if ((block.aheadMask[i - 1] >> operand & 1) != 0 && decode(old) != decode(acc)) {
+                            n = i;
+                        }
+                    }
+                    break;
+                case KIND_OUT:
+                    core.emitOutput(acc);
+                    break;
+                case KIND_HLT:
+                    core.isHalted = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // Materialize the architectural state of the last executed instruction.
+        int lastAddress = (block.start + i - 1) & 0x0F;
+        int lastOp = ops[i - 1];
+        int lastKind = lastOp >> 4;
+        int lastOperand = lastOp & 0x0F;
+        core.ac = acc;
+        core.zFlag = zero;
+        core.cFlag = carry;
+        core.pc = (block.start + i) & 0x0F;
+        boolean memoryOp = lastKind == KIND_LDA || lastKind == KIND_ADD || lastKind == KIND_STA;
+        core.mar = memoryOp ? lastOperand : lastAddress;
+        core.ir = (lastKind == KIND_STA && lastOperand == lastAddress) ? lastOp : memory[lastAddress];
+        core.cycleCount += i;
+        return i;
+    }
+
+    /**
+     * A pre-decoded straight-line run of instructions.
+     */
+    private static final class Block {
+        final int start;
+        final int length;
+        final int[] ops;
+        final int coverMask;
+        // For each op, the cells this block executes after it.
+        final int[] aheadMask;
+
+        Block(int start, int length, int[] ops) {
+            this.start = start;
+            this.length = length;
+            this.ops = ops;
+            this.aheadMask = new int[length];
+            int cover = 0;
+            for (int i = length - 1; i >= 0; i--) {
+                aheadMask[i] = cover;
+                cover |= 1 << ((start + i) & 0x0F);
+            }
+            this.coverMask = cover;
+        }
+
+        /**
+         * Checks whether the changed cells still decode to the ops of this block.
+         */
+        boolean matches(int[] memory, int changed) {
+            int cells = changed & coverMask;
+            while (cells != 0) {
+                int address = Integer.numberOfTrailingZeros(cells);
+                cells &= cells - 1;
+                if (decode(memory[address]) != ops[(address - start) & 0x0F]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
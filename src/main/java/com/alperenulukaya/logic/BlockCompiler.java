@@ -0,0 +1,315 @@
+package com.alperenulukaya.logic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Generates JVM class files that execute one basic block of guest code.
+ *
+ * Each generated class implements {@link JitEngine.CompiledCode}; its
+ * {@code run(CpuCore)} method is straight-line bytecode with the block's
+ * operands baked in as constants, followed by stores that materialize the
+ * architectural state. Stores that may rewrite a later op of the same block get
+ * an early exit, which is the deoptimization point back to the lower tiers.
+ *
+ * Class files are emitted as version 49, which the JVM checks with the
+ * type-inferencing verifier, so no StackMapTable has to be generated.
+ */
+final class BlockCompiler {
+
+    static final String CLASS_NAME = "com/alperenulukaya/logic/JitBlock";
+
+    private static final String CORE = "com/alperenulukaya/logic/CpuCore";
+    private static final String ENGINE = "com/alperenulukaya/logic/JitEngine";
+    private static final String CODE_INTERFACE = "com/alperenulukaya/logic/JitEngine$CompiledCode";
+
+    // Locals of the generated run method: 0 = this, 1 = core, 2 = core.memory,
+    // 3 = accumulator, 4 = unmasked result of the last ADD.
+    private static final int LOCAL_RESULT = 4;
+
+    // The handful of opcodes the compiler emits.
+    private static final int ICONST_0 = 0x03, ICONST_1 = 0x04, ICONST_4 = 0x07, BIPUSH = 0x10;
+    private static final int ILOAD = 0x15, ILOAD_3 = 0x1d, ALOAD_0 = 0x2a, ALOAD_1 = 0x2b, ALOAD_2 = 0x2c;
+    private static final int IALOAD = 0x2e, ISTORE = 0x36, ISTORE_3 = 0x3e, ASTORE_2 = 0x4d, DUP = 0x59;
+    private static final int IADD = 0x60, LADD = 0x61, ISUB = 0x64, IUSHR = 0x7c, IAND = 0x7e, I2L = 0x85;
+    private static final int IFEQ = 0x99, IRETURN = 0xac, RETURN = 0xb1;
+    private static final int GETFIELD = 0xb4, PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6, INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8;
+
+    private final ConstantPool pool = new ConstantPool();
+
+    /**
+     * Compiles a decoded block.
+     * @param start The address of the first op.
+     * @param ops The normalized micro-ops, as produced by {@link BlockCacheEngine#decodeRun}.
+     * @return The class file bytes.
+     */
+    byte[] compile(int start, int[] ops) {
+        int thisClass = pool.classRef(CLASS_NAME);
+        int superClass = pool.classRef("java/lang/Object");
+        int iface = pool.classRef(CODE_INTERFACE);
+        byte[] initCode = constructorCode();
+        byte[] runCode = runCode(start, ops);
+        int codeAttr = pool.utf8("Code");
+        int initName = pool.utf8("<init>");
+        int initDesc = pool.utf8("()V");
+        int runName = pool.utf8("run");
+        int runDesc = pool.utf8("(L" + CORE + ";)I");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);  // minor version
+            out.writeShort(49); // major version
+            pool.writeTo(out);
+            out.writeShort(0x0011); // ACC_PUBLIC | ACC_FINAL
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(iface);
+            out.writeShort(0); // fields
+            out.writeShort(2); // methods
+            writeMethod(out, initName, initDesc, codeAttr, initCode, 1, 1);
+            writeMethod(out, runName, runDesc, codeAttr, runCode, 8, 5);
+            out.writeShort(0); // class attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] constructorCode() {
+        Code code = new Code();
+        code.op(ALOAD_0);
+        code.op(INVOKESPECIAL).u2(pool.methodRef("java/lang/Object", "<init>", "()V"));
+        code.op(RETURN);
+        return code.toByteArray();
+    }
+
+    private byte[] runCode(int start, int[] ops) {
+        Code code = new Code();
+        code.op(ALOAD_1).op(GETFIELD).u2(field("memory", "[I")).op(ASTORE_2);
+        code.op(ALOAD_1).op(GETFIELD).u2(field("ac", "I")).op(ISTORE_3);
+
+        int blockAddresses = 0;
+        for (int i = ops.length - 1; i >= 0; i--) {
+            blockAddresses |= 1 << ((start + i) & 0x0F);
+        }
+
+        int ahead = blockAddresses;
+        for (int i = 0; i < ops.length; i++) {
+            ahead &= ~(1 << ((start + i) & 0x0F));
+            int operand = ops[i] & 0x0F;
+            switch (ops[i] >> 4) {
+                case BlockCacheEngine.KIND_LDA:
+                    code.op(ALOAD_2).push(operand).op(IALOAD).push(0x0F).op(IAND).op(ISTORE_3);
+                    break;
+                case BlockCacheEngine.KIND_ADD:
+                    code.op(ILOAD_3).op(ALOAD_2).push(operand).op(IALOAD).push(0x0F).op(IAND).op(IADD);
+                    code.op(DUP).op(ISTORE).u1(LOCAL_RESULT);
+                    code.push(0x0F).op(IAND).op(ISTORE_3);
+                    break;
+                case BlockCacheEngine.KIND_STA:
+                    code.op(ALOAD_1).push(operand).op(ILOAD_3);
+                    if ((ahead >> operand & 1) != 0 && i < ops.length - 1) {
+                        // Self-modifying store: leave if the rewritten op now decodes differently.
+                        code.op(INVOKESTATIC).u2(pool.methodRef(ENGINE, "storeChanged", "(L" + CORE + ";II)Z"));
+                        Code exit = new Code();
+                        emitExit(exit, start, ops, i + 1);
+                        code.op(IFEQ).u2(3 + exit.size());
+                        code.append(exit);
+                    } else {
+                        code.op(INVOKEVIRTUAL).u2(pool.methodRef(CORE, "writeMemory", "(II)V"));
+                    }
+                    break;
+                case BlockCacheEngine.KIND_OUT:
+                    code.op(ALOAD_1).op(ILOAD_3).op(INVOKEVIRTUAL).u2(pool.methodRef(CORE, "emitOutput", "(I)V"));
+                    break;
+                case BlockCacheEngine.KIND_HLT:
+                    code.op(ALOAD_1).op(ICONST_1).op(PUTFIELD).u2(field("isHalted", "Z"));
+                    break;
+                default:
+                    break;
+            }
+        }
+        emitExit(code, start, ops, ops.length);
+        return code.toByteArray();
+    }
+
+    /**
+     * Emits the state write-back for the first {@code count} ops, then returns count.
+     */
+    private void emitExit(Code code, int start, int[] ops, int count) {
+        int lastAddress = (start + count - 1) & 0x0F;
+        int lastOp = ops[count - 1];
+        int lastKind = lastOp >> 4;
+        boolean writesAcc = false;
+        for (int i = 0; i < count; i++) {
+            int kind = ops[i] >> 4;
+            writesAcc |= kind == BlockCacheEngine.KIND_LDA || kind == BlockCacheEngine.KIND_ADD;
+        }
+
+        code.op(ALOAD_1).op(ILOAD_3).op(PUTFIELD).u2(field("ac", "I"));
+        if (writesAcc) {
+            // Z = (acc - 1) >>> 31, which is 1 only for acc == 0 since acc is 4-bit.
+            code.op(ALOAD_1).op(ILOAD_3).op(ICONST_1).op(ISUB).push(31).op(IUSHR).op(PUTFIELD).u2(field("zFlag", "Z"));
+        }
+        code.op(ALOAD_1);
+        if (lastKind == BlockCacheEngine.KIND_ADD) {
+            code.op(ILOAD).u1(LOCAL_RESULT).op(ICONST_4).op(IUSHR); // Carry = result >>> 4
+        } else {
+            code.op(ICONST_0);
+        }
+        code.op(PUTFIELD).u2(field("cFlag", "Z"));
+        code.op(ALOAD_1).push((start + count) & 0x0F).op(PUTFIELD).u2(field("pc", "I"));
+        boolean memoryOp = lastKind == BlockCacheEngine.KIND_LDA || lastKind == BlockCacheEngine.KIND_ADD
+                || lastKind == BlockCacheEngine.KIND_STA;
+        code.op(ALOAD_1).push(memoryOp ? (lastOp & 0x0F) : lastAddress).op(PUTFIELD).u2(field("mar", "I"));
+        code.op(ALOAD_1);
+        if (lastKind == BlockCacheEngine.KIND_STA && (lastOp & 0x0F) == lastAddress) {
+            code.push(lastOp); // The store overwrote the instruction we fetched.
+        } else {
+            code.op(ALOAD_2).push(lastAddress).op(IALOAD);
+        }
+        code.op(PUTFIELD).u2(field("ir", "I"));
+        int cycles = field("cycleCount", "J");
+        code.op(ALOAD_1).op(DUP).op(GETFIELD).u2(cycles).push(count).op(I2L).op(LADD).op(PUTFIELD).u2(cycles);
+        code.push(count).op(IRETURN);
+    }
+
+    private int field(String name, String descriptor) {
+        return pool.fieldRef(CORE, name, descriptor);
+    }
+
+    private static void writeMethod(DataOutputStream out, int name, int descriptor, int codeAttr,
+            byte[] code, int maxStack, int maxLocals) throws IOException {
+        out.writeShort(0x0001); // ACC_PUBLIC
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeAttr);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // code attributes
+    }
+
+    /**
+     * A growable bytecode buffer with a fluent emitter.
+     */
+    private static final class Code {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        Code op(int opcode) {
+            bytes.write(opcode);
+            return this;
+        }
+
+        Code u1(int value) {
+            bytes.write(value);
+            return this;
+        }
+
+        Code u2(int value) {
+            bytes.write(value >> 8);
+            bytes.write(value);
+            return this;
+        }
+
+        Code push(int value) {
+            return op(BIPUSH).u1(value);
+        }
+
+        Code append(Code other) {
+            byte[] data = other.toByteArray();
+            bytes.write(data, 0, data.length);
+            return this;
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * A de-duplicating class file constant pool.
+     */
+    private static final class ConstantPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> entries = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) {
+            return entry("U" + value, () -> {
+                out.writeByte(1);
+                out.writeUTF(value);
+            });
+        }
+
+        int classRef(String internalName) {
+            int name = utf8(internalName);
+            return entry("C" + internalName, () -> {
+                out.writeByte(7);
+                out.writeShort(name);
+            });
+        }
+
+        int fieldRef(String owner, String name, String descriptor) {
+            return memberRef(9, owner, name, descriptor);
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            return memberRef(10, owner, name, descriptor);
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) {
+            int ownerClass = classRef(owner);
+            int nameIndex = utf8(name);
+            int descIndex = utf8(descriptor);
+            int nameAndType = entry("N" + name + ":" + descriptor, () -> {
+                out.writeByte(12);
+                out.writeShort(nameIndex);
+                out.writeShort(descIndex);
+            });
+            return entry(tag + owner + "." + name + ":" + descriptor, () -> {
+                out.writeByte(tag);
+                out.writeShort(ownerClass);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        private int entry(String key, Writer writer) {
+            Integer index = entries.get(key);
+            if (index != null) {
+                return index;
+            }
+            try {
+                writer.write();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            entries.put(key, count);
+            return count++;
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            target.writeShort(count);
+            bytes.writeTo(target);
+        }
+
+        private interface Writer {
+            void write() throws IOException;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.alperenulukaya.logic;
+
+/**
+ * Decides which of several cores requesting the shared bus in a cycle gets it.
+ *
+ * Requests are passed as a bit mask with one bit per core. All policies are
+ * deterministic: the random policy uses a fixed-seed generator, so the same
+ * system replays the same interleaving.
+ */
+public class BusArbiter {
+
+    public enum Policy {
+        /** The requester after the last winner, wrapping around. Fair. */
+        ROUND_ROBIN,
+        /** The lowest-numbered requester. Can starve high-numbered cores. */
+        FIXED_PRIORITY,
+        /** A uniformly chosen requester from a seeded generator. */
+        RANDOM
+    }
+
+    private final Policy policy;
+    private final long[] grants;
+    private int lastGrant = -1;
+    private long randomState;
+
+    /**
+     * @param policy The arbitration policy.
+     * @param coreCount The number of cores, at most 32.
+     * @param seed The seed for {@link Policy#RANDOM}.
+     */
+    public BusArbiter(Policy policy, int coreCount, long seed) {
+        if (coreCount < 1 || coreCount > 32) {
+            throw new IllegalArgumentException("coreCount must be between 1 and 32");
+        }
+        this.policy = policy;
+        this.grants = new long[coreCount];
+        this.randomState = seed;
+    }
+
+    /**
+     * @param requests One bit per requesting core.
+     * @return The core granted the bus, or -1 if there were no requests.
+     */
+    public int grant(int requests) {
+        if (requests == 0) {
+            return -1;
+        }
+        int winner;
+        switch (policy) {
+            case FIXED_PRIORITY:
+                winner = Integer.numberOfTrailingZeros(requests);
+                break;
+            case RANDOM: {
+                randomState = randomState * 6364136223846793005L + 1442695040888963407L;
+                int pick = (int) ((randomState >>> 33) % Integer.bitCount(requests));
+                winner = Integer.numberOfTrailingZeros(requests);
+                for (int i = 0; i < pick; i++) {
+                    requests &= requests - 1;
+                    winner = Integer.numberOfTrailingZeros(requests);
+                }
+                break;
+            }
+            default:
+                winner = lastGrant;
+                do {
+                    winner = (winner + 1) % grants.length;
+                } while ((requests >>> winner & 1) == 0);
+                break;
+        }
+        lastGrant = winner;
+        grants[winner]++;
+        return winner;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return The number of grants per core (a copy).
+     */
+    public long[] getGrantCounts() {
+        return grants.clone();
+    }
+}
@@ -0,0 +1,280 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * A configurable cache placed between a {@link CpuCore} and its memory.
+ *
+ * The model tracks tags, valid and dirty bits and replacement state only; data
+ * always lives in the core's memory array, so attaching a cache never changes
+ * what a program computes, only the hit, miss and latency statistics.
+ *
+ * Lines are stored set-major in flat arrays: the ways of set {@code s} occupy
+ * indices {@code s * ways} to {@code s * ways + ways - 1}. One way gives a
+ * direct-mapped cache and one set a fully associative one. Write-back caches
+ * allocate on write misses; write-through caches do not and pay the memory
+ * latency on every write.
+ */
+public class CacheModel {
+
+    public enum ReplacementPolicy { LRU, FIFO, RANDOM }
+
+    public enum WritePolicy { WRITE_BACK, WRITE_THROUGH }
+
+    private final int sets;
+    private final int ways;
+    private final int lineSize;
+    private final int offsetBits;
+    private final ReplacementPolicy replacement;
+    private final WritePolicy writePolicy;
+    private int hitLatency = 1;
+    private int memoryLatency = 10;
+
+    private final int[] tags;       // -1 for an invalid line
+    private final boolean[] dirty;
+    private final long[] stamps;    // last use (LRU) or fill time (FIFO)
+    private long clock;
+    private int randomState = 0x2545F491;
+
+    private long reads, writes, readHits, writeHits, writebacks;
+    private long totalLatency;
+
+    /**
+     * @param sets The number of sets, a power of two.
+     * @param ways The associativity.
+     * @param lineSize Memory cells per line, a power of two.
+     * @param replacement Which way to evict on a miss.
+     * @param writePolicy How stores reach memory.
+     */
+    public CacheModel(int sets, int ways, int lineSize, ReplacementPolicy replacement, WritePolicy writePolicy) {
+        if (Integer.bitCount(sets) != 1 || Integer.bitCount(lineSize) != 1 || ways < 1) {
+            throw new IllegalArgumentException("sets and lineSize must be powers of two and ways at least 1");
+        }
+        this.sets = sets;
+        this.ways = ways;
+        this.lineSize = lineSize;
+        this.offsetBits = Integer.numberOfTrailingZeros(lineSize);
+        this.replacement = replacement;
+        this.writePolicy = writePolicy;
+        this.tags = new int[sets * ways];
+        this.dirty = new boolean[sets * ways];
+        this.stamps = new long[sets * ways];
+        invalidate();
+    }
+
+    /**
+     * Sets the simulated latencies in cycles.
+     * @param hitLatency The cost of an access that hits.
+     * @param memoryLatency The extra cost of each memory transfer (line fill,
+     *        write-back of a dirty line, or write-through store).
+     */
+    public void setLatencies(int hitLatency, int memoryLatency) {
+        this.hitLatency = hitLatency;
+        this.memoryLatency = memoryLatency;
+    }
+
+    /**
+     * Simulates a read.
+     * @return The latency of the access in cycles.
+     */
+    public int read(int address) {
+        reads++;
+        int block = address >>> offsetBits;
+        int line = find(block);
+        int latency = hitLatency;
+        if (line >= 0) {
+            readHits++;
+            touch(line);
+        } else {
+            latency += fill(block);
+        }
+        totalLatency += latency;
+        return latency;
+    }
+
+    /**
+     * Simulates a write.
+     * @return The latency of the access in cycles.
+     */
+    public int write(int address) {
+        writes++;
+        int block = address >>> offsetBits;
+        int line = find(block);
+        int latency = hitLatency;
+        if (line >= 0) {
+            writeHits++;
+            touch(line);
+        } else if (writePolicy == WritePolicy.WRITE_BACK) {
+            latency += fill(block);
+            line = find(block);
+        }
+        if (writePolicy == WritePolicy.WRITE_THROUGH) {
+            latency += memoryLatency;
+        } else {
+            dirty[line] = true;
+        }
+        totalLatency += latency;
+        return latency;
+    }
+
+    /**
+     * Simulates the accesses of one instruction: the fetch, then the operand
+     * read of LDA and ADD or the operand write of STA.
+     * @return The total latency in cycles.
+     */
+    public int accessInstruction(int address, int instruction) {
+        int latency = read(address);
+        switch (instruction >> 4) {
+            case 0b0001:
+            case 0b0010:
+                return latency + read(instruction & 0x0F);
+            case 0b0011:
+                return latency + write(instruction & 0x0F);
+            default:
+                return latency;
+        }
+    }
+
+    /**
+     * Empties the cache, counting write-backs of dirty lines.
+     */
+    public void invalidate() {
+        for (int line = 0; line < tags.length; line++) {
+            if (tags[line] >= 0 && dirty[line]) {
+                writebacks++;
+            }
+        }
+        Arrays.fill(tags, -1);
+        Arrays.fill(dirty, false);
+        Arrays.fill(stamps, 0);
+    }
+
+    /**
+     * Clears the counters; the cache contents are kept.
+     */
+    public void resetStatistics() {
+        reads = writes = readHits = writeHits = writebacks = totalLatency = 0;
+    }
+
+    /**
+     * @return Whether the cell is currently cached.
+     */
+    public boolean contains(int address) {
+        return find(address >>> offsetBits) >= 0;
+    }
+
+    private int find(int block) {
+        int base = (block & (sets - 1)) * ways;
+        int tag = block / sets;
+        for (int way = 0; way < ways; way++) {
+            if (tags[base + way] == tag) {
+                return base + way;
+            }
+        }
+        return -1;
+    }
+
+    private void touch(int line) {
+        if (replacement == ReplacementPolicy.LRU) {
+            stamps[line] = ++clock;
+        }
+    }
+
+    /**
+     * Loads a block into its set, evicting a victim if needed.
+     * @return The added latency of the miss.
+     */
+    private int fill(int block) {
+        int base = (block & (sets - 1)) * ways;
+        int victim = victim(base);
+        int latency = memoryLatency;
+        if (tags[victim] >= 0 && dirty[victim]) {
+            writebacks++;
+            latency += memoryLatency;
+        }
+        tags[victim] = block / sets;
+        dirty[victim] = false;
+        stamps[victim] = ++clock;
+        return latency;
+    }
+
+    private int victim(int base) {
+        for (int way = 0; way < ways; way++) {
+            if (tags[base + way] < 0) {
+                return base + way;
+            }
+        }
+        if (replacement == ReplacementPolicy.RANDOM) {
+            // xorshift keeps runs reproducible without allocating
+            randomState ^= randomState << 13;
+            randomState ^= randomState >>> 17;
+            randomState ^= randomState << 5;
+            return base + Math.floorMod(randomState, ways);
+        }
+        int victim = base;
+        for (int way = 1; way < ways; way++) {
+            if (stamps[base + way] < stamps[victim]) {
+                victim = base + way;
+            }
+        }
+        return victim;
+    }
+
+    public long getReadCount() {
+        return reads;
+    }
+
+    public long getWriteCount() {
+        return writes;
+    }
+
+    public long getHitCount() {
+        return readHits + writeHits;
+    }
+
+    public long getMissCount() {
+        return reads + writes - readHits - writeHits;
+    }
+
+    public long getWritebackCount() {
+        return writebacks;
+    }
+
+    public long getTotalLatency() {
+        return totalLatency;
+    }
+
+    /**
+     * @return Hits per access, or 0 before the first access.
+     */
+    public double getHitRate() {
+        long accesses = reads + writes;
+        return accesses == 0 ? 0 : (double) getHitCount() / accesses;
+    }
+
+    /**
+     * @return The average latency per access in cycles, or 0 before the first access.
+     */
+    public double getAverageLatency() {
+        long accesses = reads + writes;
+        return accesses == 0 ? 0 : (double) totalLatency / accesses;
+    }
+
+    /**
+     * @return A description of the configuration, e.g. "2-way: 2 sets, 2-cell lines, LRU, write-back".
+     */
+    public String getDescription() {
+        String organization = ways == 1 ? "direct-mapped" : sets == 1 ? "fully associative" : ways + "-way";
+        return String.format("%s: %d sets, %d-cell lines, %s, %s", organization, sets, lineSize, replacement,
+                writePolicy == WritePolicy.WRITE_BACK ? "write-back" : "write-through");
+    }
+
+    /**
+     * @return A one-line summary of the counters.
+     */
+    public String getStats() {
+        return String.format("reads=%d, writes=%d, hits=%d, misses=%d (%.1f%% hit), write-backs=%d, "
+                + "latency=%d cycles (%.2f avg)", reads, writes, getHitCount(), getMissCount(), 100 * getHitRate(),
+                writebacks, totalLatency, getAverageLatency());
+    }
+}
@@ -0,0 +1,289 @@
+package com.alperenulukaya.logic;
+
+/**
+ * An N-bit synchronous counter of one of several kinds, the general form of
+ * {@link Counter4Bit}. The state is held as a word rather than as flip-flop
+ * objects, and besides {@link #clock()} the counter can be advanced by any
+ * number of ticks at once with {@link #clock(long)}, which jumps to the new
+ * state arithmetically instead of looping:
+ * <ul>
+ * <li>binary, modulo-N and BCD counters add the ticks modulo their period</li>
+ * <li>Johnson and ring counters are a position in their cycle of states</li>
+ * <li>an LFSR multiplies its state by x^ticks modulo its feedback polynomial,
+ * found by square-and-multiply in O(width * log ticks) steps</li>
+ * </ul>
+ * so a counter clocked at simulated MHz rates costs the same per frame as one
+ * clocked once.
+ *
+ * Every kind counts up or down; counting down runs through the same states in
+ * reverse. Counters are created with the static factory methods.
+ */
+public class Counter {
+
+    public enum Kind {
+        BINARY, MODULO, BCD, JOHNSON, RING, LFSR
+    }
+
+    public enum CountMode {
+        UP, DOWN
+    }
+
+    /**
+     * Feedback taps of a maximal-length Galois LFSR for each width from 2 to
+     * 64: the polynomial x^n + taps is primitive, so the LFSR runs through all
+     * 2^n - 1 non-zero states. Each is the lowest-weight polynomial found.
+     */
+    private static final long[] LFSR_TAPS = {
+        0x3L, 0x3L, 0x3L, 0x5L,
+        0x3L, 0x3L, 0x1DL, 0x11L,
+        0x9L, 0x5L, 0x53L, 0x1BL,
+        0x2BL, 0x3L, 0x2DL, 0x9L,
+        0x81L, 0x27L, 0x9L, 0x5L,
+        0x3L, 0x21L, 0x1BL, 0x9L,
+        0x47L, 0x27L, 0x9L, 0x5L,
+        0x53L, 0x9L, 0xC5L, 0x2001L,
+        0x119L, 0x5L, 0x801L, 0x53L,
+        0x63L, 0x11L, 0x39L, 0x9L,
+        0x99L, 0x59L, 0x65L, 0x1BL,
+        0x1C1L, 0x21L, 0x291L, 0x201L,
+        0x1DL, 0x4BL, 0x9L, 0x47L,
+        0x149L, 0x1000001L, 0x95L, 0x81L,
+        0x80001L, 0x95L, 0x3L, 0x27L,
+        0x69L, 0x3L, 0x1BL,
+    };
+
+    private final Kind kind;
+    private final int width;
+    private final long mask;
+    // The number of distinct states, or 0 for 2^64 (a 64-bit binary counter).
+    private final long period;
+    private final long taps;
+    private CountMode currentMode = CountMode.UP;
+    // The binary value, the BCD value as binary, the Johnson or ring position, or the LFSR state.
+    private long count;
+
+    private Counter(Kind kind, int width, long period, long taps) {
+        this.kind = kind;
+        this.width = width;
+        this.mask = BitLanes.mask(width);
+        this.period = period;
+        this.taps = taps;
+        reset();
+    }
+
+    /**
+     * @param width The number of bits, 1 to 64.
+     * @return A binary counter that wraps around after 2^width states.
+     */
+    public static Counter binary(int width) {
+        checkWidth(width, 1);
+        return new Counter(Kind.BINARY, width, width == 64 ? 0 : 1L << width, 0);
+    }
+
+    /**
+     * @param modulus The number of states, at least 2; the counter counts from 0 to modulus - 1.
+     * @return A modulo-N counter as wide as its largest value needs.
+     */
+    public static Counter modulo(long modulus) {
+        if (modulus < 2) {
+            throw new IllegalArgumentException("Modulus must be at least 2: " + modulus);
+        }
+        return new Counter(Kind.MODULO, 64 - Long.numberOfLeadingZeros(modulus - 1), modulus, 0);
+    }
+
+    /**
+     * @param digits The number of decimal digits, 1 to 16.
+     * @return A BCD counter, four bits per digit, counting from 0 to 10^digits - 1.
+     */
+    public static Counter bcd(int digits) {
+        if (digits < 1 || digits > 16) {
+            throw new IllegalArgumentException("A BCD counter has 1 to 16 digits: " + digits);
+        }
+        long period = 1;
+        for (int i = 0; i < digits; i++) {
+            period *= 10;
+        }
+        return new Counter(Kind.BCD, digits * 4, period, 0);
+    }
+
+    /**
+     * @param width The number of bits, 1 to 64.
+     * @return A Johnson (twisted ring) counter with 2 * width states, starting at all zeros.
+     */
+    public static Counter johnson(int width) {
+        checkWidth(width, 1);
+        return new Counter(Kind.JOHNSON, width, 2L * width, 0);
+    }
+
+    /**
+     * @param width The number of bits, 1 to 64.
+     * @return A one-hot ring counter with width states, starting with bit 0 set.
+     */
+    public static Counter ring(int width) {
+        checkWidth(width, 1);
+        return new Counter(Kind.RING, width, width, 0);
+    }
+
+    /**
+     * @param width The number of bits, 2 to 64.
+     * @return A maximal-length Galois LFSR with 2^width - 1 states, starting at 1.
+     */
+    public static Counter lfsr(int width) {
+        checkWidth(width, 2);
+        return new Counter(Kind.LFSR, width, width == 64 ? -1L : (1L << width) - 1, LFSR_TAPS[width - 2]);
+    }
+
+    private static void checkWidth(int width, int min) {
+        if (width < min || width > 64) {
+            throw new IllegalArgumentException("Counter width must be " + min + " to 64: " + width);
+        }
+    }
+
+    public void setMode(CountMode mode) {
+        this.currentMode = mode;
+    }
+
+    public CountMode getMode() {
+        return this.currentMode;
+    }
+
+    /**
+     * Advances the counter by one tick.
+     */
+    public void clock() {
+        if (kind != Kind.LFSR) {
+            clock(1);
+        } else if (currentMode == CountMode.UP) {
+            count = (count << 1 & mask) ^ ((count >>> (width - 1) & 1) != 0 ? taps : 0);
+        } else {
+            count = (count & 1) != 0 ? (count ^ taps) >>> 1 | 1L << (width - 1) : count >>> 1;
+        }
+    }
+
+    /**
+     * Advances the counter by the given number of ticks, in constant time for
+     * every kind except the LFSR, which takes O(width * log ticks).
+     * @param ticks The number of clock edges, not negative.
+     */
+    public void clock(long ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("Ticks must not be negative: " + ticks);
+        }
+        if (kind == Kind.BINARY) {
+            count = (currentMode == CountMode.UP ? count + ticks : count - ticks) & mask;
+        } else if (kind == Kind.LFSR) {
+            long steps = Long.remainderUnsigned(ticks, period);
+            if (currentMode == CountMode.DOWN && steps != 0) {
+                steps = period - steps;
+            }
+            count = multiply(count, powerOfX(steps));
+        } else {
+            long steps = ticks % period;
+            if (currentMode == CountMode.UP) {
+                count = count >= period - steps ? count - (period - steps) : count + steps;
+            } else {
+                count = count >= steps ? count - steps : count + (period - steps);
+            }
+        }
+    }
+
+    /**
+     * @return x^e modulo the feedback polynomial.
+     */
+    private long powerOfX(long e) {
+        long result = 1;
+        long base = 2;
+        while (e != 0) {
+            if ((e & 1) != 0) {
+                result = multiply(result, base);
+            }
+            base = multiply(base, base);
+            e >>>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Multiplies two LFSR states as polynomials modulo the feedback
+     * polynomial: Horner's rule over the bits of b, one LFSR step per bit.
+     */
+    private long multiply(long a, long b) {
+        long result = 0;
+        for (int bit = width - 1; bit >= 0; bit--) {
+            result = (result << 1 & mask) ^ ((result >>> (width - 1) & 1) != 0 ? taps : 0);
+            if ((b >>> bit & 1) != 0) {
+                result ^= a;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The counter's outputs as a word, bit i being Q_i.
+     */
+    public long getValue() {
+        switch (kind) {
+            case BCD: {
+                long value = 0;
+                long remaining = count;
+                for (int shift = 0; remaining != 0; shift += 4) {
+                    value |= remaining % 10 << shift;
+                    remaining /= 10;
+                }
+                return value;
+            }
+            case JOHNSON:
+                return count <= width ? BitLanes.mask((int) count) : mask & ~BitLanes.mask((int) count - width);
+            case RING:
+                return 1L << count;
+            default:
+                return count;
+        }
+    }
+
+    /**
+     * @return The number of ticks counted modulo the period: the binary value
+     *         for binary, modulo and BCD counters and the position in the cycle
+     *         for Johnson and ring counters. For an LFSR it is the state itself.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public boolean getBit(int index) {
+        return (getValue() >>> index & 1) != 0;
+    }
+
+    public boolean[] getBits() {
+        long value = getValue();
+        boolean[] bits = new boolean[width];
+        for (int i = 0; i < width; i++) {
+            bits[i] = (value >>> i & 1) != 0;
+        }
+        return bits;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The number of distinct states the counter cycles through, as an
+     *         unsigned value: 0 stands for 2^64 and -1 for 2^64 - 1.
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    /**
+     * Returns the counter to its first state: zero, or 1 for an LFSR, which
+     * would never leave the all-zero state.
+     */
+    public void reset() {
+        count = kind == Kind.LFSR ? 1 : 0;
+    }
+}
@@ -1,9 +1,11 @@
 
 package com.alperenulukaya.logic;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
 
 /**
  * Represents the core logic of a 4-bit Von Neumann architecture CPU.
@@ -14,16 +16,93 @@ public class CpuCore {
     public enum Register { PC, AC, IR, MAR }
     public enum Flag { Z, C } // Zero and Carry flags
 
-    private int[] memory;
-    private int pc, ac, ir, mar;
-    private boolean isHalted;
-    private final Map<Flag, Boolean> flags = new HashMap<>();
+    public static final int MEMORY_SIZE = 16;
+
+    // Machine state is package-private so the execution engines in this package
+    // can run guest code without going through the accessors.
+    final int[] memory;
+    private final boolean sharedMemory;
+    int pc, ac, ir, mar;
+    boolean zFlag, cFlag;
+    boolean isHalted;
+    long cycleCount;
+
+    // One bit per memory cell whose value changed since an engine last consumed
+    // the mask. Engines use it to invalidate pre-decoded code.
+    int dirtyMask;
+
+    // Zobrist hash of the memory contents, maintained on every write so loop
+    // detection can compare machine states cheaply.
+    long memoryHash;
+
+    // Debug stops: one bit per address for PC breakpoints and MAR watchpoints.
+    // debugActive is the only check the execution loops pay when none are set.
+    int breakpointMask;
+    int readWatchMask;
+    int writeWatchMask;
+    boolean debugActive;
+    private final List<String> conditionNames = new ArrayList<>();
+    private final List<Predicate<CpuCore>> conditions = new ArrayList<>();
+    private String stopReason;
+
+    // Optional execution profiler; null when profiling is off.
+    CpuProfiler profiler;
+
+    // Optional cache timing model; null when memory is accessed directly.
+    CacheModel cache;
+
+    // Memory-mapped devices and the OUT port.
+    IoBus ioBus = new IoBus();
+
+    // Set by OUT when the output port asks to stall; run loops stop until the
+    // caller drains the port and runs again.
+    boolean outputStalled;
+
+    // The 4-bit ALU that ADD runs through; it also produces the Z and C flags.
+    private final Alu alu = new Alu(4);
 
     private String lastOutput;
     private String lastActionDescription;
 
+    private static final String[] DIGITS = new String[16];
+
+    private static final long[] ZOBRIST = new long[MEMORY_SIZE * 256];
+    private static final long EMPTY_MEMORY_HASH;
+
+    static {
+        for (int i = 0; i < DIGITS.length; i++) {
+            DIGITS[i] = String.valueOf(i);
+        }
+        // Fixed seed: hashes must be reproducible between runs.
+        SplittableRandom random = new SplittableRandom(0x4B1D);
+        for (int i = 0; i < ZOBRIST.length; i++) {
+            ZOBRIST[i] = random.nextLong();
+        }
+        long empty = 0;
+        for (int address = 0; address < MEMORY_SIZE; address++) {
+            empty ^= ZOBRIST[address << 8];
+        }
+        EMPTY_MEMORY_HASH = empty;
+    }
+
     public CpuCore() {
-        this.memory = new int[16];
+        this.memory = new int[MEMORY_SIZE];
+        this.sharedMemory = false;
+        reset();
+    }
+
+    /**
+     * Creates a core that works on memory shared with other cores. Only the
+     * interpreter paths see writes made by other cores, and {@link #reset()}
+     * leaves shared memory untouched.
+     * @param sharedMemory An array of {@link #MEMORY_SIZE} cells.
+     */
+    public CpuCore(int[] sharedMemory) {
+        if (sharedMemory.length != MEMORY_SIZE) {
+            throw new IllegalArgumentException("Shared memory must have " + MEMORY_SIZE + " cells");
+        }
+        this.memory = sharedMemory;
+        this.sharedMemory = true;
         reset();
     }
 
@@ -31,6 +110,7 @@ public class CpuCore {
      * Executes a single Fetch-Decode-Execute cycle for one instruction.
      */
     public void step() {
+        stopReason = null;
         if (isHalted) {
             lastActionDescription = "CPU is Halted. Press Reset to restart.";
             return;
@@ -40,6 +120,13 @@ public class CpuCore {
         mar = pc;
         ir = memory[mar];
         pc = (pc + 1) & 0x0F;
+        cycleCount++;
+        if (profiler != null) {
+            profiler.record(mar, ir);
+        }
+        if (cache != null) {
+            cache.accessInstruction(mar, ir);
+        }
 
         // Decode
         int opcode = ir >> 4;
@@ -47,37 +134,36 @@ public class CpuCore {
 
         // Reset Carry flag for non-arithmetic operations
         if (opcode != 0b0010) {
-            flags.put(Flag.C, false);
+            cFlag = false;
         }
 
         // Execute
         switch (opcode) {
             case 0b0001: // LDA
                 mar = operand;
-                ac = memory[mar] & 0x0F;
-                flags.put(Flag.Z, ac == 0);
+                ac = load(mar);
+                zFlag = ac == 0;
                 lastActionDescription = String.format("LDA %X: Loaded M[0x%X](%d) into AC.", operand, operand, ac);
                 break;
 
             case 0b0010: // ADD
                 mar = operand;
-                int dataFromMemory = memory[mar] & 0x0F;
+                int dataFromMemory = load(mar);
                 int oldAc = ac;
-                int result = ac + dataFromMemory;
-                ac = result & 0x0F; // Keep the lower 4 bits
-                flags.put(Flag.Z, ac == 0);
-                flags.put(Flag.C, result > 15); // Set Carry flag if result overflows
+                ac = (int) alu.add(ac, dataFromMemory); // Keeps the lower 4 bits
+                zFlag = alu.isZero();
+                cFlag = alu.isCarry(); // Set if the addition carried out of bit 3
                 lastActionDescription = String.format("ADD %X: Added M[0x%X](%d) to AC(%d). New AC is %d.", operand, operand, dataFromMemory, oldAc, ac);
                 break;
 
             case 0b0011: // STA
                 mar = operand;
-                memory[mar] = ac;
+                store(mar, ac);
                 lastActionDescription = String.format("STA %X: Stored AC(%d) into M[0x%X].", operand, ac, operand);
                 break;
 
             case 0b0100: // OUT
-                lastOutput = String.valueOf(ac);
+                emitOutput(ac);
                 lastActionDescription = String.format("OUT: Output value %d from AC.", ac);
                 break;
 
@@ -90,6 +176,276 @@ public class CpuCore {
                 lastActionDescription = String.format("NOP: Unknown opcode %s.", Integer.toBinaryString(opcode));
                 break;
         }
+
+        if (debugActive) {
+            checkStopAfterInstruction();
+        }
+    }
+
+    /**
+     * Executes up to maxSteps instructions without building action descriptions.
+     * This is the fast interpreter used for headless runs and as the fallback
+     * tier of the other execution engines.
+     * @param maxSteps The instruction budget.
+     * @return The number of instructions executed (fewer than maxSteps if the
+     *         CPU halts or the output port must be drained first).
+     */
+    public long run(long maxSteps) {
+        stopReason = null;
+        long executed = 0;
+        updateOutputStall();
+        if (!debugActive) {
+            while (executed < maxSteps && !isHalted && !outputStalled) {
+                execute();
+                executed++;
+            }
+        } else {
+            while (executed < maxSteps && !isHalted && !outputStalled) {
+                // A breakpoint on the starting PC does not stop the run, so runs can resume from it.
+                if (executed > 0 && checkBreakpoint()) {
+                    break;
+                }
+                execute();
+                executed++;
+                if (checkStopAfterInstruction()) {
+                    break;
+                }
+            }
+        }
+        lastActionDescription = String.format("Ran %d instructions. PC=0x%X, AC=%d.%s", executed, pc, ac,
+                stopReason != null ? " " + stopReason : outputStalled ? " Output port full." : "");
+        return executed;
+    }
+
+    /**
+     * Executes one instruction with the same semantics as {@link #step()}, minus
+     * the description. The caller must check {@link #isHalted()} first.
+     */
+    void execute() {
+        mar = pc;
+        ir = memory[mar];
+        pc = (pc + 1) & 0x0F;
+        cycleCount++;
+        if (profiler != null) {
+            profiler.record(mar, ir);
+        }
+        if (cache != null) {
+            cache.accessInstruction(mar, ir);
+        }
+
+        int operand = ir & 0x0F;
+        switch (ir >> 4) {
+            case 0b0001: // LDA
+                mar = operand;
+                ac = load(operand);
+                zFlag = ac == 0;
+                cFlag = false;
+                break;
+            case 0b0010: // ADD
+                mar = operand;
+                ac = (int) alu.add(ac, load(operand));
+                zFlag = alu.isZero();
+                cFlag = alu.isCarry();
+                break;
+            case 0b0011: // STA
+                mar = operand;
+                store(operand, ac);
+                cFlag = false;
+                break;
+            case 0b0100: // OUT
+                emitOutput(ac);
+                cFlag = false;
+                break;
+            case 0b1111: // HLT
+                isHalted = true;
+                cFlag = false;
+                break;
+            default: // NOP
+                cFlag = false;
+                break;
+        }
+    }
+
+    /**
+     * Stores a value and records the cell in the dirty mask if it changed.
+     */
+    void writeMemory(int address, int value) {
+        int old = memory[address];
+        if (old != value) {
+            memory[address] = value;
+            dirtyMask |= 1 << address;
+            memoryHash ^= ZOBRIST[(address << 8) | (old & 0xFF)] ^ ZOBRIST[(address << 8) | (value & 0xFF)];
+        }
+    }
+
+    /**
+     * Reads a data operand from memory or from the device mapped at the address.
+     */
+    int load(int address) {
+        return (ioBus.mappedMask >>> address & 1) == 0 ? memory[address] & 0x0F : ioBus.read(address, cycleCount);
+    }
+
+    /**
+     * Stores a data operand to memory or to the device mapped at the address.
+     */
+    void store(int address, int value) {
+        if ((ioBus.mappedMask >>> address & 1) == 0) {
+            writeMemory(address, value);
+        } else {
+            ioBus.write(address, value, cycleCount);
+        }
+    }
+
+    /**
+     * Hashes the full machine state: registers, flags, halt state and memory.
+     * Equal states always hash equally; unequal states rarely do.
+     */
+    long stateHash() {
+        long registers = pc | (ac << 8) | (ir << 16) | ((long) mar << 32)
+                | (zFlag ? 1L << 40 : 0) | (cFlag ? 1L << 41 : 0) | (isHalted ? 1L << 42 : 0);
+        registers *= 0x9E3779B97F4A7C15L;
+        return memoryHash ^ registers ^ (registers >>> 29);
+    }
+
+    void clearStopReason() {
+        stopReason = null;
+    }
+
+    void setLastActionDescription(String description) {
+        lastActionDescription = description;
+    }
+
+    /**
+     * Publishes the accumulator on the output port and the bus's output
+     * device. Used by every engine that executes OUT.
+     */
+    void emitOutput(int value) {
+        lastOutput = DIGITS[value];
+        ioBus.output(value, cycleCount);
+        outputStalled = ioBus.getOutputPort().shouldStall();
+    }
+
+    /**
+     * Re-checks the output port at the start of a run, since the caller may
+     * have drained it.
+     * @return true if the run must not execute anything yet.
+     */
+    boolean updateOutputStall() {
+        outputStalled = ioBus.getOutputPort().shouldStall();
+        return outputStalled;
+    }
+
+    /**
+     * Checks for a breakpoint on the current PC, recording the stop reason.
+     * @return true if execution should stop before the instruction at PC.
+     */
+    boolean checkBreakpoint() {
+        if ((breakpointMask >>> pc & 1) != 0) {
+            stopReason = String.format("Breakpoint at 0x%X.", pc);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks the watchpoints against the access the last instruction made
+     * through MAR, then the stop conditions, recording the stop reason.
+     * @return true if execution should stop.
+     */
+    boolean checkStopAfterInstruction() {
+        int opcode = ir >> 4;
+        int watchMask = opcode == 0b0011 ? writeWatchMask
+                : (opcode == 0b0001 || opcode == 0b0010) ? readWatchMask : 0;
+        if ((watchMask >>> mar & 1) != 0) {
+            stopReason = String.format("Watchpoint: %s M[0x%X].", opcode == 0b0011 ? "write to" : "read of", mar);
+            return true;
+        }
+        for (int i = 0; i < conditions.size(); i++) {
+            if (conditions.get(i).test(this)) {
+                stopReason = "Condition met: " + conditionNames.get(i) + ".";
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets or clears a breakpoint. Execution stops before the instruction at
+     * the address is executed (except for the first instruction of a run).
+     * @param address The memory address (0-15).
+     * @param enabled true to set the breakpoint, false to clear it.
+     */
+    public void setBreakpoint(int address, boolean enabled) {
+        breakpointMask = setBit(breakpointMask, address, enabled);
+        updateDebugActive();
+    }
+
+    public boolean hasBreakpoint(int address) {
+        return (breakpointMask >>> address & 1) != 0;
+    }
+
+    /**
+     * Sets or clears watchpoints on a memory address. A read watchpoint fires
+     * after LDA or ADD read the address through MAR, a write watchpoint after STA.
+     * @param address The memory address (0-15).
+     * @param onRead Whether to stop on reads.
+     * @param onWrite Whether to stop on writes.
+     */
+    public void setWatchpoint(int address, boolean onRead, boolean onWrite) {
+        readWatchMask = setBit(readWatchMask, address, onRead);
+        writeWatchMask = setBit(writeWatchMask, address, onWrite);
+        updateDebugActive();
+    }
+
+    public boolean hasReadWatchpoint(int address) {
+        return (readWatchMask >>> address & 1) != 0;
+    }
+
+    public boolean hasWriteWatchpoint(int address) {
+        return (writeWatchMask >>> address & 1) != 0;
+    }
+
+    /**
+     * Adds a condition that is tested after every instruction, e.g.
+     * {@code core -> core.getRegisterValue(Register.AC) == 0 && core.getFlagValue(Flag.C)}.
+     * @param name A short description shown as the stop reason.
+     * @param condition The predicate; execution stops when it returns true.
+     */
+    public void addStopCondition(String name, Predicate<CpuCore> condition) {
+        conditions.add(condition);
+        conditionNames.add(name);
+        updateDebugActive();
+    }
+
+    /**
+     * Removes all breakpoints, watchpoints and stop conditions.
+     */
+    public void clearDebugStops() {
+        breakpointMask = 0;
+        readWatchMask = 0;
+        writeWatchMask = 0;
+        conditions.clear();
+        conditionNames.clear();
+        updateDebugActive();
+    }
+
+    /**
+     * @return Why the last step or run stopped at a breakpoint, watchpoint or
+     *         condition, or null if it did not.
+     */
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    private void updateDebugActive() {
+        debugActive = breakpointMask != 0 || readWatchMask != 0 || writeWatchMask != 0 || !conditions.isEmpty();
+    }
+
+    private static int setBit(int mask, int address, boolean enabled) {
+        if (address < 0 || address >= MEMORY_SIZE) {
+            return mask;
+        }
+        return enabled ? mask | (1 << address) : mask & ~(1 << address);
     }
 
     /**
@@ -111,26 +467,40 @@ public class CpuCore {
     }
 
     /**
-     * Resets the entire CPU state to its initial values.
+     * Resets the entire CPU state to its initial values. Memory is cleared
+     * unless it is shared with other cores.
      */
     public void reset() {
         pc = 0; ac = 0; ir = 0; mar = 0;
         isHalted = false;
+        cycleCount = 0;
         lastOutput = " ";
-        flags.put(Flag.Z, true);
-        flags.put(Flag.C, false);
+        zFlag = true;
+        cFlag = false;
         lastActionDescription = "CPU Reset. Ready for execution.";
-        Arrays.fill(memory, 0);
+        if (sharedMemory) {
+            long hash = EMPTY_MEMORY_HASH;
+            for (int address = 0; address < MEMORY_SIZE; address++) {
+                hash ^= ZOBRIST[address << 8] ^ ZOBRIST[(address << 8) | (memory[address] & 0xFF)];
+            }
+            memoryHash = hash;
+        } else {
+            Arrays.fill(memory, 0);
+            memoryHash = EMPTY_MEMORY_HASH;
+        }
+        dirtyMask = 0xFFFF;
     }
 
     public void loadProgram(int[] program, int startAddress) {
         int length = Math.min(program.length, memory.length - startAddress);
-        System.arraycopy(program, 0, memory, startAddress, length);
+        for (int i = 0; i < length; i++) {
+            writeMemory(startAddress + i, program[i]);
+        }
     }
 
     public void setDataInMemory(int address, int value) {
         if (address >= 0 && address < memory.length) {
-            memory[address] = value & 0xFF;
+            writeMemory(address, value & 0xFF);
         }
     }
 
@@ -145,7 +515,11 @@ public class CpuCore {
     }
 
     public boolean getFlagValue(Flag flag) {
-        return flags.getOrDefault(flag, false);
+        switch (flag) {
+            case Z: return zFlag;
+            case C: return cFlag;
+            default: return false;
+        }
     }
 
     public int[] getMemoryState() {
@@ -156,10 +530,62 @@ public class CpuCore {
         return isHalted;
     }
 
+    /**
+     * Attaches a profiler that records every executed instruction, or detaches
+     * it when null. The profiler is kept across resets.
+     * @param profiler The profiler to attach, or null.
+     */
+    public void setProfiler(CpuProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public CpuProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Places a cache model in front of memory, or removes it when null. The
+     * cache only collects timing statistics; program results are unchanged.
+     * @param cache The cache to attach, or null.
+     */
+    public void setCache(CacheModel cache) {
+        this.cache = cache;
+    }
+
+    public CacheModel getCache() {
+        return cache;
+    }
+
+    /**
+     * Replaces the I/O bus, for example to share an output port between cores.
+     * @param ioBus The bus; must not be null.
+     */
+    public void setIoBus(IoBus ioBus) {
+        this.ioBus = ioBus;
+    }
+
+    /**
+     * @return The I/O bus holding the mapped devices and the OUT port.
+     */
+    public IoBus getIoBus() {
+        return ioBus;
+    }
+
+    /**
+     * @return The number of instructions executed since the last reset.
+     */
+    public long getCycleCount() {
+        return cycleCount;
+    }
+
     public String getLastActionDescription() {
         return this.lastActionDescription;
     }
 
+    /**
+     * Returns the most recent OUT value once, then a blank. Only the latest
+     * value is kept; read {@link IoBus#getOutputPort()} to see every output.
+     */
     public String getLastOutput() {
         String temp = lastOutput;
         lastOutput = " ";
@@ -0,0 +1,128 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * Collects execution statistics for a {@link CpuCore}: how often each address
+ * was executed, how often each opcode ran, and how often each memory cell was
+ * read or written as data.
+ *
+ * All counters are flat {@code long[]} arrays indexed by address or opcode, so
+ * recording an instruction is a few array increments. Counts accumulate across
+ * resets, which lets a single profiler cover a whole batch of programs.
+ */
+public class CpuProfiler {
+
+    private final long[] executions = new long[CpuCore.MEMORY_SIZE];
+    private final long[] opcodes = new long[16];
+    private final long[] reads = new long[CpuCore.MEMORY_SIZE];
+    private final long[] writes = new long[CpuCore.MEMORY_SIZE];
+    private long instructions;
+
+    /**
+     * Records one executed instruction.
+     * @param address The address the instruction was fetched from.
+     * @param instruction The fetched instruction word.
+     */
+    void record(int address, int instruction) {
+        instructions++;
+        executions[address]++;
+        int opcode = (instruction >> 4) & 0x0F;
+        opcodes[opcode]++;
+        if (opcode == 0b0001 || opcode == 0b0010) {
+            reads[instruction & 0x0F]++;
+        } else if (opcode == 0b0011) {
+            writes[instruction & 0x0F]++;
+        }
+    }
+
+    /**
+     * Clears all counters.
+     */
+    public void reset() {
+        Arrays.fill(executions, 0);
+        Arrays.fill(opcodes, 0);
+        Arrays.fill(reads, 0);
+        Arrays.fill(writes, 0);
+        instructions = 0;
+    }
+
+    public long getInstructionCount() {
+        return instructions;
+    }
+
+    /**
+     * @return Executions per address (a copy).
+     */
+    public long[] getExecutionCounts() {
+        return executions.clone();
+    }
+
+    /**
+     * @return Executions per 4-bit opcode (a copy). Opcodes 5-14 execute as NOP.
+     */
+    public long[] getOpcodeCounts() {
+        return opcodes.clone();
+    }
+
+    /**
+     * @return Data reads per address by LDA and ADD (a copy).
+     */
+    public long[] getReadCounts() {
+        return reads.clone();
+    }
+
+    /**
+     * @return Data writes per address by STA (a copy).
+     */
+    public long[] getWriteCounts() {
+        return writes.clone();
+    }
+
+    public long getExecutionCount(int address) {
+        return executions[address];
+    }
+
+    public long getReadCount(int address) {
+        return reads[address];
+    }
+
+    public long getWriteCount(int address) {
+        return writes[address];
+    }
+
+    /**
+     * @return The total activity of an address: executions plus data reads and writes.
+     */
+    public long getHeat(int address) {
+        return executions[address] + reads[address] + writes[address];
+    }
+
+    /**
+     * Builds a plain-text report of hot spots, the opcode mix and memory heat.
+     * @return The report, one table per section.
+     */
+    public String getReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Instructions executed: %d%n%n", instructions));
+
+        sb.append(String.format("Addr  %12s  %6s   %8s %8s%n", "executions", "share", "reads", "writes"));
+        for (int address = 0; address < CpuCore.MEMORY_SIZE; address++) {
+            sb.append(String.format("0x%X   %12d  %5.1f%%   %8d %8d%n", address, executions[address],
+                    percent(executions[address]), reads[address], writes[address]));
+        }
+
+        sb.append(String.format("%nOpcode  %12s  %6s%n", "count", "share"));
+        for (int opcode = 0; opcode < opcodes.length; opcode++) {
+            if (opcodes[opcode] > 0) {
+                String name = CpuCore.disassemble(opcode << 4).split(" ")[0];
+                sb.append(String.format("%-4s %X  %12d  %5.1f%%%n", name, opcode, opcodes[opcode], percent(opcodes[opcode])));
+            }
+        }
+        return sb.toString();
+    }
+
+    private double percent(long count) {
+        return instructions == 0 ? 0 : 100.0 * count / instructions;
+    }
+}
@@ -0,0 +1,80 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * An immutable copy of the complete architectural state of a {@link CpuCore}:
+ * registers, flags, halt state and memory. Used to compare machine states, e.g.
+ * for loop detection or for checking execution engines against each other.
+ */
+public final class CpuSnapshot {
+
+    private final int pc, ac, ir, mar;
+    private final boolean zFlag, cFlag, halted;
+    private final int[] memory;
+    private final long hash;
+
+    private CpuSnapshot(CpuCore core) {
+        this.pc = core.pc;
+        this.ac = core.ac;
+        this.ir = core.ir;
+        this.mar = core.mar;
+        this.zFlag = core.zFlag;
+        this.cFlag = core.cFlag;
+        this.halted = core.isHalted;
+        this.memory = core.memory.clone();
+        this.hash = core.stateHash();
+    }
+
+    /**
+     * Captures the current state of a core.
+     * @param core The core to copy.
+     * @return A new snapshot.
+     */
+    public static CpuSnapshot of(CpuCore core) {
+        return new CpuSnapshot(core);
+    }
+
+    /**
+     * Compares this snapshot with the live state of a core without allocating.
+     * @param core The core to compare against.
+     * @return true if every register, flag and memory cell is equal.
+     */
+    public boolean matches(CpuCore core) {
+        return hash == core.stateHash()
+                && pc == core.pc && ac == core.ac && ir == core.ir && mar == core.mar
+                && zFlag == core.zFlag && cFlag == core.cFlag && halted == core.isHalted
+                && Arrays.equals(memory, core.memory);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CpuSnapshot)) {
+            return false;
+        }
+        CpuSnapshot other = (CpuSnapshot) obj;
+        return hash == other.hash
+                && pc == other.pc && ac == other.ac && ir == other.ir && mar == other.mar
+                && zFlag == other.zFlag && cFlag == other.cFlag && halted == other.halted
+                && Arrays.equals(memory, other.memory);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("PC=%X AC=%X IR=%02X MAR=%X Z=%d C=%d%s [", pc, ac, ir, mar,
+                zFlag ? 1 : 0, cFlag ? 1 : 0, halted ? " HALTED" : ""));
+        for (int i = 0; i < memory.length; i++) {
+            sb.append(i == 0 ? "" : " ").append(String.format("%02X", memory[i]));
+        }
+        return sb.append(']').toString();
+    }
+}
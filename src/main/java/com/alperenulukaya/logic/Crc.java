@@ -0,0 +1,287 @@
+package com.alperenulukaya.logic;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.SplittableRandom;
+
+/**
+ * A CRC generator of any width from 1 to 64 bits, described by the usual
+ * parameters (polynomial, initial value, input and output reflection and
+ * final XOR), with two implementations that must always agree:
+ * <ul>
+ * <li>a bit-serial reference, {@link #clockBit}, which is the shift register
+ * with XOR feedback taps a hardware CRC is built from, clocked once per data
+ * bit; it is what the shift register module animates</li>
+ * <li>a table-driven fast path, {@link #update}, which processes eight bytes
+ * per step with eight 256-entry tables (slice-by-8) and a byte at a time for
+ * the tail</li>
+ * </ul>
+ * The register is passed in and out as a long, so a CRC can be computed
+ * incrementally and the two paths can be mixed at byte boundaries. Reflected
+ * CRCs keep the register in the low bits and consume each byte LSB first;
+ * the others keep it in the top bits of the long and consume MSB first, so
+ * both shift by whole bytes without masking.
+ *
+ * Run {@link #main} to cross-check both paths on every predefined CRC and to
+ * measure their throughput.
+ */
+public class Crc {
+
+    public static final Crc CRC4_G704 = new Crc("CRC-4/G-704", 4, 0x3, 0x0, true, true, 0x0, 0x7);
+    public static final Crc CRC8_SMBUS = new Crc("CRC-8/SMBUS", 8, 0x07, 0x00, false, false, 0x00, 0xF4);
+    public static final Crc CRC16_ARC = new Crc("CRC-16/ARC", 16, 0x8005, 0x0000, true, true, 0x0000, 0xBB3D);
+    public static final Crc CRC16_IBM_3740 = new Crc("CRC-16/IBM-3740", 16, 0x1021, 0xFFFF, false, false, 0x0000, 0x29B1);
+    public static final Crc CRC32 = new Crc("CRC-32", 32, 0x04C11DB7L, 0xFFFFFFFFL, true, true, 0xFFFFFFFFL, 0xCBF43926L);
+    public static final Crc CRC32C = new Crc("CRC-32C", 32, 0x1EDC6F41L, 0xFFFFFFFFL, true, true, 0xFFFFFFFFL, 0xE3069283L);
+    public static final Crc CRC32_BZIP2 = new Crc("CRC-32/BZIP2", 32, 0x04C11DB7L, 0xFFFFFFFFL, false, false, 0xFFFFFFFFL, 0xFC891918L);
+    public static final Crc CRC64_ECMA_182 = new Crc("CRC-64/ECMA-182", 64, 0x42F0E1EBA9EA3693L, 0L, false, false, 0L, 0x6C40DF5F0B497347L);
+    public static final Crc CRC64_XZ = new Crc("CRC-64/XZ", 64, 0x42F0E1EBA9EA3693L, -1L, true, true, -1L, 0x995DC9BBDF1939FAL);
+
+    private static final Crc[] PREDEFINED = { CRC4_G704, CRC8_SMBUS, CRC16_ARC, CRC16_IBM_3740, CRC32, CRC32C, CRC32_BZIP2,
+        CRC64_ECMA_182, CRC64_XZ };
+
+    private static final VarHandle LITTLE_ENDIAN = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final String name;
+    private final int width;
+    private final long polynomial;
+    private final long init;
+    private final boolean reflectIn;
+    private final boolean reflectOut;
+    private final long xorOut;
+    private final long check;
+    private final long mask;
+    // The polynomial as the register holds it: reflected, or shifted to the top.
+    private final long taps;
+    // tables[k][b]: the register contribution of byte b followed by k zero bytes.
+    private final long[][] tables = new long[8][256];
+
+    /**
+     * @param name A display name.
+     * @param width The register width, 1 to 64 bits.
+     * @param polynomial The generator polynomial without its x^width term, in normal (MSB first) form.
+     * @param init The register value before the first bit, in normal form.
+     * @param reflectIn Whether each input byte is consumed LSB first.
+     * @param reflectOut Whether the register is reflected before the final XOR.
+     * @param xorOut The value XORed into the result.
+     * @param check The CRC of the ASCII string "123456789".
+     */
+    public Crc(String name, int width, long polynomial, long init, boolean reflectIn, boolean reflectOut, long xorOut,
+            long check) {
+        if (width < 1 || width > 64) {
+            throw new IllegalArgumentException("CRC width must be 1 to 64: " + width);
+        }
+        this.name = name;
+        this.width = width;
+        this.mask = BitLanes.mask(width);
+        this.polynomial = polynomial & mask;
+        this.init = init & mask;
+        this.reflectIn = reflectIn;
+        this.reflectOut = reflectOut;
+        this.xorOut = xorOut & mask;
+        this.check = check & mask;
+        this.taps = reflectIn ? reflect(this.polynomial) : this.polynomial << (64 - width);
+        buildTables();
+    }
+
+    private void buildTables() {
+        for (int b = 0; b < 256; b++) {
+            long register = reflectIn ? b : (long) b << 56;
+            for (int bit = 0; bit < 8; bit++) {
+                register = clockBit(register, false);
+            }
+            tables[0][b] = register;
+        }
+        for (int k = 1; k < 8; k++) {
+            for (int b = 0; b < 256; b++) {
+                long previous = tables[k - 1][b];
+                tables[k][b] = reflectIn ? tables[0][(int) previous & 0xFF] ^ previous >>> 8
+                        : tables[0][(int) (previous >>> 56)] ^ previous << 8;
+            }
+        }
+    }
+
+    /**
+     * @return The register before any data.
+     */
+    public long initial() {
+        return reflectIn ? reflect(init) : init << (64 - width);
+    }
+
+    /**
+     * Clocks one data bit through the feedback shift register: the bit
+     * leaving the register is XORed with the data bit and, if set, fed back
+     * into the tap positions.
+     * @return The new register.
+     */
+    public long clockBit(long register, boolean bit) {
+        if (reflectIn) {
+            long feedback = (register ^ (bit ? 1 : 0)) & 1;
+            return register >>> 1 ^ (feedback != 0 ? taps : 0);
+        }
+        long feedback = register >>> 63 ^ (bit ? 1 : 0);
+        return register << 1 ^ (feedback != 0 ? taps : 0);
+    }
+
+    /**
+     * The bit-serial reference: clocks every bit of the data through
+     * {@link #clockBit}, in the order the CRC consumes them.
+     * @return The new register.
+     */
+    public long updateBitSerial(long register, byte[] data, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            int b = data[i];
+            for (int bit = 0; bit < 8; bit++) {
+                register = clockBit(register, (b >> (reflectIn ? bit : 7 - bit) & 1) != 0);
+            }
+        }
+        return register;
+    }
+
+    /**
+     * The table-driven fast path: slice-by-8 over whole 8-byte blocks, then a
+     * byte at a time.
+     * @return The new register.
+     */
+    public long update(long register, byte[] data, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        long[] t0 = tables[0], t1 = tables[1], t2 = tables[2], t3 = tables[3];
+        long[] t4 = tables[4], t5 = tables[5], t6 = tables[6], t7 = tables[7];
+        if (reflectIn) {
+            for (; i + 8 <= end; i += 8) {
+                long x = register ^ (long) LITTLE_ENDIAN.get(data, i);
+                register = t7[(int) x & 0xFF] ^ t6[(int) (x >>> 8) & 0xFF] ^ t5[(int) (x >>> 16) & 0xFF]
+                        ^ t4[(int) (x >>> 24) & 0xFF] ^ t3[(int) (x >>> 32) & 0xFF] ^ t2[(int) (x >>> 40) & 0xFF]
+                        ^ t1[(int) (x >>> 48) & 0xFF] ^ t0[(int) (x >>> 56)];
+            }
+            for (; i < end; i++) {
+                register = t0[((int) register ^ data[i]) & 0xFF] ^ register >>> 8;
+            }
+        } else {
+            for (; i + 8 <= end; i += 8) {
+                long x = register ^ (long) BIG_ENDIAN.get(data, i);
+                register = t7[(int) (x >>> 56)] ^ t6[(int) (x >>> 48) & 0xFF] ^ t5[(int) (x >>> 40) & 0xFF]
+                        ^ t4[(int) (x >>> 32) & 0xFF] ^ t3[(int) (x >>> 24) & 0xFF] ^ t2[(int) (x >>> 16) & 0xFF]
+                        ^ t1[(int) (x >>> 8) & 0xFF] ^ t0[(int) x & 0xFF];
+            }
+            for (; i < end; i++) {
+                register = t0[((int) (register >>> 56) ^ data[i]) & 0xFF] ^ register << 8;
+            }
+        }
+        return register;
+    }
+
+    /**
+     * @return The CRC value of a register: reflected as configured and XORed with xorOut.
+     */
+    public long finish(long register) {
+        long normal = getRegisterValue(register);
+        return (reflectOut ? reflect(normal) : normal) ^ xorOut;
+    }
+
+    /**
+     * @return The register's contents in normal form, bit i holding the coefficient of x^i.
+     */
+    public long getRegisterValue(long register) {
+        return reflectIn ? reflect(register) : register >>> (64 - width);
+    }
+
+    public long compute(byte[] data) {
+        return finish(update(initial(), data, 0, data.length));
+    }
+
+    public long computeBitSerial(byte[] data) {
+        return finish(updateBitSerial(initial(), data, 0, data.length));
+    }
+
+    /**
+     * Reverses the low width bits.
+     */
+    private long reflect(long value) {
+        return Long.reverse(value) >>> (64 - width);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public long getPolynomial() {
+        return polynomial;
+    }
+
+    public boolean isReflectIn() {
+        return reflectIn;
+    }
+
+    /**
+     * @return The expected CRC of "123456789".
+     */
+    public long getCheck() {
+        return check;
+    }
+
+    public static Crc[] getPredefined() {
+        return PREDEFINED.clone();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Checks every predefined CRC against its check value in both modes,
+     * cross-checks the two modes on random data of every length up to 256
+     * bytes and at random split points, and reports the throughput of each.
+     * Exits with status 1 on any mismatch.
+     */
+    public static void main(String[] args) {
+        byte[] checkInput = "123456789".getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+        SplittableRandom random = new SplittableRandom(args.length > 0 ? Long.parseLong(args[0]) : 1);
+        byte[] buffer = new byte[1 << 20];
+        random.nextBytes(buffer);
+        boolean ok = true;
+        for (Crc crc : PREDEFINED) {
+            long fast = crc.compute(checkInput);
+            long serial = crc.computeBitSerial(checkInput);
+            int mismatches = fast == crc.check && serial == crc.check ? 0 : 1;
+            for (int length = 0; length <= 256; length++) {
+                int offset = random.nextInt(64);
+                int split = random.nextInt(length + 1);
+                long expected = crc.finish(crc.updateBitSerial(crc.initial(), buffer, offset, length));
+                long mixed = crc.update(crc.updateBitSerial(crc.initial(), buffer, offset, split), buffer,
+                        offset + split, length - split);
+                if (crc.finish(crc.update(crc.initial(), buffer, offset, length)) != expected
+                        || crc.finish(mixed) != expected) {
+                    mismatches++;
+                }
+            }
+            long start = System.nanoTime();
+            long register = crc.updateBitSerial(crc.initial(), buffer, 0, buffer.length);
+            double serialSeconds = (System.nanoTime() - start) / 1e9;
+            start = System.nanoTime();
+            long fastRegister = 0;
+            for (int pass = 0; pass < 16; pass++) {
+                fastRegister = crc.update(crc.initial(), buffer, 0, buffer.length);
+            }
+            double fastSeconds = (System.nanoTime() - start) / 1e9 / 16;
+            if (fastRegister != register) {
+                mismatches++;
+            }
+            String value = String.format("%0" + ((crc.width + 3) / 4) + "X", fast);
+            System.out.printf("%-16s check %-16s %-4s  bit-serial %7.1f MB/s  slice-by-8 %8.1f MB/s%n", crc.name, value,
+                    mismatches == 0 ? "ok" : "FAIL", buffer.length / serialSeconds / 1e6, buffer.length / fastSeconds / 1e6);
+            ok &= mismatches == 0;
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
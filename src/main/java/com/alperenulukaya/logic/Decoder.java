@@ -0,0 +1,77 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * An N-to-2^N line decoder with an Enable input, the width-parameterized
+ * form of {@link Decoder3to8}. The address is a plain int and the outputs are
+ * a packed bit vector (output i is bit i % 64 of word i / 64), so wide
+ * address decoding costs one cleared vector and one set bit rather than 2^N
+ * booleans.
+ */
+public class Decoder {
+
+    /** The widest decoder supported; its outputs take 2^20 bits, or 128 KiB. */
+    public static final int MAX_INPUT_BITS = 20;
+
+    private final int inputBits;
+
+    /**
+     * @param inputBits The number of address inputs, 1 to {@link #MAX_INPUT_BITS}.
+     */
+    public Decoder(int inputBits) {
+        if (inputBits < 1 || inputBits > MAX_INPUT_BITS) {
+            throw new IllegalArgumentException("Decoder width must be 1 to " + MAX_INPUT_BITS + ": " + inputBits);
+        }
+        this.inputBits = inputBits;
+    }
+
+    /**
+     * Calculates which output line should be active. Address bits above the
+     * decoder's width are ignored, as they have no input to drive.
+     * @param enable The enable input. If false, all outputs are disabled.
+     * @param address The address inputs, bit 0 being the least significant.
+     * @return The index of the active output, or -1 if disabled.
+     */
+    public int getActiveOutput(boolean enable, int address) {
+        return enable ? address & (getOutputCount() - 1) : -1;
+    }
+
+    /**
+     * Decodes to a single word, for decoders of up to 6 inputs.
+     * @return The outputs with only the active line set, or 0 if disabled.
+     */
+    public long decode(boolean enable, int address) {
+        if (inputBits > 6) {
+            throw new IllegalStateException("Decoders wider than 6 inputs need decode(enable, address, out)");
+        }
+        return enable ? 1L << getActiveOutput(true, address) : 0;
+    }
+
+    /**
+     * Decodes into a packed output vector.
+     * @param out Receives the outputs, at least {@link #getOutputWords()} long.
+     */
+    public void decode(boolean enable, int address, long[] out) {
+        Arrays.fill(out, 0, getOutputWords(), 0);
+        if (enable) {
+            int line = getActiveOutput(true, address);
+            out[line >>> 6] = 1L << line;
+        }
+    }
+
+    public int getInputBits() {
+        return inputBits;
+    }
+
+    public int getOutputCount() {
+        return 1 << inputBits;
+    }
+
+    /**
+     * @return The length of the packed output vector.
+     */
+    public int getOutputWords() {
+        return (getOutputCount() + 63) >>> 6;
+    }
+}
@@ -0,0 +1,90 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * A word-level 1-to-N demultiplexer, the counterpart of {@link Mux}: the input
+ * lane is routed to the selected output and every other output is zero.
+ * Outputs are written packed as laid out by {@link BitLanes}.
+ */
+public class Demux {
+
+    private final int outputs;
+    private final int width;
+
+    /**
+     * @param outputs The number of outputs, at least 1.
+     * @param width The width of the input and of each output in bits, at least 1.
+     */
+    public Demux(int outputs, int width) {
+        if (outputs < 1 || width < 1) {
+            throw new IllegalArgumentException("A demux needs at least one output of at least one bit");
+        }
+        this.outputs = outputs;
+        this.width = width;
+    }
+
+    /**
+     * Routes a lane of up to 64 bits.
+     * @param value The input lane.
+     * @param select The output to drive; out of range drives none.
+     * @param out Receives the packed outputs, at least {@link #getDataWords()} long.
+     */
+    public void route(long value, int select, long[] out) {
+        if (width > 64) {
+            throw new IllegalStateException("Lanes wider than 64 bits need route(long[], select, out)");
+        }
+        Arrays.fill(out, 0, getDataWords(), 0);
+        if (select >= 0 && select < outputs) {
+            BitLanes.setLane(out, select, width, value);
+        }
+    }
+
+    /**
+     * Routes a lane of any width.
+     * @param value The input lane in its first {@link BitLanes#laneWords(int)} words.
+     * @param select The output to drive; out of range drives none.
+     * @param out Receives the packed outputs, at least {@link #getDataWords()} long.
+     */
+    public void route(long[] value, int select, long[] out) {
+        if (width <= 64) {
+            route(value[0], select, out);
+            return;
+        }
+        Arrays.fill(out, 0, getDataWords(), 0);
+        if (select >= 0 && select < outputs) {
+            int laneWords = BitLanes.laneWords(width);
+            System.arraycopy(value, 0, out, select * laneWords, laneWords);
+        }
+    }
+
+    /**
+     * A 1-bit demux of up to 64 outputs packed into one word.
+     * @return The outputs with only bit select set to the input.
+     */
+    public static long routeBit(boolean value, int select) {
+        return value ? 1L << select : 0;
+    }
+
+    public int getOutputCount() {
+        return outputs;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The number of select lines, ceil(log2(outputs)).
+     */
+    public int getSelectBits() {
+        return 32 - Integer.numberOfLeadingZeros(outputs - 1);
+    }
+
+    /**
+     * @return The length of the packed output array.
+     */
+    public int getDataWords() {
+        return BitLanes.wordsFor(outputs, width);
+    }
+}
@@ -0,0 +1,150 @@
+package com.alperenulukaya.logic;
+
+/**
+ * An N-bit unsigned array divider built as a gate {@link Netlist}: one row
+ * of full adders per quotient bit, from the most significant down.
+ * <ul>
+ * <li>RESTORING: each row subtracts the divisor from the partial remainder;
+ * the carry out is the quotient bit, and a row of multiplexers keeps the
+ * difference or restores the old remainder</li>
+ * <li>NON_RESTORING: each row adds or subtracts the divisor depending on the
+ * sign of the previous remainder, so no restoring multiplexers are needed;
+ * one final row adds the divisor back if the remainder ends negative</li>
+ * </ul>
+ * The inputs are the dividend in bits 0 to N-1 and the divisor in bits N to
+ * 2N-1; the outputs are the quotient in bits 0 to N-1 and the remainder in
+ * bits N to 2N-1. Dividing by zero gives what the circuit gives: a quotient
+ * of all ones and the dividend as the remainder.
+ */
+public class Divider {
+
+    public enum Algorithm {
+        RESTORING, NON_RESTORING
+    }
+
+    private final Algorithm algorithm;
+    private final int width;
+    private final Netlist netlist = new Netlist();
+
+    /**
+     * @param width The operand width, 1 to 32 bits.
+     */
+    public Divider(Algorithm algorithm, int width) {
+        if (width < 1 || width > 32) {
+            throw new IllegalArgumentException("Divider width must be 1 to 32: " + width);
+        }
+        this.algorithm = algorithm;
+        this.width = width;
+        int[] dividend = new int[width];
+        int[] divisor = new int[width];
+        for (int i = 0; i < width; i++) {
+            dividend[i] = netlist.input();
+        }
+        for (int i = 0; i < width; i++) {
+            divisor[i] = netlist.input();
+        }
+        int[] outputs = algorithm == Algorithm.RESTORING ? restoring(dividend, divisor)
+                : nonRestoring(dividend, divisor);
+        netlist.setOutputs(outputs);
+    }
+
+    /**
+     * The partial remainder stays below the divisor, so it fits in N bits;
+     * shifted left with the next dividend bit it takes N + 1.
+     */
+    private int[] restoring(int[] dividend, int[] divisor) {
+        int[] quotient = new int[width];
+        int[] remainder = new int[width];
+        for (int i = width - 1; i >= 0; i--) {
+            int[] shifted = new int[width + 1];
+            shifted[0] = dividend[i];
+            System.arraycopy(remainder, 0, shifted, 1, width);
+            // shifted - divisor as shifted + NOT divisor + 1; the divisor's bit N is 0, so its inverse is 1.
+            int[] difference = new int[width + 1];
+            int carry = Netlist.ONE;
+            for (int k = 0; k <= width; k++) {
+                int[] adder = netlist.fullAdder(shifted[k], k < width ? netlist.not(divisor[k]) : Netlist.ONE, carry);
+                difference[k] = adder[0];
+                carry = adder[1];
+            }
+            // No borrow means the divisor fits: the quotient bit is set and the difference is kept.
+            quotient[i] = carry;
+            for (int k = 0; k < width; k++) {
+                remainder[k] = netlist.mux(carry, shifted[k], difference[k]);
+            }
+        }
+        return concat(quotient, remainder);
+    }
+
+    /**
+     * The partial remainder lies in [-divisor, divisor), so shifted left it
+     * needs N + 2 bits in two's complement.
+     */
+    private int[] nonRestoring(int[] dividend, int[] divisor) {
+        int bits = width + 2;
+        int[] quotient = new int[width];
+        int[] remainder = new int[bits]; // All Netlist.ZERO
+        for (int i = width - 1; i >= 0; i--) {
+            // Subtract when the remainder is not negative, add when it is.
+            int subtract = netlist.not(remainder[bits - 1]);
+            int carry = subtract;
+            int[] next = new int[bits];
+            for (int k = 0; k < bits; k++) {
+                int shifted = k == 0 ? dividend[i] : remainder[k - 1];
+                int operand = netlist.xor(k < width ? divisor[k] : Netlist.ZERO, subtract);
+                int[] adder = netlist.fullAdder(shifted, operand, carry);
+                next[k] = adder[0];
+                carry = adder[1];
+            }
+            remainder = next;
+            quotient[i] = netlist.not(remainder[bits - 1]);
+        }
+        // Correction: a negative final remainder gets the divisor added back.
+        int negative = remainder[bits - 1];
+        int[] corrected = new int[width];
+        int carry = Netlist.ZERO;
+        for (int k = 0; k < width; k++) {
+            int[] adder = netlist.fullAdder(remainder[k], netlist.and(divisor[k], negative), carry);
+            corrected[k] = adder[0];
+            carry = adder[1];
+        }
+        return concat(quotient, corrected);
+    }
+
+    private static int[] concat(int[] low, int[] high) {
+        int[] nets = new int[low.length + high.length];
+        System.arraycopy(low, 0, nets, 0, low.length);
+        System.arraycopy(high, 0, nets, low.length, high.length);
+        return nets;
+    }
+
+    /**
+     * Divides by evaluating the netlist, so it is slow; it is meant for
+     * checking single values.
+     * @return The quotient in the low N bits and the remainder in the next N.
+     */
+    public long divide(long dividend, long divisor) {
+        long mask = BitLanes.mask(width);
+        return netlist.evaluate((dividend & mask) | (divisor & mask) << width);
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public Netlist getNetlist() {
+        return netlist;
+    }
+
+    public int getGateCount() {
+        return netlist.getGateCount();
+    }
+
+    public int getDepth() {
+        return netlist.getDepth();
+    }
+}
@@ -0,0 +1,26 @@
+package com.alperenulukaya.logic;
+
+/**
+ * A strategy for running guest programs on a {@link CpuCore}.
+ * Every engine must leave the core in exactly the state the reference
+ * {@link CpuCore#step()} loop would after the same number of instructions.
+ */
+public interface ExecutionEngine {
+
+    /**
+     * @return A short display name, used in benchmark and fuzzer reports.
+     */
+    String getName();
+
+    /**
+     * @return The core this engine executes on.
+     */
+    CpuCore getCore();
+
+    /**
+     * Executes up to maxSteps instructions.
+     * @param maxSteps The instruction budget.
+     * @return The number of instructions executed (fewer than maxSteps if the CPU halts).
+     */
+    long run(long maxSteps);
+}
@@ -0,0 +1,45 @@
+package com.alperenulukaya.logic;
+
+/**
+ * A memory-mapped input device fed by the host through a lock-free ring buffer.
+ *
+ * Offset 0 is the data register: each read takes the next value, or 0 if none
+ * is waiting. Offset 1 is the status register: the number of waiting values,
+ * capped at 15. Writes are ignored.
+ */
+public class InputPort implements IoDevice {
+
+    public static final int SIZE = 2;
+
+    private final IntRingBuffer buffer;
+
+    public InputPort(int capacity) {
+        this.buffer = new IntRingBuffer(capacity);
+    }
+
+    /**
+     * Host side: queues a value for the CPU.
+     * @return false if the buffer is full.
+     */
+    public boolean offer(int value) {
+        return buffer.offer(value & 0x0F);
+    }
+
+    public int available() {
+        return buffer.size();
+    }
+
+    @Override
+    public int read(int offset, long cycle) {
+        if (offset == 1) {
+            return Math.min(buffer.size(), 15);
+        }
+        int value = buffer.poll();
+        return value < 0 ? 0 : value;
+    }
+
+    @Override
+    public void write(int offset, int value, long cycle) {
+        // Read-only device
+    }
+}
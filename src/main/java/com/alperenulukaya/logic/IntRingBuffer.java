@@ -0,0 +1,117 @@
+package com.alperenulukaya.logic;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.IntConsumer;
+
+/**
+ * A lock-free single-producer, single-consumer queue of ints.
+ *
+ * The producer and consumer each own one position counter and publish it with
+ * release semantics; each side caches the other's counter and only re-reads it
+ * when the buffer looks full or empty. Values are stored in a primitive array,
+ * so nothing is allocated per element.
+ */
+final class IntRingBuffer {
+
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(IntRingBuffer.class, "head", long.class);
+            TAIL = lookup.findVarHandle(IntRingBuffer.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int[] buffer;
+    private final int mask;
+
+    private volatile long head;     // next position to write, owned by the producer
+    private volatile long tail;     // next position to read, owned by the consumer
+    private long cachedTail;        // producer's view of tail
+    private long cachedHead;        // consumer's view of head
+
+    /**
+     * @param capacity The number of values the buffer holds, rounded up to a power of two.
+     */
+    IntRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        size = size < capacity ? size << 1 : size;
+        this.buffer = new int[size];
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Producer side: appends a value.
+     * @return false if the buffer was full.
+     */
+    boolean offer(int value) {
+        long h = head;
+        if (h - cachedTail >= buffer.length) {
+            cachedTail = tail;
+            if (h - cachedTail >= buffer.length) {
+                return false;
+            }
+        }
+        buffer[(int) h & mask] = value;
+        HEAD.setRelease(this, h + 1);
+        return true;
+    }
+
+    /**
+     * Consumer side: removes the oldest value.
+     * @return The value, or -1 if the buffer was empty.
+     */
+    int poll() {
+        long t = tail;
+        if (t >= cachedHead) {
+            cachedHead = head;
+            if (t >= cachedHead) {
+                return -1;
+            }
+        }
+        int value = buffer[(int) t & mask];
+        TAIL.setRelease(this, t + 1);
+        return value;
+    }
+
+    /**
+     * Consumer side: removes all available values in order.
+     * @return The number of values passed to the consumer.
+     */
+    int drainTo(IntConsumer consumer) {
+        long t = tail;
+        long h = head;
+        cachedHead = h;
+        for (long i = t; i < h; i++) {
+            consumer.accept(buffer[(int) i & mask]);
+        }
+        TAIL.setRelease(this, h);
+        return (int) (h - t);
+    }
+
+    int size() {
+        return (int) (head - tail);
+    }
+
+    /**
+     * Discards all values. Only safe while neither side is running.
+     */
+    void clear() {
+        HEAD.setRelease(this, 0L);
+        TAIL.setRelease(this, 0L);
+        cachedHead = 0;
+        cachedTail = 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.alperenulukaya.logic;
+
+/**
+ * Runs the core with its description-free fast interpreter, {@link CpuCore#run(long)}.
+ */
+public class InterpreterEngine implements ExecutionEngine {
+
+    private final CpuCore core;
+
+    public InterpreterEngine(CpuCore core) {
+        this.core = core;
+    }
+
+    @Override
+    public String getName() {
+        return "Interpreter";
+    }
+
+    @Override
+    public CpuCore getCore() {
+        return core;
+    }
+
+    @Override
+    public long run(long maxSteps) {
+        return core.run(maxSteps);
+    }
+}
@@ -0,0 +1,122 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * Routes data accesses of a {@link CpuCore} to memory-mapped devices and
+ * receives the output of OUT.
+ *
+ * Any of the 16 addresses can be mapped to a device; LDA and ADD of a mapped
+ * address read the device and STA writes it instead of memory. Instruction
+ * fetches always read memory. With nothing mapped the cores take their usual
+ * fast paths, so an idle bus costs one mask check per data access.
+ *
+ * OUT writes the {@link OutputPort} and, if one is attached, the output
+ * device, both while the instruction executes. A display that shows OUT
+ * values therefore changes at the instruction, not when a viewer drains the
+ * port, so reading it back through a mapping is deterministic.
+ */
+public class IoBus {
+
+    public static final int DEFAULT_OUTPUT_CAPACITY = 1 << 10;
+
+    private final IoDevice[] devices = new IoDevice[CpuCore.MEMORY_SIZE];
+    private final int[] offsets = new int[CpuCore.MEMORY_SIZE];
+    private final OutputPort outputPort;
+    private IoDevice outputDevice;
+
+    // One bit per mapped address.
+    int mappedMask;
+
+    public IoBus() {
+        this(new OutputPort(DEFAULT_OUTPUT_CAPACITY));
+    }
+
+    /**
+     * @param outputPort The port OUT writes to.
+     */
+    public IoBus(OutputPort outputPort) {
+        this.outputPort = outputPort;
+    }
+
+    /**
+     * Maps a device over consecutive addresses, replacing what was there.
+     * @param baseAddress The first address; the device sees it as offset 0.
+     * @param length The number of addresses the device occupies.
+     * @param device The device.
+     */
+    public void map(int baseAddress, int length, IoDevice device) {
+        if (baseAddress < 0 || length < 1 || baseAddress + length > CpuCore.MEMORY_SIZE) {
+            throw new IllegalArgumentException(String.format("Cannot map %d addresses at 0x%X", length, baseAddress));
+        }
+        for (int i = 0; i < length; i++) {
+            devices[baseAddress + i] = device;
+            offsets[baseAddress + i] = i;
+            mappedMask |= 1 << (baseAddress + i);
+        }
+    }
+
+    /**
+     * Removes every mapping of a device.
+     */
+    public void unmap(IoDevice device) {
+        for (int address = 0; address < devices.length; address++) {
+            if (devices[address] == device) {
+                devices[address] = null;
+                mappedMask &= ~(1 << address);
+            }
+        }
+    }
+
+    public void unmapAll() {
+        Arrays.fill(devices, null);
+        mappedMask = 0;
+    }
+
+    public boolean isMapped(int address) {
+        return (mappedMask >>> address & 1) != 0;
+    }
+
+    /**
+     * @return The device at an address, or null if it is plain memory.
+     */
+    public IoDevice getDevice(int address) {
+        return devices[address];
+    }
+
+    public OutputPort getOutputPort() {
+        return outputPort;
+    }
+
+    /**
+     * Attaches a device that every OUT also writes, at offset 0. It may be
+     * mapped as well, in which case LDA of its address reads the last value
+     * written by OUT or STA.
+     * @param device The device, or null to detach it.
+     */
+    public void setOutputDevice(IoDevice device) {
+        this.outputDevice = device;
+    }
+
+    /**
+     * @return The device OUT writes besides the output port, or null.
+     */
+    public IoDevice getOutputDevice() {
+        return outputDevice;
+    }
+
+    void output(int value, long cycle) {
+        outputPort.offer(value);
+        if (outputDevice != null) {
+            outputDevice.write(0, value, cycle);
+        }
+    }
+
+    int read(int address, long cycle) {
+        return devices[address].read(offsets[address], cycle) & 0x0F;
+    }
+
+    void write(int address, int value, long cycle) {
+        devices[address].write(offsets[address], value, cycle);
+    }
+}
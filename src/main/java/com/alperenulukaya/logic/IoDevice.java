@@ -0,0 +1,25 @@
+package com.alperenulukaya.logic;
+
+/**
+ * A device on the {@link IoBus}. A device occupies one or more consecutive
+ * addresses and is accessed by LDA/ADD (reads) and STA (writes) to them.
+ *
+ * Both methods receive the core's instruction count, so time-based devices can
+ * compute their state lazily instead of being ticked every instruction.
+ */
+public interface IoDevice {
+
+    /**
+     * @param offset The address relative to the device's base address.
+     * @param cycle The number of instructions the core has executed.
+     * @return A 4-bit value.
+     */
+    int read(int offset, long cycle);
+
+    /**
+     * @param offset The address relative to the device's base address.
+     * @param value The 4-bit value stored.
+     * @param cycle The number of instructions the core has executed.
+     */
+    void write(int offset, int value, long cycle);
+}
@@ -0,0 +1,223 @@
+package com.alperenulukaya.logic;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The top execution tier: hot basic blocks are compiled to JVM bytecode in
+ * hidden classes so HotSpot can optimize guest code like any other Java method.
+ *
+ * Blocks start out on a {@link BlockCacheEngine}. Once a start address has been
+ * dispatched {@link #HOT_THRESHOLD} times its block is compiled by
+ * {@link BlockCompiler}. When a store changes a cell that a compiled block was
+ * built from, the compiled code is dropped (deoptimized) and the address goes
+ * back to the block cache, which itself falls back to the interpreter for
+ * persistently self-modifying code. Addresses that deoptimize too often are
+ * never compiled again.
+ *
+ * A generated class that the JVM refuses to load is a compiler bug: the
+ * VerifyError or ClassFormatError propagates. Only a reflective failure to
+ * instantiate a loaded class sends the block to the lower tier, and those are
+ * counted by {@link #getCompileFailures()}, which should stay zero.
+ */
+public class JitEngine implements ExecutionEngine {
+
+    public static final int HOT_THRESHOLD = 64;
+    private static final int MAX_DEOPTIMIZATIONS = 4;
+    private static final int MAX_SHARED_CLASSES = 4096;
+
+    /**
+     * The interface every generated block class implements.
+     */
+    interface CompiledCode {
+        /**
+         * Executes the block on the core.
+         * @return The number of instructions executed.
+         */
+        int run(CpuCore core);
+    }
+
+    // Generated classes are shared between engines: batch runs of the same
+    // program compile each block once per JVM.
+    private static final Map<String, CompiledCode> SHARED_CODE = new ConcurrentHashMap<>();
+
+    private final CpuCore core;
+    private final BlockCacheEngine lowerTier;
+    private final CompiledBlock[] compiled = new CompiledBlock[CpuCore.MEMORY_SIZE];
+    private final int[] heat = new int[CpuCore.MEMORY_SIZE];
+    private final int[] deoptimizations = new int[CpuCore.MEMORY_SIZE];
+
+    private long compilations;
+    private long compileFailures;
+    private long compiledRuns;
+    private long deoptimizationCount;
+
+    public JitEngine(CpuCore core) {
+        this.core = core;
+        this.lowerTier = new BlockCacheEngine(core);
+    }
+
+    @Override
+    public String getName() {
+        return "JIT";
+    }
+
+    @Override
+    public CpuCore getCore() {
+        return core;
+    }
+
+    @Override
+    public long run(long maxSteps) {
+        if (core.debugActive || core.ioBus.mappedMask != 0) {
+            return core.run(maxSteps); // Only the interpreter checks debug stops and devices
+        }
+        long executed = 0;
+        core.updateOutputStall();
+        while (executed < maxSteps && !core.isHalted && !core.outputStalled) {
+            if (core.dirtyMask != 0) {
+                deoptimize(core.dirtyMask);
+            }
+            int start = core.pc;
+            CompiledBlock block = compiled[start];
+            if (block == null && deoptimizations[start] < MAX_DEOPTIMIZATIONS && ++heat[start] >= HOT_THRESHOLD) {
+                block = compile(start);
+            }
+            // Compiled code neither profiles nor models the cache, so the block cache runs instead.
+            if (block != null && block.length <= maxSteps - executed && core.profiler == null && core.cache == null) {
+                executed += block.code.run(core);
+                compiledRuns++;
+            } else {
+                executed += lowerTier.runBlock(maxSteps - executed);
+            }
+        }
+        return executed;
+    }
+
+    /**
+     * @return A one-line summary of tier activity since construction.
+     */
+    public String getStats() {
+        return String.format("compilations=%d, compile failures=%d, compiled runs=%d, deoptimizations=%d; %s",
+                compilations, compileFailures, compiledRuns, deoptimizationCount, lowerTier.getStats());
+    }
+
+    /**
+     * @return The number of blocks compiled by this engine.
+     */
+    public long getCompilations() {
+        return compilations;
+    }
+
+    /**
+     * @return The number of blocks whose generated class could not be
+     *         instantiated and that run on the block cache instead.
+     */
+    public long getCompileFailures() {
+        return compileFailures;
+    }
+
+    /**
+     * Called by generated code for stores that may rewrite a later op of the
+     * running block.
+     * @return true if the stored cell now decodes to a different op, in which
+     *         case the compiled block must exit.
+     */
+    static boolean storeChanged(CpuCore core, int address, int value) {
+        int old = core.memory[address];
+        core.writeMemory(address, value);
+        return BlockCacheEngine.decode(old) != BlockCacheEngine.decode(value);
+    }
+
+    private void deoptimize(int dirty) {
+        core.dirtyMask = 0;
+        lowerTier.noteDirty(dirty);
+        boolean newProgram = core.cycleCount == 0;
+        for (int start = 0; start < compiled.length; start++) {
+            if (newProgram) {
+                heat[start] = 0;
+                deoptimizations[start] = 0;
+            }
+            CompiledBlock block = compiled[start];
+            if (block != null && !block.matches(core.memory, dirty)) {
+                compiled[start] = null;
+                heat[start] = 0;
+                if (!newProgram) {
+                    deoptimizations[start]++;
+                    deoptimizationCount++;
+                }
+            }
+        }
+    }
+
+    private CompiledBlock compile(int start) {
+        int[] ops = BlockCacheEngine.decodeRun(core.memory, start);
+        String key = start + Arrays.toString(ops);
+        CompiledCode code = SHARED_CODE.get(key);
+        if (code == null) {
+            try {
+                code = define(new BlockCompiler().compile(start, ops));
+            } catch (ReflectiveOperationException e) {
+                compileFailures++;
+                deoptimizations[start] = MAX_DEOPTIMIZATIONS; // Never retry a block that failed to load
+                return null;
+            }
+            if (SHARED_CODE.size() < MAX_SHARED_CLASSES) {
+                SHARED_CODE.putIfAbsent(key, code);
+            }
+            compilations++;
+        }
+        CompiledBlock block = new CompiledBlock(start, ops, code);
+        compiled[start] = block;
+        return block;
+    }
+
+    /**
+     * Loads a generated class and instantiates it. Linkage errors such as
+     * VerifyError are not caught.
+     */
+    private static CompiledCode define(byte[] classFile) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+        return lookup.lookupClass().asSubclass(CompiledCode.class).getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * A compiled block together with the ops it was compiled from.
+     */
+    private static final class CompiledBlock {
+        final int start;
+        final int length;
+        final int[] ops;
+        final int coverMask;
+        final CompiledCode code;
+
+        CompiledBlock(int start, int[] ops, CompiledCode code) {
+            this.start = start;
+            this.length = ops.length;
+            this.ops = ops;
+            this.code = code;
+            int cover = 0;
+            for (int i = 0; i < length; i++) {
+                cover |= 1 << ((start + i) & 0x0F);
+            }
+            this.coverMask = cover;
+        }
+
+        /**
+         * Checks whether the changed cells still decode to the ops of this block.
+         */
+        boolean matches(int[] memory, int changed) {
+            int cells = changed & coverMask;
+            while (cells != 0) {
+                int address = Integer.numberOfTrailingZeros(cells);
+                cells &= cells - 1;
+                if (BlockCacheEngine.decode(memory[address]) != ops[(address - start) & 0x0F]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
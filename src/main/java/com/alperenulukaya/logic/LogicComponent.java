@@ -0,0 +1,214 @@
+package com.alperenulukaya.logic;
+
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * The components whose truth tables can be generated, each with its input and
+ * output names (most significant first, as in {@link TruthTable}) and a way
+ * to evaluate it. Combinational components are evaluated through their logic
+ * classes or, for the arithmetic circuits, their gate {@link Netlist}s.
+ * Latches and flip-flops get their characteristic tables: the present state
+ * Q is one more input, and Q(t+1) is the output after one update or clock.
+ */
+public enum LogicComponent {
+
+    FULL_ADDER("1-Bit Full Adder", names("A", "B", "Cin"), names("Cout", "Sum"), () -> {
+        FullAdder adder = new FullAdder();
+        return row -> {
+            adder.update(bit(row, 2), bit(row, 1), bit(row, 0));
+            return (adder.getCarryOut() ? 2 : 0) | (adder.getSum() ? 1 : 0);
+        };
+    }),
+    ADDER_4BIT("4-Bit Adder", names(bus("A", 4), bus("B", 4), names("Cin")),
+            names(names("Cout"), bus("S", 4)), () -> {
+        Adder4Bit adder = new Adder4Bit();
+        return row -> {
+            adder.update(bits(row, 5, 4), bits(row, 1, 4), bit(row, 0));
+            long sum = adder.getCarryOut() ? 16 : 0;
+            boolean[] bits = adder.getSum();
+            for (int i = 0; i < 4; i++) {
+                sum |= bits[i] ? 1L << i : 0;
+            }
+            return sum;
+        };
+    }),
+    COMPARATOR_4BIT("4-Bit Comparator", names(bus("A", 4), bus("B", 4)), names("A>B", "A=B", "A<B"), () -> {
+        Comparator4Bit comparator = new Comparator4Bit();
+        return row -> {
+            comparator.compare(bits(row, 4, 4), bits(row, 0, 4));
+            return (comparator.isAGreaterThanB() ? 4 : 0) | (comparator.isAEqualsB() ? 2 : 0)
+                    | (comparator.isALessThanB() ? 1 : 0);
+        };
+    }),
+    MUX_4TO1("4-to-1 Multiplexer", names(names("S1", "S0"), bus("I", 4)), names("Y"), () -> {
+        Mux4to1 mux = new Mux4to1();
+        return row -> mux.getOutput(bits(row, 0, 4), new boolean[] { bit(row, 5), bit(row, 4) }) ? 1 : 0;
+    }),
+    MUX_8TO1("8-to-1 Multiplexer", names(names("S2", "S1", "S0"), bus("I", 8)), names("Y"), () -> {
+        Mux8to1 mux = new Mux8to1();
+        return row -> mux.getOutput(bits(row, 0, 8), bit(row, 10), bit(row, 9), bit(row, 8)) ? 1 : 0;
+    }),
+    MUX_16TO1("16-to-1 Multiplexer", names(bus("S", 4), bus("I", 16)), names("Y"),
+            () -> row -> Mux.selectBit(row, (int) (row >>> 16)) ? 1 : 0),
+    DECODER_3TO8("3-to-8 Decoder", names("EN", "A2", "A1", "A0"), bus("Y", 8), () -> {
+        Decoder3to8 decoder = new Decoder3to8();
+        return row -> {
+            int output = decoder.getActiveOutput(bit(row, 3), bit(row, 2), bit(row, 1), bit(row, 0));
+            return output < 0 ? 0 : 1L << output;
+        };
+    }),
+    PRIORITY_ENCODER_8TO3("8-to-3 Priority Encoder", names(names("EN"), bus("I", 8)),
+            names("V", "A2", "A1", "A0"), () -> {
+        PriorityEncoder encoder = new PriorityEncoder(8);
+        return row -> {
+            int index = encoder.encode(bit(row, 8), row);
+            return index < 0 ? 0 : 8 | index;
+        };
+    }),
+    SR_LATCH("SR Latch (NOR)", names("S", "R", "Q(t)"), names("Q(t+1)", "Q'(t+1)"), () -> {
+        SRLatch latch = new SRLatch();
+        return row -> {
+            latch.reset();
+            if (bit(row, 0)) {
+                latch.update(true, false);
+            }
+            latch.update(bit(row, 2), bit(row, 1));
+            return (latch.getQ() ? 2 : 0) | (latch.getQNot() ? 1 : 0);
+        };
+    }),
+    D_LATCH("Clocked D Latch", names("EN", "D", "Q(t)"), names("Q(t+1)"), () -> {
+        DLatch latch = new DLatch();
+        return row -> {
+            latch.update(bit(row, 0), true);
+            latch.update(bit(row, 1), bit(row, 2));
+            return latch.getQ() ? 1 : 0;
+        };
+    }),
+    JK_FLIP_FLOP("JK Flip-Flop", names("J", "K", "Q(t)"), names("Q(t+1)"), () -> {
+        JKFlipFlop flipFlop = new JKFlipFlop();
+        return row -> {
+            flipFlop.reset();
+            if (bit(row, 0)) {
+                flipFlop.setInputs(true, false);
+                flipFlop.clock();
+            }
+            flipFlop.setInputs(bit(row, 2), bit(row, 1));
+            flipFlop.clock();
+            return flipFlop.getQ() ? 1 : 0;
+        };
+    }),
+    T_FLIP_FLOP("T Flip-Flop", names("T", "Q(t)"), names("Q(t+1)"), () -> {
+        T_FlipFlop flipFlop = new T_FlipFlop();
+        return row -> {
+            flipFlop.reset();
+            if (bit(row, 0)) {
+                flipFlop.setInput(true);
+                flipFlop.clock();
+            }
+            flipFlop.setInput(bit(row, 1));
+            flipFlop.clock();
+            return flipFlop.getQ() ? 1 : 0;
+        };
+    }),
+    MULTIPLIER_8BIT("8-Bit Dadda Multiplier", names(bus("B", 8), bus("A", 8)), bus("P", 16),
+            new Multiplier(Multiplier.Architecture.DADDA, 8).getNetlist()),
+    DIVIDER_8BIT("8-Bit Restoring Divider", names(bus("B", 8), bus("A", 8)), names(bus("R", 8), bus("Q", 8)),
+            new Divider(Divider.Algorithm.RESTORING, 8).getNetlist()),
+    MULTIPLIER_12BIT("12-Bit Dadda Multiplier", names(bus("B", 12), bus("A", 12)), bus("P", 24),
+            new Multiplier(Multiplier.Architecture.DADDA, 12).getNetlist());
+
+    private final String displayName;
+    private final String[] inputNames;
+    private final String[] outputNames;
+    private final Supplier<LongUnaryOperator> evaluators;
+    private final Netlist netlist;
+
+    LogicComponent(String displayName, String[] inputNames, String[] outputNames,
+            Supplier<LongUnaryOperator> evaluators) {
+        this.displayName = displayName;
+        this.inputNames = inputNames;
+        this.outputNames = outputNames;
+        this.evaluators = evaluators;
+        this.netlist = null;
+    }
+
+    LogicComponent(String displayName, String[] inputNames, String[] outputNames, Netlist netlist) {
+        this.displayName = displayName;
+        this.inputNames = inputNames;
+        this.outputNames = outputNames;
+        this.evaluators = null;
+        this.netlist = netlist;
+    }
+
+    /**
+     * Enumerates the table; {@link TruthTable#of(LogicComponent)} caches the result.
+     */
+    TruthTable buildTruthTable() {
+        if (netlist != null) {
+            return TruthTable.enumerate(displayName, inputNames, outputNames, netlist);
+        }
+        return TruthTable.enumerate(displayName, inputNames, outputNames, evaluators);
+    }
+
+    public TruthTable getTruthTable() {
+        return TruthTable.of(this);
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public int getInputCount() {
+        return inputNames.length;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    private static boolean bit(long row, int i) {
+        return (row >>> i & 1) != 0;
+    }
+
+    /**
+     * @return Bits first to first + count - 1 of a row, least significant first.
+     */
+    private static boolean[] bits(long row, int first, int count) {
+        boolean[] bits = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            bits[i] = bit(row, first + i);
+        }
+        return bits;
+    }
+
+    private static String[] names(String... names) {
+        return names;
+    }
+
+    private static String[] names(String[]... groups) {
+        int length = 0;
+        for (String[] group : groups) {
+            length += group.length;
+        }
+        String[] names = new String[length];
+        int i = 0;
+        for (String[] group : groups) {
+            System.arraycopy(group, 0, names, i, group.length);
+            i += group.length;
+        }
+        return names;
+    }
+
+    /**
+     * @return The names of a bus, most significant first: A3, A2, A1, A0.
+     */
+    private static String[] bus(String prefix, int width) {
+        String[] names = new String[width];
+        for (int i = 0; i < width; i++) {
+            names[i] = prefix + (width - 1 - i);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,167 @@
+package com.alperenulukaya.logic;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Runs a program until it halts, provably loops forever, or exhausts a budget.
+ *
+ * The CPU is deterministic, so if the complete machine state ever repeats the
+ * program is in an infinite loop. Detection uses Brent's algorithm over the
+ * states seen every {@code checkInterval} instructions: the current state is
+ * compared with a saved "tortoise" state (hash first, full comparison only on a
+ * hash match), and the tortoise is moved forward at powers of two. Once a
+ * repetition is seen, the exact period is measured by single-stepping.
+ *
+ * Memory-mapped devices have state of their own that the snapshot does not
+ * cover, and an input port or timer can change what a repeated CPU state does
+ * next. While any device is mapped the program still runs to a halt or the
+ * budget, but a run that does not halt ends as {@link Outcome#UNKNOWN}.
+ *
+ * The detector drains the output port whenever it stalls the engine, so
+ * every OUT value reaches the consumer and long runs never drop output.
+ */
+public class LoopDetector {
+
+    public enum Outcome { HALTED, LOOP, BUDGET_EXHAUSTED, UNKNOWN }
+
+    /**
+     * The result of a detection run.
+     */
+    public static final class Result {
+        private final Outcome outcome;
+        private final long steps;
+        private final long period;
+
+        Result(Outcome outcome, long steps, long period) {
+            this.outcome = outcome;
+            this.steps = steps;
+            this.period = period;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * @return The number of instructions executed before the run stopped.
+         */
+        public long getSteps() {
+            return steps;
+        }
+
+        /**
+         * @return The loop period in instructions, or 0 if no loop was detected.
+         */
+        public long getPeriod() {
+            return period;
+        }
+
+        @Override
+        public String toString() {
+            switch (outcome) {
+                case HALTED: return "Halted after " + steps + " steps.";
+                case LOOP: return "Infinite loop detected after " + steps + " steps (period " + period + ").";
+                case UNKNOWN: return "Gave up after " + steps + " steps; loops are not detected with devices mapped.";
+                default: return "Gave up after " + steps + " steps.";
+            }
+        }
+    }
+
+    private final int checkInterval;
+
+    /**
+     * Creates a detector that compares states every 64 instructions.
+     */
+    public LoopDetector() {
+        this(64);
+    }
+
+    /**
+     * @param checkInterval How many instructions to run between state comparisons.
+     *        Larger values cost less per instruction but detect loops later.
+     */
+    public LoopDetector(int checkInterval) {
+        if (checkInterval < 1) {
+            throw new IllegalArgumentException("checkInterval must be at least 1");
+        }
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Runs the engine's core from its current state, discarding its output.
+     * @param engine The engine to execute with.
+     * @param maxSteps The instruction budget.
+     * @return How the run ended.
+     */
+    public Result run(ExecutionEngine engine, long maxSteps) {
+        return run(engine, maxSteps, value -> { });
+    }
+
+    /**
+     * Runs the engine's core from its current state.
+     * @param engine The engine to execute with.
+     * @param maxSteps The instruction budget.
+     * @param output Receives every value the program outputs, in order.
+     * @return How the run ended.
+     */
+    public Result run(ExecutionEngine engine, long maxSteps, IntConsumer output) {
+        CpuCore core = engine.getCore();
+        if (core.getIoBus().mappedMask != 0) {
+            long executed = runDraining(engine, maxSteps, output);
+            return new Result(core.isHalted ? Outcome.HALTED : Outcome.UNKNOWN, executed, 0);
+        }
+        long executed = 0;
+        CpuSnapshot tortoise = CpuSnapshot.of(core);
+        long power = 1;
+        long lambda = 0;
+
+        while (executed < maxSteps) {
+            if (core.isHalted) {
+                return new Result(Outcome.HALTED, executed, 0);
+            }
+            executed += runDraining(engine, Math.min(checkInterval, maxSteps - executed), output);
+            if (core.isHalted) {
+                return new Result(Outcome.HALTED, executed, 0);
+            }
+            lambda++;
+            if (tortoise.matches(core)) {
+                return measurePeriod(engine, executed, lambda * checkInterval, output);
+            }
+            if (lambda == power) {
+                tortoise = CpuSnapshot.of(core);
+                power <<= 1;
+                lambda = 0;
+            }
+        }
+        return new Result(core.isHalted ? Outcome.HALTED : Outcome.BUDGET_EXHAUSTED, executed, 0);
+    }
+
+    /**
+     * The state repeated after {@code bound} instructions, so the true period
+     * divides it. Step until the current state comes back to find it exactly.
+     */
+    private Result measurePeriod(ExecutionEngine engine, long executed, long bound, IntConsumer output) {
+        CpuSnapshot start = CpuSnapshot.of(engine.getCore());
+        for (long period = 1; period <= bound; period++) {
+            runDraining(engine, 1, output);
+            if (start.matches(engine.getCore())) {
+                return new Result(Outcome.LOOP, executed + period, period);
+            }
+        }
+        return new Result(Outcome.LOOP, executed + bound, bound);
+    }
+
+    /**
+     * Runs exactly {@code steps} instructions unless the CPU halts, draining
+     * the output port each time it stalls the engine.
+     */
+    private static long runDraining(ExecutionEngine engine, long steps, IntConsumer output) {
+        OutputPort port = engine.getCore().getIoBus().getOutputPort();
+        long executed = 0;
+        do {
+            executed += engine.run(steps - executed);
+            port.drainTo(output);
+        } while (executed < steps && !engine.getCore().isHalted);
+        return executed;
+    }
+}
@@ -0,0 +1,295 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * An alternative control unit for {@link CpuCore} driven by a microcode ROM
+ * instead of a Java switch.
+ *
+ * The ROM holds one control word per opcode and micro-step. Each bit of a
+ * control word asserts one {@link Signal}, and one micro-cycle performs the
+ * register transfers of all asserted signals. Steps 0-2 are the same fetch
+ * sequence in every row, so the row can be selected by the instruction
+ * register before the new instruction has even been loaded; from step 3 on the
+ * row of the freshly fetched opcode executes until a word asserts
+ * {@link Signal#END}, which returns the sequencer to step 0.
+ *
+ * Architectural results are identical to {@link CpuCore#step()}; in addition
+ * the unit counts micro-cycles per opcode and can keep a trace of recent
+ * control words for a timing diagram.
+ */
+public class MicrocodedControlUnit implements ExecutionEngine {
+
+    /**
+     * Control signals, in the order their transfers take effect within a micro-cycle.
+     */
+    public enum Signal {
+        PC_TO_MAR("PC>MAR"),
+        IR_TO_MAR("IR>MAR"),
+        MEM_READ("RD"),
+        MEM_WRITE("WR"),
+        LOAD_IR("LD IR"),
+        PC_INC("PC+1"),
+        LOAD_AC("LD AC"),
+        ALU_ADD("ADD"),
+        CLEAR_CARRY("CLR C"),
+        LOAD_OUT("OUT"),
+        HALT("HLT"),
+        END("END");
+
+        private final String label;
+
+        Signal(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return A short name for diagrams.
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        public int mask() {
+            return 1 << ordinal();
+        }
+    }
+
+    public static final int MAX_MICRO_STEPS = 6;
+    public static final int TRACE_LENGTH = 48;
+
+    private static final int[][] ROM = new int[16][MAX_MICRO_STEPS];
+
+    static {
+        int[] fetch = {
+                word(Signal.PC_TO_MAR),
+                word(Signal.MEM_READ, Signal.PC_INC),
+                word(Signal.LOAD_IR),
+        };
+        for (int opcode = 0; opcode < 16; opcode++) {
+            System.arraycopy(fetch, 0, ROM[opcode], 0, fetch.length);
+            ROM[opcode][3] = word(Signal.CLEAR_CARRY, Signal.END); // NOP
+        }
+        program(0b0001, word(Signal.IR_TO_MAR), word(Signal.MEM_READ), word(Signal.LOAD_AC, Signal.CLEAR_CARRY, Signal.END));
+        program(0b0010, word(Signal.IR_TO_MAR), word(Signal.MEM_READ), word(Signal.ALU_ADD, Signal.END));
+        program(0b0011, word(Signal.IR_TO_MAR), word(Signal.MEM_WRITE, Signal.CLEAR_CARRY, Signal.END));
+        program(0b0100, word(Signal.LOAD_OUT, Signal.CLEAR_CARRY, Signal.END));
+        program(0b1111, word(Signal.HALT, Signal.CLEAR_CARRY, Signal.END));
+    }
+
+    private static int word(Signal... signals) {
+        int word = 0;
+        for (Signal signal : signals) {
+            word |= signal.mask();
+        }
+        return word;
+    }
+
+    private static void program(int opcode, int... steps) {
+        System.arraycopy(steps, 0, ROM[opcode], 3, steps.length);
+    }
+
+    private final CpuCore core;
+    private int mdr;
+    private boolean dataAddress;
+
+    private final long[] microCycles = new long[16];
+    private final long[] instructions = new long[16];
+
+    private boolean tracing;
+    private final int[] trace = new int[TRACE_LENGTH];
+    private long traceCount;
+
+    public MicrocodedControlUnit(CpuCore core) {
+        this.core = core;
+    }
+
+    @Override
+    public String getName() {
+        return "Microcoded";
+    }
+
+    @Override
+    public CpuCore getCore() {
+        return core;
+    }
+
+    @Override
+    public long run(long maxSteps) {
+        core.clearStopReason();
+        long executed = 0;
+        long cycles = 0;
+        core.updateOutputStall();
+        while (executed < maxSteps && !core.isHalted && !core.outputStalled) {
+            if (core.debugActive && executed > 0 && core.checkBreakpoint()) {
+                break;
+            }
+            cycles += executeInstruction();
+            executed++;
+            if (core.debugActive && core.checkStopAfterInstruction()) {
+                break;
+            }
+        }
+        core.setLastActionDescription(executed == 1
+                ? String.format("%s took %d micro-cycles.", CpuCore.disassemble(core.ir), cycles)
+                : String.format("Ran %d instructions in %d micro-cycles.", executed, cycles));
+        return executed;
+    }
+
+    /**
+     * Sequences the micro-cycles of one instruction.
+     * @return The number of micro-cycles it took.
+     */
+    private int executeInstruction() {
+        int step = 0;
+        int word;
+        do {
+            word = ROM[opcode(core.ir)][step++];
+            if (tracing) {
+                trace[(int) (traceCount++ % TRACE_LENGTH)] = word;
+            }
+            microCycle(word);
+        } while ((word & Signal.END.mask()) == 0);
+        int opcode = opcode(core.ir);
+        microCycles[opcode] += step;
+        instructions[opcode]++;
+        return step;
+    }
+
+    /**
+     * @return The ROM row for an instruction word. Words outside 0..0xFF have
+     *         no opcode in the ISA and run as NOP, as in {@link CpuCore#step()}.
+     */
+    private static int opcode(int ir) {
+        return ir >>> 4 < 16 ? ir >>> 4 : 0;
+    }
+
+    private void microCycle(int word) {
+        if ((word & Signal.PC_TO_MAR.mask()) != 0) {
+            core.mar = core.pc;
+            dataAddress = false;
+        }
+        if ((word & Signal.IR_TO_MAR.mask()) != 0) {
+            core.mar = core.ir & 0x0F;
+            dataAddress = true;
+        }
+        if ((word & Signal.MEM_READ.mask()) != 0) {
+            // Devices sit on the data path only; instruction fetches read memory.
+            mdr = dataAddress ? core.load(core.mar) : core.memory[core.mar];
+            if (core.cache != null) {
+                core.cache.read(core.mar);
+            }
+        }
+        if ((word & Signal.MEM_WRITE.mask()) != 0) {
+            core.store(core.mar, core.ac);
+            if (core.cache != null) {
+                core.cache.write(core.mar);
+            }
+        }
+        if ((word & Signal.LOAD_IR.mask()) != 0) {
+            core.ir = mdr;
+            core.cycleCount++;
+            if (core.profiler != null) {
+                core.profiler.record(core.mar, core.ir);
+            }
+        }
+        if ((word & Signal.PC_INC.mask()) != 0) {
+            core.pc = (core.pc + 1) & 0x0F;
+        }
+        if ((word & Signal.LOAD_AC.mask()) != 0) {
+            core.ac = mdr & 0x0F;
+            core.zFlag = core.ac == 0;
+        }
+        if ((word & Signal.ALU_ADD.mask()) != 0) {
+            int result = core.ac + (mdr & 0x0F);
+            core.ac = result & 0x0F;
+            core.zFlag = core.ac == 0;
+            core.cFlag = result > 15;
+        }
+        if ((word & Signal.CLEAR_CARRY.mask()) != 0) {
+            core.cFlag = false;
+        }
+        if ((word & Signal.LOAD_OUT.mask()) != 0) {
+            core.emitOutput(core.ac);
+        }
+        if ((word & Signal.HALT.mask()) != 0) {
+            core.isHalted = true;
+        }
+    }
+
+    /**
+     * Records the control word of every micro-cycle from now on, or stops recording.
+     */
+    public void setTracing(boolean tracing) {
+        this.tracing = tracing;
+        traceCount = 0;
+    }
+
+    /**
+     * @return Up to {@link #TRACE_LENGTH} recent control words, oldest first.
+     */
+    public int[] getTrace() {
+        int length = (int) Math.min(traceCount, TRACE_LENGTH);
+        int[] words = new int[length];
+        for (int i = 0; i < length; i++) {
+            words[i] = trace[(int) ((traceCount - length + i) % TRACE_LENGTH)];
+        }
+        return words;
+    }
+
+    /**
+     * @return A copy of the control words for an opcode, one per micro-step,
+     *         ending with the word that asserts {@link Signal#END}.
+     */
+    public static int[] getMicroprogram(int opcode) {
+        int length = 0;
+        while ((ROM[opcode][length++] & Signal.END.mask()) == 0) {
+            // find the end of the routine
+        }
+        int[] steps = new int[length];
+        System.arraycopy(ROM[opcode], 0, steps, 0, length);
+        return steps;
+    }
+
+    /**
+     * @return The average number of micro-cycles per instruction executed, or 0
+     *         before the first instruction.
+     */
+    public double getCyclesPerInstruction() {
+        long cycles = 0;
+        long count = 0;
+        for (int opcode = 0; opcode < 16; opcode++) {
+            cycles += microCycles[opcode];
+            count += instructions[opcode];
+        }
+        return count == 0 ? 0 : (double) cycles / count;
+    }
+
+    /**
+     * @return Micro-cycles spent per opcode (a copy).
+     */
+    public long[] getMicroCycleCounts() {
+        return microCycles.clone();
+    }
+
+    /**
+     * Clears the micro-cycle counters.
+     */
+    public void resetStatistics() {
+        Arrays.fill(microCycles, 0);
+        Arrays.fill(instructions, 0);
+    }
+
+    /**
+     * @return A one-line summary of micro-cycles per executed opcode.
+     */
+    public String getStats() {
+        StringBuilder sb = new StringBuilder(String.format("%.2f micro-cycles/instruction", getCyclesPerInstruction()));
+        for (int opcode = 0; opcode < 16; opcode++) {
+            if (instructions[opcode] > 0) {
+                sb.append(String.format("; %s x%d", CpuCore.disassemble(opcode << 4).split(" ")[0], instructions[opcode]));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,178 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * A private per-core cache kept coherent with the MSI protocol by
+ * {@link MultiCoreSystem}.
+ *
+ * Each line is Modified (the only valid copy, may be written), Shared (a
+ * read-only copy that others may also hold) or Invalid. Reads hit in S or M,
+ * writes hit only in M; everything else needs a bus transaction, during which
+ * the other caches snoop: a read demotes their M copy to S (with a write-back),
+ * a read-exclusive invalidates their copies. Like {@link CacheModel} it tracks
+ * tags and states only, in flat arrays; the data stays in the shared memory.
+ */
+public class MsiCache {
+
+    public static final byte INVALID = 0, SHARED = 1, MODIFIED = 2;
+
+    private final int sets;
+    private final int ways;
+    private final int offsetBits;
+    private final int[] tags;
+    private final byte[] states;
+    private final long[] stamps;
+    private long clock;
+
+    private long hits, misses, upgrades, writebacks, invalidations;
+
+    /**
+     * @param sets The number of sets, a power of two.
+     * @param ways The associativity; replacement is LRU.
+     * @param lineSize Memory cells per line, a power of two.
+     */
+    public MsiCache(int sets, int ways, int lineSize) {
+        if (Integer.bitCount(sets) != 1 || Integer.bitCount(lineSize) != 1 || ways < 1) {
+            throw new IllegalArgumentException("sets and lineSize must be powers of two and ways at least 1");
+        }
+        this.sets = sets;
+        this.ways = ways;
+        this.offsetBits = Integer.numberOfTrailingZeros(lineSize);
+        this.tags = new int[sets * ways];
+        this.states = new byte[sets * ways];
+        this.stamps = new long[sets * ways];
+        Arrays.fill(tags, -1);
+    }
+
+    /**
+     * @return The MSI state of the line holding an address.
+     */
+    public byte getState(int address) {
+        int line = find(address);
+        return line < 0 ? INVALID : states[line];
+    }
+
+    boolean canRead(int address) {
+        return find(address) >= 0;
+    }
+
+    boolean canWrite(int address) {
+        int line = find(address);
+        return line >= 0 && states[line] == MODIFIED;
+    }
+
+    /**
+     * Records a hit that needs no bus transaction.
+     */
+    void hit(int address) {
+        int line = find(address);
+        stamps[line] = ++clock;
+        hits++;
+    }
+
+    /**
+     * Brings a line in after a bus read (S) or read-exclusive (M), or upgrades
+     * a shared line to M.
+     */
+    void fill(int address, byte state) {
+        int line = find(address);
+        if (line >= 0) {
+            upgrades++;
+        } else {
+            misses++;
+            line = victim(address);
+            if (states[line] == MODIFIED) {
+                writebacks++;
+            }
+            tags[line] = address >>> offsetBits;
+        }
+        states[line] = state;
+        stamps[line] = ++clock;
+    }
+
+    /**
+     * Another cache reads the address: give up exclusive ownership.
+     */
+    void snoopRead(int address) {
+        int line = find(address);
+        if (line >= 0 && states[line] == MODIFIED) {
+            writebacks++;
+            states[line] = SHARED;
+        }
+    }
+
+    /**
+     * Another cache wants to write the address: drop our copy.
+     */
+    void snoopInvalidate(int address) {
+        int line = find(address);
+        if (line >= 0) {
+            if (states[line] == MODIFIED) {
+                writebacks++;
+            }
+            states[line] = INVALID;
+            tags[line] = -1;
+            invalidations++;
+        }
+    }
+
+    private int find(int address) {
+        int block = address >>> offsetBits;
+        int base = (block & (sets - 1)) * ways;
+        for (int way = 0; way < ways; way++) {
+            if (tags[base + way] == block) {
+                return base + way;
+            }
+        }
+        return -1;
+    }
+
+    private int victim(int address) {
+        int base = ((address >>> offsetBits) & (sets - 1)) * ways;
+        int victim = base;
+        for (int way = 0; way < ways; way++) {
+            if (tags[base + way] < 0) {
+                return base + way;
+            }
+            if (stamps[base + way] < stamps[victim]) {
+                victim = base + way;
+            }
+        }
+        return victim;
+    }
+
+    public long getHitCount() {
+        return hits;
+    }
+
+    public long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * @return Writes to shared lines that needed only an invalidation on the bus.
+     */
+    public long getUpgradeCount() {
+        return upgrades;
+    }
+
+    public long getWritebackCount() {
+        return writebacks;
+    }
+
+    /**
+     * @return Lines invalidated by other cores' writes.
+     */
+    public long getInvalidationCount() {
+        return invalidations;
+    }
+
+    /**
+     * @return A one-line summary of the counters.
+     */
+    public String getStats() {
+        return String.format("hits=%d, misses=%d, upgrades=%d, write-backs=%d, invalidations=%d",
+                hits, misses, upgrades, writebacks, invalidations);
+    }
+}
@@ -0,0 +1,333 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Several {@link CpuCore}s sharing one memory through a single bus.
+ *
+ * Time advances in system cycles. In each cycle every running core wants to
+ * execute its next instruction. Without caches each instruction needs the bus,
+ * and the {@link BusArbiter} grants it to one requester while the others stall.
+ * With per-core {@link MsiCache}s, a core whose instruction only hits (fetch
+ * and reads in S or M, writes in M) runs without the bus; only misses and
+ * upgrades compete for it.
+ *
+ * Within a cycle the bus-free cores run first and the bus winner last. The
+ * protocol guarantees that bus-free cores touch disjoint lines or only read
+ * shared ones, so they may run in any order, or in parallel: that is what
+ * {@link #runThreaded(long)} does, with one host thread per core and a
+ * {@link Phaser} separating the two halves of each cycle. Both run modes
+ * produce exactly the same interleaving for a given arbiter policy.
+ */
+public class MultiCoreSystem {
+
+    private final int[] memory = new int[CpuCore.MEMORY_SIZE];
+    private final CpuCore[] cores;
+    private final BusArbiter arbiter;
+    private MsiCache[] caches;
+
+    // Plan for the current cycle, made before any core runs.
+    private final boolean[] busFree;
+    private int winner = -1;
+
+    private long cycles;
+    private long busBusyCycles;
+    private final long[] stallCycles;
+
+    /**
+     * @param coreCount The number of cores, 1 to 32.
+     * @param policy How the bus is arbitrated.
+     * @param seed The seed for random arbitration.
+     */
+    public MultiCoreSystem(int coreCount, BusArbiter.Policy policy, long seed) {
+        this.arbiter = new BusArbiter(policy, coreCount, seed);
+        this.cores = new CpuCore[coreCount];
+        for (int i = 0; i < coreCount; i++) {
+            cores[i] = new CpuCore(memory);
+        }
+        this.busFree = new boolean[coreCount];
+        this.stallCycles = new long[coreCount];
+    }
+
+    /**
+     * Gives every core a private MSI cache, or removes them when sets is 0.
+     * Call before running.
+     */
+    public void setCaches(int sets, int ways, int lineSize) {
+        if (sets == 0) {
+            caches = null;
+            return;
+        }
+        caches = new MsiCache[cores.length];
+        for (int i = 0; i < cores.length; i++) {
+            caches[i] = new MsiCache(sets, ways, lineSize);
+        }
+    }
+
+    /**
+     * Clears memory, loads a program image and resets every core to address 0.
+     */
+    public void loadProgram(int[] image) {
+        Arrays.fill(memory, 0);
+        System.arraycopy(image, 0, memory, 0, Math.min(image.length, memory.length));
+        for (CpuCore core : cores) {
+            core.reset();
+        }
+    }
+
+    /**
+     * Sets the address a core starts executing from.
+     */
+    public void setStartAddress(int core, int address) {
+        cores[core].pc = address & 0x0F;
+    }
+
+    /**
+     * Advances the system by one cycle on the calling thread.
+     * @return false if every core has halted.
+     */
+    public boolean cycle() {
+        if (!plan()) {
+            return false;
+        }
+        for (int i = 0; i < cores.length; i++) {
+            if (busFree[i]) {
+                runLocal(i);
+            }
+        }
+        finishCycle();
+        return true;
+    }
+
+    /**
+     * Runs up to maxCycles cycles on the calling thread.
+     * @return The number of cycles run.
+     */
+    public long run(long maxCycles) {
+        long start = cycles;
+        while (cycles - start < maxCycles && cycle()) {
+            // cycle() does the work
+        }
+        return cycles - start;
+    }
+
+    /**
+     * Runs up to maxCycles cycles with every core on its own host thread. The
+     * result is identical to {@link #run(long)}. A cycle ends at a barrier,
+     * which costs far more than one guest instruction, so for raw throughput
+     * it is faster to run independent systems on separate threads.
+     * @return The number of cycles run.
+     */
+    public long runThreaded(long maxCycles) {
+        long start = cycles;
+        if (maxCycles <= 0 || !plan()) {
+            return 0;
+        }
+        Phaser phaser = new Phaser(cores.length) {
+            @Override
+            protected boolean onAdvance(int phase, int parties) {
+                // Runs on the last thread to arrive, while the others wait.
+                finishCycle();
+                return cycles - start >= maxCycles || !plan();
+            }
+        };
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[cores.length];
+        for (int i = 0; i < cores.length; i++) {
+            final int core = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    do {
+                        if (busFree[core]) {
+                            runLocal(core);
+                        }
+                        phaser.arriveAndAwaitAdvance();
+                    } while (!phaser.isTerminated());
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    phaser.forceTermination();
+                }
+            }, "core-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                phaser.forceTermination();
+            }
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Core thread failed", failure.get());
+        }
+        return cycles - start;
+    }
+
+    /**
+     * Decides which cores run without the bus and which core gets it.
+     * @return false if every core has halted.
+     */
+    private boolean plan() {
+        int requests = 0;
+        boolean running = false;
+        for (int i = 0; i < cores.length; i++) {
+            CpuCore core = cores[i];
+            busFree[i] = false;
+            if (core.isHalted) {
+                continue;
+            }
+            running = true;
+            if (caches != null && hitsOnly(caches[i], core.pc, memory[core.pc])) {
+                busFree[i] = true;
+            } else {
+                requests |= 1 << i;
+            }
+        }
+        winner = arbiter.grant(requests);
+        for (int i = 0; i < cores.length; i++) {
+            if ((requests >>> i & 1) != 0 && i != winner) {
+                stallCycles[i]++;
+            }
+        }
+        return running;
+    }
+
+    private static boolean hitsOnly(MsiCache cache, int pc, int instruction) {
+        if (!cache.canRead(pc)) {
+            return false;
+        }
+        int operand = instruction & 0x0F;
+        switch (instruction >> 4) {
+            case 0b0001:
+            case 0b0010:
+                return cache.canRead(operand);
+            case 0b0011:
+                return cache.canWrite(operand);
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Executes the planned instruction of a bus-free core. Touches only that
+     * core and its cache, so several can run at once.
+     */
+    private void runLocal(int i) {
+        CpuCore core = cores[i];
+        if (caches != null) {
+            recordHits(caches[i], core.pc, memory[core.pc]);
+        }
+        core.execute();
+    }
+
+    private static void recordHits(MsiCache cache, int pc, int instruction) {
+        cache.hit(pc);
+        int opcode = instruction >> 4;
+        if (opcode == 0b0001 || opcode == 0b0010 || opcode == 0b0011) {
+            cache.hit(instruction & 0x0F);
+        }
+    }
+
+    /**
+     * Performs the bus winner's transactions and instruction, then closes the cycle.
+     */
+    private void finishCycle() {
+        if (winner >= 0) {
+            CpuCore core = cores[winner];
+            if (caches != null) {
+                int instruction = memory[core.pc];
+                int operand = instruction & 0x0F;
+                access(winner, core.pc, false);
+                int opcode = instruction >> 4;
+                if (opcode == 0b0001 || opcode == 0b0010) {
+                    access(winner, operand, false);
+                } else if (opcode == 0b0011) {
+                    access(winner, operand, true);
+                }
+            }
+            core.execute();
+            busBusyCycles++;
+        }
+        cycles++;
+    }
+
+    /**
+     * One access by the bus winner: a hit, or a bus read / read-exclusive with snooping.
+     */
+    private void access(int requester, int address, boolean write) {
+        MsiCache cache = caches[requester];
+        if (write ? cache.canWrite(address) : cache.canRead(address)) {
+            cache.hit(address);
+            return;
+        }
+        for (int i = 0; i < caches.length; i++) {
+            if (i != requester) {
+                if (write) {
+                    caches[i].snoopInvalidate(address);
+                } else {
+                    caches[i].snoopRead(address);
+                }
+            }
+        }
+        cache.fill(address, write ? MsiCache.MODIFIED : MsiCache.SHARED);
+    }
+
+    public int getCoreCount() {
+        return cores.length;
+    }
+
+    public CpuCore getCore(int index) {
+        return cores[index];
+    }
+
+    /**
+     * @return The core's cache, or null when caches are off.
+     */
+    public MsiCache getCache(int index) {
+        return caches == null ? null : caches[index];
+    }
+
+    public BusArbiter getArbiter() {
+        return arbiter;
+    }
+
+    public int[] getMemoryState() {
+        return memory.clone();
+    }
+
+    public long getCycles() {
+        return cycles;
+    }
+
+    /**
+     * @return The fraction of cycles in which the bus carried a transaction.
+     */
+    public double getBusUtilization() {
+        return cycles == 0 ? 0 : (double) busBusyCycles / cycles;
+    }
+
+    /**
+     * @return Cycles a core spent waiting for the bus.
+     */
+    public long getStallCycles(int core) {
+        return stallCycles[core];
+    }
+
+    /**
+     * @return A multi-line report of per-core progress, contention and cache behavior.
+     */
+    public String getReport() {
+        StringBuilder sb = new StringBuilder(String.format("%d cycles, bus %s, utilization %.1f%%%n",
+                cycles, arbiter.getPolicy(), 100 * getBusUtilization()));
+        long[] grants = arbiter.getGrantCounts();
+        for (int i = 0; i < cores.length; i++) {
+            sb.append(String.format("core %d: %d instructions, %d stall cycles, %d grants%s%s%n", i,
+                    cores[i].cycleCount, stallCycles[i], grants[i], cores[i].isHalted ? ", halted" : "",
+                    caches == null ? "" : "; " + caches[i].getStats()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,298 @@
+package com.alperenulukaya.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An N-bit by N-bit multiplier built as a gate {@link Netlist}, in one of
+ * four classic architectures. All of them form the partial products, reduce
+ * them to two rows, and add those with a ripple-carry adder of
+ * {@link Netlist#fullAdder full adders}; they differ in how the reduction is
+ * wired, which the gate counts and logic depths show:
+ * <ul>
+ * <li>ARRAY: one row of adders per partial product, carry-save, so the depth grows linearly with N</li>
+ * <li>WALLACE: every column is reduced as much as possible in each stage, with full and half adders</li>
+ * <li>DADDA: each stage reduces the columns only to the next height in the sequence 2, 3, 4, 6, 9, 13, ...,
+ * which needs fewer adders for the same number of stages</li>
+ * <li>BOOTH: radix-4 (modified) Booth recoding halves the number of partial products, which are then
+ * reduced as in DADDA; this one multiplies two's complement numbers</li>
+ * </ul>
+ * The inputs are A in bits 0 to N-1 and B in bits N to 2N-1; the output is
+ * the 2N-bit product.
+ */
+public class Multiplier {
+
+    public enum Architecture {
+        ARRAY, WALLACE, DADDA, BOOTH
+    }
+
+    private final Architecture architecture;
+    private final int width;
+    private final Netlist netlist = new Netlist();
+
+    /**
+     * @param width The operand width, 1 to 32 bits.
+     */
+    public Multiplier(Architecture architecture, int width) {
+        if (width < 1 || width > 32) {
+            throw new IllegalArgumentException("Multiplier width must be 1 to 32: " + width);
+        }
+        this.architecture = architecture;
+        this.width = width;
+        int[] a = new int[width];
+        int[] b = new int[width];
+        for (int i = 0; i < width; i++) {
+            a[i] = netlist.input();
+        }
+        for (int i = 0; i < width; i++) {
+            b[i] = netlist.input();
+        }
+        int[] product;
+        switch (architecture) {
+            case ARRAY:
+                product = array(a, b);
+                break;
+            case WALLACE:
+                product = carryPropagate(wallace(partialProducts(a, b)));
+                break;
+            case DADDA:
+                product = carryPropagate(dadda(partialProducts(a, b)));
+                break;
+            default:
+                product = carryPropagate(dadda(boothPartialProducts(a, b)));
+                break;
+        }
+        netlist.setOutputs(product);
+    }
+
+    /**
+     * Multiplies by evaluating the netlist, so it is slow; it is meant for
+     * checking single values. Unsigned, or two's complement for BOOTH.
+     * @return The 2N-bit product.
+     */
+    public long multiply(long a, long b) {
+        long mask = BitLanes.mask(width);
+        return netlist.evaluate((a & mask) | (b & mask) << width);
+    }
+
+    /**
+     * @return The columns of partial product bits a_j AND b_i, column w holding the bits of weight 2^w.
+     */
+    private List<List<Integer>> partialProducts(int[] a, int[] b) {
+        List<List<Integer>> columns = newColumns();
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < width; j++) {
+                columns.get(i + j).add(netlist.and(a[j], b[i]));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * A carry-save array: each row of adders adds one partial product to the
+     * running sums, the carries going down to the next row, and the final
+     * sum and carry rows go to the ripple-carry adder.
+     */
+    private int[] array(int[] a, int[] b) {
+        int[] sums = new int[2 * width];
+        int[] carries = new int[2 * width + 1];
+        for (int j = 0; j < width; j++) {
+            sums[j] = netlist.and(a[j], b[0]);
+        }
+        for (int i = 1; i < width; i++) {
+            int[] nextCarries = carries.clone();
+            nextCarries[i] = Netlist.ZERO;
+            for (int w = i; w < i + width; w++) {
+                int[] adder = netlist.fullAdder(sums[w], carries[w], netlist.and(a[w - i], b[i]));
+                sums[w] = adder[0];
+                nextCarries[w + 1] = adder[1];
+            }
+            carries = nextCarries;
+        }
+        List<List<Integer>> columns = newColumns();
+        for (int w = 0; w < 2 * width; w++) {
+            columns.get(w).add(sums[w]);
+            columns.get(w).add(carries[w]);
+        }
+        return carryPropagate(columns);
+    }
+
+    /**
+     * Wallace reduction: in every stage each column's bits are taken three at
+     * a time into full adders and a remaining pair into a half adder, until
+     * no column holds more than two bits.
+     */
+    private List<List<Integer>> wallace(List<List<Integer>> columns) {
+        while (maxHeight(columns) > 2) {
+            List<List<Integer>> next = newColumns();
+            for (int w = 0; w < columns.size(); w++) {
+                List<Integer> bits = columns.get(w);
+                int i = 0;
+                for (; i + 3 <= bits.size(); i += 3) {
+                    addOutputs(next, w, netlist.fullAdder(bits.get(i), bits.get(i + 1), bits.get(i + 2)));
+                }
+                if (bits.size() - i == 2) {
+                    addOutputs(next, w, netlist.halfAdder(bits.get(i), bits.get(i + 1)));
+                } else if (bits.size() - i == 1) {
+                    next.get(w).add(bits.get(i));
+                }
+            }
+            columns = next;
+        }
+        return columns;
+    }
+
+    /**
+     * Dadda reduction: each stage brings every column down to the next lower
+     * height in 2, 3, 4, 6, 9, 13, ..., using a half adder when one bit too
+     * many remains and full adders otherwise.
+     */
+    private List<List<Integer>> dadda(List<List<Integer>> columns) {
+        List<Integer> heights = new ArrayList<>();
+        for (int d = 2; d < maxHeight(columns); d = d * 3 / 2) {
+            heights.add(d);
+        }
+        for (int stage = heights.size() - 1; stage >= 0; stage--) {
+            int target = heights.get(stage);
+            List<List<Integer>> next = newColumns();
+            for (int w = 0; w < columns.size(); w++) {
+                List<Integer> bits = new ArrayList<>(columns.get(w));
+                List<Integer> out = next.get(w);
+                // out already holds the carries from column w - 1 in this stage.
+                int height = bits.size() + out.size();
+                while (height > target) {
+                    if (height == target + 1) {
+                        addOutputs(next, w, netlist.halfAdder(take(bits, out), take(bits, out)));
+                        height--;
+                    } else {
+                        addOutputs(next, w, netlist.fullAdder(take(bits, out), take(bits, out), take(bits, out)));
+                        height -= 2;
+                    }
+                }
+                out.addAll(bits);
+            }
+            columns = next;
+        }
+        return columns;
+    }
+
+    /**
+     * Radix-4 Booth partial products for two's complement operands: each
+     * pair of multiplier bits, with the bit below, selects 0, +-A or +-2A.
+     * Negative selections invert the row and add 1 at its lowest weight. Rows
+     * are sign-extended to 2N bits, and anything beyond 2N bits is dropped,
+     * since the product is taken modulo 2^2N.
+     */
+    private List<List<Integer>> boothPartialProducts(int[] a, int[] b) {
+        List<List<Integer>> columns = newColumns();
+        int productWidth = 2 * width;
+        for (int group = 0; 2 * group < width; group++) {
+            int low = bit(b, 2 * group - 1);
+            int mid = bit(b, 2 * group);
+            int high = bit(b, 2 * group + 1);
+            // Booth encoder: one selects A, two selects 2A, neg negates; 111 is +0, not -0.
+            int one = netlist.xor(mid, low);
+            int two = netlist.or(netlist.and(high, netlist.and(netlist.not(mid), netlist.not(low))),
+                    netlist.and(netlist.not(high), netlist.and(mid, low)));
+            int neg = netlist.and(high, netlist.not(netlist.and(mid, low)));
+            int shift = 2 * group;
+            int sign = Netlist.ZERO;
+            for (int j = 0; j <= width && shift + j < productWidth; j++) {
+                int selected = netlist.or(netlist.and(one, bit(a, j)), netlist.and(two, bit(a, j - 1)));
+                sign = netlist.xor(selected, neg);
+                columns.get(shift + j).add(sign);
+            }
+            for (int w = shift + width + 1; w < productWidth; w++) {
+                columns.get(w).add(sign);
+            }
+            columns.get(shift).add(neg);
+        }
+        return columns;
+    }
+
+    /**
+     * @return Bit i of a sign-extended operand, or 0 below bit 0.
+     */
+    private static int bit(int[] operand, int i) {
+        if (i < 0) {
+            return Netlist.ZERO;
+        }
+        return operand[Math.min(i, operand.length - 1)];
+    }
+
+    /**
+     * Adds the final two rows with a ripple-carry adder.
+     * @return The 2N product bits.
+     */
+    private int[] carryPropagate(List<List<Integer>> columns) {
+        int[] product = new int[2 * width];
+        int carry = Netlist.ZERO;
+        for (int w = 0; w < product.length; w++) {
+            List<Integer> bits = columns.get(w);
+            int x = bits.size() > 0 ? bits.get(0) : Netlist.ZERO;
+            int y = bits.size() > 1 ? bits.get(1) : Netlist.ZERO;
+            int[] adder = netlist.fullAdder(x, y, carry);
+            product[w] = adder[0];
+            carry = adder[1];
+        }
+        return product;
+    }
+
+    private static int take(List<Integer> bits, List<Integer> fallback) {
+        return bits.isEmpty() ? fallback.remove(0) : bits.remove(0);
+    }
+
+    /**
+     * Puts an adder's sum in column w and its carry in column w + 1, dropping
+     * carries beyond the product width.
+     */
+    private static void addOutputs(List<List<Integer>> columns, int w, int[] adder) {
+        columns.get(w).add(adder[0]);
+        if (w + 1 < columns.size()) {
+            columns.get(w + 1).add(adder[1]);
+        }
+    }
+
+    private List<List<Integer>> newColumns() {
+        List<List<Integer>> columns = new ArrayList<>(2 * width);
+        for (int w = 0; w < 2 * width; w++) {
+            columns.add(new ArrayList<>());
+        }
+        return columns;
+    }
+
+    private static int maxHeight(List<List<Integer>> columns) {
+        int height = 0;
+        for (List<Integer> column : columns) {
+            height = Math.max(height, column.size());
+        }
+        return height;
+    }
+
+    public Architecture getArchitecture() {
+        return architecture;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Whether the operands are two's complement (BOOTH) rather than unsigned.
+     */
+    public boolean isSigned() {
+        return architecture == Architecture.BOOTH;
+    }
+
+    public Netlist getNetlist() {
+        return netlist;
+    }
+
+    public int getGateCount() {
+        return netlist.getGateCount();
+    }
+
+    public int getDepth() {
+        return netlist.getDepth();
+    }
+}
@@ -0,0 +1,97 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * A word-level N-to-1 multiplexer. Each input is a lane of {@code width} bits
+ * and the select is a plain int, so a bus of any width is switched with a
+ * shift and a mask (or one array copy for lanes wider than 64 bits) instead of
+ * per-bit boolean arrays.
+ *
+ * The inputs are passed packed in a long array laid out by {@link BitLanes}.
+ * With 1-bit lanes all inputs of a mux up to 64-to-1 fit in one long. A select
+ * that names no input (possible when N is not a power of two) yields zero, as
+ * no input drives the output.
+ */
+public class Mux {
+
+    private final int inputs;
+    private final int width;
+
+    /**
+     * @param inputs The number of inputs, at least 1.
+     * @param width The width of each input in bits, at least 1.
+     */
+    public Mux(int inputs, int width) {
+        if (inputs < 1 || width < 1) {
+            throw new IllegalArgumentException("A mux needs at least one input of at least one bit");
+        }
+        this.inputs = inputs;
+        this.width = width;
+    }
+
+    /**
+     * Selects one lane of up to 64 bits.
+     * @param data The packed inputs, at least {@link #getDataWords()} long.
+     * @param select The index of the input to pass through.
+     * @return The selected lane, or 0 if select is out of range.
+     */
+    public long select(long[] data, int select) {
+        if (width > 64) {
+            throw new IllegalStateException("Lanes wider than 64 bits need select(data, select, out)");
+        }
+        if (select < 0 || select >= inputs) {
+            return 0;
+        }
+        return BitLanes.getLane(data, select, width);
+    }
+
+    /**
+     * Selects one lane of any width.
+     * @param data The packed inputs, at least {@link #getDataWords()} long.
+     * @param select The index of the input to pass through.
+     * @param out Receives the selected lane in its first {@link BitLanes#laneWords(int)} words.
+     */
+    public void select(long[] data, int select, long[] out) {
+        if (width <= 64) {
+            out[0] = select(data, select);
+            return;
+        }
+        int laneWords = BitLanes.laneWords(width);
+        if (select < 0 || select >= inputs) {
+            Arrays.fill(out, 0, laneWords, 0);
+        } else {
+            System.arraycopy(data, select * laneWords, out, 0, laneWords);
+        }
+    }
+
+    /**
+     * A 1-bit mux of up to 64 inputs packed into one word.
+     * @return Bit select of data.
+     */
+    public static boolean selectBit(long data, int select) {
+        return (data >>> select & 1) != 0;
+    }
+
+    public int getInputCount() {
+        return inputs;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The number of select lines, ceil(log2(inputs)).
+     */
+    public int getSelectBits() {
+        return 32 - Integer.numberOfLeadingZeros(inputs - 1);
+    }
+
+    /**
+     * @return The length of the packed data array.
+     */
+    public int getDataWords() {
+        return BitLanes.wordsFor(inputs, width);
+    }
+}
@@ -0,0 +1,266 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * A combinational circuit of two-input gates, built net by net and
+ * evaluated bit-sliced: every net carries a long, so one evaluation runs 64
+ * independent input vectors through the circuit at once.
+ *
+ * Nets are ints. Nets 0 and 1 are the constants, followed by the primary
+ * inputs and then one net per gate, in creation order. Since a gate can only
+ * use nets that already exist, creation order is a topological order and
+ * {@link #evaluate} is a single pass. Gates with a constant input are folded
+ * away as they are built, so the gate counts are those of the real circuit.
+ *
+ * Besides the gate count, the builder tracks each net's logic depth: the
+ * number of gates on the longest path from an input, counting every gate as
+ * one level.
+ */
+public class Netlist {
+
+    public static final int ZERO = 0;
+    public static final int ONE = 1;
+
+    /** Word k has bit v set when bit k of v is set, for the six bits of a lane index. */
+    private static final long[] LANE_PATTERNS = {
+            0xAAAAAAAAAAAAAAAAL, 0xCCCCCCCCCCCCCCCCL, 0xF0F0F0F0F0F0F0F0L,
+            0xFF00FF00FF00FF00L, 0xFFFF0000FFFF0000L, 0xFFFFFFFF00000000L
+    };
+
+    public enum GateType {
+        AND, OR, XOR, NOT
+    }
+
+    private int inputCount;
+    private int netCount = 2;
+    private int gateCount;
+    private byte[] types = new byte[64];
+    private int[] in0 = new int[64];
+    private int[] in1 = new int[64];
+    private int[] depths = new int[64];
+    private final int[] countByType = new int[GateType.values().length];
+    private int[] outputs = new int[0];
+
+    /**
+     * Adds a primary input. All inputs must be added before the first gate.
+     * @return The input's net.
+     */
+    public int input() {
+        if (gateCount > 0) {
+            throw new IllegalStateException("Inputs must be added before gates");
+        }
+        inputCount++;
+        return addNet(-1, -1, -1, 0);
+    }
+
+    public int and(int a, int b) {
+        if (a == ZERO || b == ZERO) {
+            return ZERO;
+        }
+        if (a == ONE || a == b) {
+            return b;
+        }
+        if (b == ONE) {
+            return a;
+        }
+        return gate(GateType.AND, a, b);
+    }
+
+    public int or(int a, int b) {
+        if (a == ONE || b == ONE) {
+            return ONE;
+        }
+        if (a == ZERO || a == b) {
+            return b;
+        }
+        if (b == ZERO) {
+            return a;
+        }
+        return gate(GateType.OR, a, b);
+    }
+
+    public int xor(int a, int b) {
+        if (a == ZERO) {
+            return b;
+        }
+        if (b == ZERO) {
+            return a;
+        }
+        if (a == b) {
+            return ZERO;
+        }
+        if (a == ONE) {
+            return not(b);
+        }
+        if (b == ONE) {
+            return not(a);
+        }
+        return gate(GateType.XOR, a, b);
+    }
+
+    public int not(int a) {
+        if (a <= ONE) {
+            return ONE - a;
+        }
+        return gate(GateType.NOT, a, a);
+    }
+
+    /**
+     * A 2:1 multiplexer.
+     * @return a when select is 0, b when select is 1.
+     */
+    public int mux(int select, int a, int b) {
+        if (select <= ONE) {
+            return select == ONE ? b : a;
+        }
+        return or(and(not(select), a), and(select, b));
+    }
+
+    /**
+     * A half adder: an XOR for the sum and an AND for the carry.
+     * @return {sum, carry}.
+     */
+    public int[] halfAdder(int a, int b) {
+        return new int[] { xor(a, b), and(a, b) };
+    }
+
+    /**
+     * A full adder with the gates of {@link FullAdder}: sum = (a XOR b) XOR c,
+     * carry = (a AND b) OR (c AND (a XOR b)).
+     * @return {sum, carry}.
+     */
+    public int[] fullAdder(int a, int b, int c) {
+        int halfSum = xor(a, b);
+        return new int[] { xor(halfSum, c), or(and(a, b), and(c, halfSum)) };
+    }
+
+    /**
+     * Declares the circuit's outputs, in order.
+     */
+    public void setOutputs(int... nets) {
+        this.outputs = nets.clone();
+    }
+
+    private int gate(GateType type, int a, int b) {
+        gateCount++;
+        countByType[type.ordinal()]++;
+        return addNet(type.ordinal(), a, b, Math.max(depths[a], depths[b]) + 1);
+    }
+
+    private int addNet(int type, int a, int b, int depth) {
+        if (netCount == types.length) {
+            int length = netCount * 2;
+            types = Arrays.copyOf(types, length);
+            in0 = Arrays.copyOf(in0, length);
+            in1 = Arrays.copyOf(in1, length);
+            depths = Arrays.copyOf(depths, length);
+        }
+        types[netCount] = (byte) type;
+        in0[netCount] = a;
+        in1[netCount] = b;
+        depths[netCount] = depth;
+        return netCount++;
+    }
+
+    /**
+     * @return A buffer large enough for {@link #evaluate(long[], long[], long[])}.
+     */
+    public long[] newValueBuffer() {
+        return new long[netCount];
+    }
+
+    /**
+     * Evaluates 64 input vectors at once.
+     * @param inputs One word per primary input; bit k of every word together forms vector k.
+     * @param values Scratch space from {@link #newValueBuffer()}.
+     * @param out Receives one word per output.
+     */
+    public void evaluate(long[] inputs, long[] values, long[] out) {
+        values[ZERO] = 0;
+        values[ONE] = -1L;
+        System.arraycopy(inputs, 0, values, 2, inputCount);
+        for (int net = 2 + inputCount; net < netCount; net++) {
+            long a = values[in0[net]];
+            switch (types[net]) {
+                case 0:
+                    values[net] = a & values[in1[net]];
+                    break;
+                case 1:
+                    values[net] = a | values[in1[net]];
+                    break;
+                case 2:
+                    values[net] = a ^ values[in1[net]];
+                    break;
+                default:
+                    values[net] = ~a;
+                    break;
+            }
+        }
+        for (int i = 0; i < outputs.length; i++) {
+            out[i] = values[outputs[i]];
+        }
+    }
+
+    /**
+     * Evaluates the 64 consecutive input vectors chunk * 64 to chunk * 64 + 63,
+     * vector v setting input i when bit i of v is set. The low six input
+     * words are fixed lane patterns and every higher one is all ones or all
+     * zeros, so enumerating every input combination needs no transposition.
+     * @param inputs Scratch space of at least {@link #getInputCount()} words.
+     * @param values Scratch space from {@link #newValueBuffer()}.
+     * @param out Receives one word per output; bit v of each word belongs to vector chunk * 64 + v.
+     */
+    public void evaluateChunk(long chunk, long[] inputs, long[] values, long[] out) {
+        for (int k = 0; k < inputCount; k++) {
+            inputs[k] = k < 6 ? LANE_PATTERNS[k] : -(chunk >>> (k - 6) & 1);
+        }
+        evaluate(inputs, values, out);
+    }
+
+    /**
+     * Evaluates a single input vector.
+     * @param inputs The input bits as a number, input i being bit i (up to 64 inputs).
+     * @return The outputs as a number, output i being bit i (up to 64 outputs).
+     */
+    public long evaluate(long inputs) {
+        long[] in = new long[inputCount];
+        for (int i = 0; i < inputCount; i++) {
+            in[i] = -(inputs >>> i & 1);
+        }
+        long[] out = new long[outputs.length];
+        evaluate(in, newValueBuffer(), out);
+        long result = 0;
+        for (int i = 0; i < out.length; i++) {
+            result |= (out[i] & 1) << i;
+        }
+        return result;
+    }
+
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    public int getOutputCount() {
+        return outputs.length;
+    }
+
+    public int getGateCount() {
+        return gateCount;
+    }
+
+    public int getGateCount(GateType type) {
+        return countByType[type.ordinal()];
+    }
+
+    /**
+     * @return The logic depth of the deepest output.
+     */
+    public int getDepth() {
+        int depth = 0;
+        for (int net : outputs) {
+            depth = Math.max(depth, depths[net]);
+        }
+        return depth;
+    }
+}
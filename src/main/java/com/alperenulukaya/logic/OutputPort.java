@@ -0,0 +1,141 @@
+package com.alperenulukaya.logic;
+
+import java.util.function.IntConsumer;
+
+/**
+ * The port the OUT instruction writes to: a lock-free ring buffer that keeps
+ * every value until a consumer drains it, so fast runs lose no output.
+ *
+ * The CPU is the only producer and one consumer (for example the UI thread or
+ * a logging thread) drains it. What happens as the buffer fills depends on the
+ * {@link Overflow} policy. The default, {@link Overflow#STALL}, is lossless on
+ * a single thread: once fewer than {@link #STALL_RESERVE} slots are free the
+ * execution engines' run methods return early, and the caller drains the port
+ * and resumes. The port can also be mapped on the {@link IoBus}, where a write
+ * outputs the value and a read returns the number of buffered values (capped
+ * at 15).
+ */
+public class OutputPort implements IoDevice {
+
+    /**
+     * What the port does when the CPU outputs faster than the consumer drains.
+     */
+    public enum Overflow {
+        /** Drop values that do not fit and count them. */
+        DROP,
+        /** Make a full buffer stall the CPU until a consumer on another thread catches up. */
+        BLOCK,
+        /** End run calls early while the buffer is nearly full, so the caller can drain it. */
+        STALL
+    }
+
+    /**
+     * Free slots below which a stalling port ends a run. Engines check between
+     * blocks of at most 16 instructions, so no OUT is dropped before they stop.
+     */
+    public static final int STALL_RESERVE = CpuCore.MEMORY_SIZE;
+
+    private final IntRingBuffer buffer;
+    private volatile Overflow overflow = Overflow.STALL;
+    private long dropped;
+    private long written;
+
+    public OutputPort(int capacity) {
+        if (capacity <= STALL_RESERVE) {
+            throw new IllegalArgumentException("Output port capacity must exceed " + STALL_RESERVE + ": " + capacity);
+        }
+        this.buffer = new IntRingBuffer(capacity);
+    }
+
+    /**
+     * Producer side: outputs a value.
+     * @return false if the value was dropped because the buffer was full.
+     */
+    public boolean offer(int value) {
+        if (!buffer.offer(value)) {
+            if (overflow != Overflow.BLOCK) {
+                dropped++;
+                return false;
+            }
+            while (!buffer.offer(value)) {
+                Thread.onSpinWait();
+            }
+        }
+        written++;
+        return true;
+    }
+
+    /**
+     * Consumer side: takes the oldest value.
+     * @return The value, or -1 if none is buffered.
+     */
+    public int poll() {
+        return buffer.poll();
+    }
+
+    /**
+     * Consumer side: passes every buffered value to the consumer in output order.
+     * @return The number of values drained.
+     */
+    public int drainTo(IntConsumer consumer) {
+        return buffer.drainTo(consumer);
+    }
+
+    public int size() {
+        return buffer.size();
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    public void setOverflow(Overflow overflow) {
+        this.overflow = overflow;
+    }
+
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * @return true if the port stalls and fewer than {@link #STALL_RESERVE} slots are free.
+     */
+    boolean shouldStall() {
+        return overflow == Overflow.STALL && buffer.capacity() - buffer.size() < STALL_RESERVE;
+    }
+
+    /**
+     * @return Values dropped because the buffer was full (producer side count).
+     *         Stays zero under {@link Overflow#STALL} unless an engine that does
+     *         not stall, such as single steps or a {@link MultiCoreSystem}, fills it.
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * @return Values accepted since construction (producer side count).
+     */
+    public long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Discards buffered values and counters. Only safe while the CPU is not running.
+     */
+    public void clear() {
+        buffer.clear();
+        dropped = 0;
+        written = 0;
+    }
+
+    @Override
+    public int read(int offset, long cycle) {
+        return Math.min(buffer.size(), 15);
+    }
+
+    @Override
+    public void write(int offset, int value, long cycle) {
+        offer(value);
+    }
+}
@@ -0,0 +1,463 @@
+package com.alperenulukaya.logic;
+
+/**
+ * A cycle-accurate model of a five-stage pipelined implementation of the
+ * {@link CpuCore} instruction set.
+ *
+ * The stages are IF (fetch), ID (decode), MEM (operand read or store), EX (ALU)
+ * and WB (write AC and flags, OUT, HLT). Memory is placed before the ALU
+ * because every arithmetic instruction takes its operand from memory. The
+ * model accounts for three kinds of hazard:
+ * <ul>
+ * <li>Data: ADD needs AC in EX and STA needs it in MEM. With forwarding the
+ * value is taken from the pipeline latches as soon as it has been computed, so
+ * only STA directly after ADD stalls. Without forwarding AC is read in ID and
+ * the instruction waits there until every older writer has retired.</li>
+ * <li>Structural: there is one memory port (Von Neumann), so IF cannot fetch in
+ * a cycle where MEM reads or writes memory.</li>
+ * <li>Control: the ISA has no jumps, but HLT is only recognized in ID and the
+ * instruction fetched behind it is squashed. A store into an instruction that
+ * has already been fetched flushes it and fetch restarts from its address.</li>
+ * </ul>
+ *
+ * Instructions retire into the wrapped {@link CpuCore} in order, so its
+ * registers always show the state after the last retired instruction and
+ * {@link #run(long)} ends in exactly the state the other engines produce.
+ * Stores update memory in MEM, before they retire. An attached {@link CacheModel}
+ * sees every fetch and operand access, but misses do not stall the pipeline.
+ * Debug stops are not checked.
+ */
+public class PipelinedCpu implements ExecutionEngine {
+
+    public enum Stage { IF, ID, MEM, EX, WB }
+
+    public enum SlotState { EMPTY, BUSY, STALLED, SQUASHED }
+
+    /**
+     * The number of past cycles kept for the occupancy chart.
+     */
+    public static final int HISTORY = 32;
+
+    private static final int LDA = 0b0001, ADD = 0b0010, STA = 0b0011, OUT = 0b0100, HLT = 0b1111;
+    private static final int STAGES = Stage.values().length;
+
+    private final CpuCore core;
+    private boolean forwarding = true;
+
+    // Pipeline latches: the instruction that performs each stage in the next cycle.
+    private Instruction decode, memoryAccess, execute, writeBack;
+    private int fetchPc;
+    private boolean fetchStopped;
+    private long fetchLimit = Long.MAX_VALUE;
+
+    private long cycles;
+    private long retired;
+    private long dataStallCycles;
+    private long structuralStallCycles;
+    private long haltSquashes;
+    private long selfModifyFlushes;
+
+    private boolean recordHistory;
+    private final byte[] historyStates = new byte[HISTORY * STAGES];
+    private final short[] historyInstructions = new short[HISTORY * STAGES];
+
+    public PipelinedCpu(CpuCore core) {
+        this.core = core;
+        restart();
+    }
+
+    @Override
+    public String getName() {
+        return "Pipeline (5-stage)";
+    }
+
+    @Override
+    public CpuCore getCore() {
+        return core;
+    }
+
+    /**
+     * Runs until the budget of instructions has retired or the CPU halts. Fetch
+     * stops once enough instructions are in flight, so the pipeline is drained
+     * and the core is in a consistent state when this returns. Instructions
+     * already in flight from {@link #cycle()} always retire, even beyond the budget.
+     * When the output port stalls, fetch stops and the run ends once the
+     * pipeline has drained.
+     */
+    @Override
+    public long run(long maxSteps) {
+        long start = retired;
+        fetchLimit = core.updateOutputStall() ? retired + inFlight() : start + maxSteps;
+        try {
+            while (!core.isHalted && (retired - start < maxSteps || inFlight() > 0)) {
+                if (core.outputStalled && fetchLimit > retired + inFlight()) {
+                    fetchLimit = retired + inFlight();
+                }
+                if (inFlight() == 0 && retired >= fetchLimit) {
+                    break;
+                }
+                cycle();
+            }
+        } finally {
+            fetchLimit = Long.MAX_VALUE;
+        }
+        return retired - start;
+    }
+
+    /**
+     * Retires every in-flight instruction without fetching new ones. Call this
+     * before running the core by other means.
+     */
+    public void drain() {
+        run(0);
+    }
+
+    /**
+     * Empties the pipeline and fetches from the core's PC again. Call this after
+     * the core was reset or its program replaced; in-flight work is discarded.
+     */
+    public void restart() {
+        decode = memoryAccess = execute = writeBack = null;
+        fetchPc = core.pc;
+        fetchStopped = false;
+    }
+
+    /**
+     * Advances the pipeline by one clock cycle.
+     */
+    public void cycle() {
+        if (core.isHalted) {
+            return;
+        }
+        if (inFlight() == 0) {
+            // Nothing in flight: resume from wherever other engines left the core.
+            fetchPc = core.pc;
+        }
+        long now = ++cycles;
+        int row = (int) (now % HISTORY) * STAGES;
+        if (recordHistory) {
+            for (int i = 0; i < STAGES; i++) {
+                historyStates[row + i] = (byte) SlotState.EMPTY.ordinal();
+                historyInstructions[row + i] = -1;
+            }
+        }
+
+        // The stages are evaluated from WB back to IF so each instruction moves
+        // into a latch its successor has just vacated.
+        if (writeBack != null) {
+            note(row, Stage.WB, writeBack, SlotState.BUSY);
+            retire(writeBack, now);
+            writeBack = null;
+        }
+
+        if (execute != null) {
+            if (execute.opcode == ADD && !operandReady(execute, now)) {
+                note(row, Stage.EX, execute, SlotState.STALLED);
+                dataStallCycles++;
+            } else {
+                if (execute.opcode == ADD) {
+                    int sum = operand(execute) + execute.data;
+                    execute.result = sum & 0x0F;
+                    execute.carry = sum > 15;
+                    execute.readyCycle = now;
+                }
+                note(row, Stage.EX, execute, SlotState.BUSY);
+                writeBack = execute;
+                execute = null;
+            }
+        }
+
+        boolean memoryPortBusy = false;
+        if (memoryAccess != null) {
+            Instruction in = memoryAccess;
+            if (execute != null) {
+                note(row, Stage.MEM, in, SlotState.STALLED);
+            } else if (in.opcode == STA && !operandReady(in, now)) {
+                note(row, Stage.MEM, in, SlotState.STALLED);
+                dataStallCycles++;
+            } else {
+                if (core.cache != null && in.accessesMemory()) {
+                    if (in.opcode == STA) {
+                        core.cache.write(in.operand);
+                    } else {
+                        core.cache.read(in.operand);
+                    }
+                }
+                if (in.opcode == LDA || in.opcode == ADD) {
+                    in.data = core.load(in.operand);
+                    if (in.opcode == LDA) {
+                        in.result = in.data;
+                        in.readyCycle = now;
+                    }
+                    memoryPortBusy = true;
+                } else if (in.opcode == STA) {
+                    core.store(in.operand, operand(in));
+                    memoryPortBusy = true;
+                    if (decode != null && decode.address == in.operand && decode.word != core.memory[in.operand]) {
+                        // The next instruction was fetched before this store rewrote it.
+                        fetchPc = decode.address;
+                        fetchStopped = false;
+                        decode = null;
+                        selfModifyFlushes++;
+                    }
+                }
+                note(row, Stage.MEM, in, SlotState.BUSY);
+                execute = in;
+                memoryAccess = null;
+            }
+        }
+
+        boolean haltDecoded = false;
+        if (decode != null) {
+            Instruction in = decode;
+            if (memoryAccess != null) {
+                note(row, Stage.ID, in, SlotState.STALLED);
+            } else {
+                in.producer = execute != null && execute.writesAc() ? execute
+                        : writeBack != null && writeBack.writesAc() ? writeBack : null;
+                if (!forwarding && in.readsAc() && in.producer != null) {
+                    note(row, Stage.ID, in, SlotState.STALLED);
+                    dataStallCycles++;
+                } else {
+                    if (!forwarding && in.readsAc()) {
+                        in.value = core.ac;
+                        in.hasValue = true;
+                    }
+                    if (in.opcode == HLT && !fetchStopped) {
+                        fetchStopped = true;
+                        haltDecoded = true;
+                    }
+                    note(row, Stage.ID, in, SlotState.BUSY);
+                    memoryAccess = in;
+                    decode = null;
+                }
+            }
+        }
+
+        if ((!fetchStopped || haltDecoded) && retired + inFlight() < fetchLimit) {
+            if (decode != null) {
+                noteStall(row, Stage.IF);
+            } else if (memoryPortBusy) {
+                noteStall(row, Stage.IF);
+                structuralStallCycles++;
+            } else {
+                Instruction in = new Instruction(fetchPc, core.memory[fetchPc]);
+                if (core.cache != null) {
+                    core.cache.read(fetchPc);
+                }
+                fetchPc = (fetchPc + 1) & 0x0F;
+                if (haltDecoded) {
+                    // Fetched in the same cycle HLT was decoded: wrong path.
+                    note(row, Stage.IF, in, SlotState.SQUASHED);
+                    haltSquashes++;
+                } else {
+                    note(row, Stage.IF, in, SlotState.BUSY);
+                    decode = in;
+                }
+            }
+        }
+    }
+
+    private void retire(Instruction in, long now) {
+        core.ir = in.word;
+        core.mar = (in.opcode == LDA || in.opcode == ADD || in.opcode == STA) ? in.operand : in.address;
+        core.pc = (in.address + 1) & 0x0F;
+        core.cycleCount++;
+        if (core.profiler != null) {
+            core.profiler.record(in.address, in.word);
+        }
+        core.cFlag = false;
+        switch (in.opcode) {
+            case LDA:
+                core.ac = in.result;
+                core.zFlag = in.result == 0;
+                break;
+            case ADD:
+                core.ac = in.result;
+                core.zFlag = in.result == 0;
+                core.cFlag = in.carry;
+                break;
+            case OUT:
+                core.emitOutput(core.ac);
+                break;
+            case HLT:
+                core.isHalted = true;
+                break;
+            default:
+                break;
+        }
+        in.retired = true;
+        retired++;
+    }
+
+    /**
+     * Whether the AC value an instruction consumes is available in this cycle.
+     */
+    private boolean operandReady(Instruction in, long now) {
+        Instruction producer = in.producer;
+        if (in.hasValue || producer == null) {
+            return true;
+        }
+        return forwarding ? producer.readyCycle < now : producer.retired;
+    }
+
+    private int operand(Instruction in) {
+        if (in.hasValue) {
+            return in.value;
+        }
+        return in.producer == null ? core.ac : in.producer.result;
+    }
+
+    private int inFlight() {
+        return (decode != null ? 1 : 0) + (memoryAccess != null ? 1 : 0)
+                + (execute != null ? 1 : 0) + (writeBack != null ? 1 : 0);
+    }
+
+    private void note(int row, Stage stage, Instruction in, SlotState state) {
+        if (recordHistory) {
+            historyStates[row + stage.ordinal()] = (byte) state.ordinal();
+            historyInstructions[row + stage.ordinal()] = (short) (in.address << 8 | in.word);
+        }
+    }
+
+    private void noteStall(int row, Stage stage) {
+        if (recordHistory) {
+            historyStates[row + stage.ordinal()] = (byte) SlotState.STALLED.ordinal();
+        }
+    }
+
+    public boolean isForwarding() {
+        return forwarding;
+    }
+
+    /**
+     * Enables or disables operand forwarding. Takes effect for instructions
+     * decoded after the change.
+     */
+    public void setForwarding(boolean forwarding) {
+        this.forwarding = forwarding;
+    }
+
+    /**
+     * Turns the per-cycle occupancy history on or off. It is off by default so
+     * long runs do not pay for it.
+     */
+    public void setRecordHistory(boolean recordHistory) {
+        this.recordHistory = recordHistory;
+    }
+
+    /**
+     * @param cyclesAgo 0 for the last cycle, up to {@link #HISTORY} - 1.
+     * @return What the stage was doing in that cycle.
+     */
+    public SlotState getSlotState(int cyclesAgo, Stage stage) {
+        if (cyclesAgo < 0 || cyclesAgo >= HISTORY || cyclesAgo >= cycles) {
+            return SlotState.EMPTY;
+        }
+        return SlotState.values()[historyStates[historyIndex(cyclesAgo, stage)]];
+    }
+
+    /**
+     * @return The address and disassembly of the instruction in the stage that
+     *         cycle, or an empty string for a bubble.
+     */
+    public String getSlotText(int cyclesAgo, Stage stage) {
+        if (getSlotState(cyclesAgo, stage) == SlotState.EMPTY) {
+            return "";
+        }
+        int code = historyInstructions[historyIndex(cyclesAgo, stage)];
+        return code < 0 ? "" : String.format("%X: %s", code >> 8, CpuCore.disassemble(code & 0xFF));
+    }
+
+    private int historyIndex(int cyclesAgo, Stage stage) {
+        return (int) ((cycles - cyclesAgo) % HISTORY) * STAGES + stage.ordinal();
+    }
+
+    /**
+     * Clears the cycle and stall counters.
+     */
+    public void resetStatistics() {
+        cycles = retired = dataStallCycles = structuralStallCycles = haltSquashes = selfModifyFlushes = 0;
+    }
+
+    public long getCycles() {
+        return cycles;
+    }
+
+    public long getRetiredCount() {
+        return retired;
+    }
+
+    public long getDataStallCycles() {
+        return dataStallCycles;
+    }
+
+    public long getStructuralStallCycles() {
+        return structuralStallCycles;
+    }
+
+    /**
+     * @return Instructions squashed behind HLT plus instructions flushed by
+     *         stores into already fetched code.
+     */
+    public long getFlushedCount() {
+        return haltSquashes + selfModifyFlushes;
+    }
+
+    /**
+     * @return Cycles per retired instruction, or 0 before anything retired.
+     */
+    public double getCpi() {
+        return retired == 0 ? 0 : (double) cycles / retired;
+    }
+
+    /**
+     * @return A one-line summary of CPI and the stall breakdown.
+     */
+    public String getStats() {
+        return String.format("cycles=%d, retired=%d, CPI=%.2f; data stalls=%d, structural stalls=%d, "
+                + "HLT squashes=%d, self-modify flushes=%d", cycles, retired, getCpi(), dataStallCycles,
+                structuralStallCycles, haltSquashes, selfModifyFlushes);
+    }
+
+    /**
+     * An instruction in flight.
+     */
+    private static final class Instruction {
+        final int address;
+        final int word;
+        final int opcode;
+        final int operand;
+
+        // The youngest older instruction writing AC when this one left ID.
+        Instruction producer;
+        // AC read in ID when forwarding is off.
+        int value;
+        boolean hasValue;
+
+        int data;
+        int result;
+        boolean carry;
+        long readyCycle = Long.MAX_VALUE;
+        boolean retired;
+
+        Instruction(int address, int word) {
+            this.address = address;
+            this.word = word;
+            this.opcode = word >> 4;
+            this.operand = word & 0x0F;
+        }
+
+        boolean writesAc() {
+            return opcode == LDA || opcode == ADD;
+        }
+
+        boolean accessesMemory() {
+            return opcode == LDA || opcode == ADD || opcode == STA;
+        }
+
+        boolean readsAc() {
+            return opcode == ADD || opcode == STA;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.alperenulukaya.logic;
+
+/**
+ * A pseudo-random binary sequence generator: a Fibonacci LFSR with one of the
+ * ITU-T O.150 polynomials x^n + x^m + 1, as used by bit error rate testers.
+ * Each output bit is s[k] = s[k - n] XOR s[k - m], and a PRBS-n repeats
+ * after 2^n - 1 bits.
+ *
+ * Since m is less than n, the next m bits depend only on bits already
+ * generated, so {@link #nextBits} produces up to m bits (at most 64) per
+ * step with two shifts and an XOR instead of one step per bit.
+ */
+public class Prbs {
+
+    public enum Polynomial {
+        PRBS7(7, 6), PRBS9(9, 5), PRBS11(11, 9), PRBS15(15, 14), PRBS20(20, 3), PRBS23(23, 18), PRBS31(31, 28);
+
+        private final int order;
+        private final int tap;
+
+        Polynomial(int order, int tap) {
+            this.order = order;
+            this.tap = tap;
+        }
+
+        public int getOrder() {
+            return order;
+        }
+
+        public int getTap() {
+            return tap;
+        }
+    }
+
+    private final Polynomial polynomial;
+    private final int n;
+    private final int m;
+    private final long mask;
+    // The last n bits of the sequence, the oldest in bit 0.
+    private long state;
+
+    public Prbs(Polynomial polynomial) {
+        this.polynomial = polynomial;
+        this.n = polynomial.order;
+        this.m = polynomial.tap;
+        this.mask = BitLanes.mask(n);
+        reset();
+    }
+
+    /**
+     * @return The next bit of the sequence.
+     */
+    public boolean nextBit() {
+        long bit = (state ^ state >>> (n - m)) & 1;
+        state = state >>> 1 | bit << (n - 1);
+        return bit != 0;
+    }
+
+    /**
+     * Fills a packed bit buffer with the next count bits of the sequence; bit
+     * position + i of out receives the i-th bit.
+     */
+    public void nextBits(long[] out, long position, long count) {
+        while (count > 0) {
+            int chunk = (int) Math.min(m, count);
+            long bits = (state ^ state >>> (n - m)) & BitLanes.mask(chunk);
+            state = (state >>> chunk | bits << (n - chunk)) & mask;
+            BitLanes.setBits(out, position, chunk, bits);
+            position += chunk;
+            count -= chunk;
+        }
+    }
+
+    /**
+     * Restarts the sequence from the all-ones state.
+     */
+    public void reset() {
+        state = mask;
+    }
+
+    public Polynomial getPolynomial() {
+        return polynomial;
+    }
+
+    /**
+     * @return The sequence length, 2^n - 1.
+     */
+    public long getPeriod() {
+        return mask;
+    }
+}
@@ -0,0 +1,126 @@
+package com.alperenulukaya.logic;
+
+/**
+ * An N-input priority encoder with Enable and Valid, the general form of
+ * {@link Encoder8to3}. Any number of request lines may be active at once;
+ * the output is the index of the one with the highest priority, found with
+ * {@link Long#numberOfLeadingZeros(long)} or
+ * {@link Long#numberOfTrailingZeros(long)} a word at a time (single
+ * instructions on current processors) instead of by testing each line.
+ *
+ * The requests are a packed bit vector: request i is bit i % 64 of word i / 64.
+ * By default the highest-numbered request wins, as in the 74148; an interrupt
+ * controller that gives line 0 the highest priority uses {@link Priority#LOWEST_INDEX}.
+ */
+public class PriorityEncoder {
+
+    /**
+     * Which of several active requests is encoded.
+     */
+    public enum Priority {
+        HIGHEST_INDEX,
+        LOWEST_INDEX
+    }
+
+    private final int inputs;
+    private final Priority priority;
+    private final long lastWordMask;
+
+    /**
+     * A priority encoder where the highest-numbered request wins.
+     * @param inputs The number of request lines, at least 1.
+     */
+    public PriorityEncoder(int inputs) {
+        this(inputs, Priority.HIGHEST_INDEX);
+    }
+
+    /**
+     * @param inputs The number of request lines, at least 1.
+     * @param priority Which request wins when several are active.
+     */
+    public PriorityEncoder(int inputs, Priority priority) {
+        if (inputs < 1) {
+            throw new IllegalArgumentException("A priority encoder needs at least one input");
+        }
+        this.inputs = inputs;
+        this.priority = priority;
+        this.lastWordMask = BitLanes.mask(inputs - ((getInputWords() - 1) << 6));
+    }
+
+    /**
+     * Encodes up to 64 requests held in one word. Bits above the input count are ignored.
+     * @param enable If false, no request is encoded.
+     * @return The index of the winning request, or -1 if disabled or none is
+     *         active (the Valid output is low).
+     */
+    public int encode(boolean enable, long requests) {
+        if (inputs > 64) {
+            throw new IllegalStateException("Encoders wider than 64 inputs need encode(enable, long[])");
+        }
+        requests &= lastWordMask;
+        if (!enable || requests == 0) {
+            return -1;
+        }
+        return priority == Priority.HIGHEST_INDEX ? 63 - Long.numberOfLeadingZeros(requests)
+                : Long.numberOfTrailingZeros(requests);
+    }
+
+    /**
+     * Encodes a packed request vector of any width, scanning from the word
+     * holding the highest-priority lines and stopping at the first non-empty one.
+     * @param enable If false, no request is encoded.
+     * @param requests At least {@link #getInputWords()} long.
+     * @return The index of the winning request, or -1 if disabled or none is active.
+     */
+    public int encode(boolean enable, long[] requests) {
+        if (!enable) {
+            return -1;
+        }
+        int last = getInputWords() - 1;
+        if (priority == Priority.HIGHEST_INDEX) {
+            for (int word = last; word >= 0; word--) {
+                long bits = word == last ? requests[word] & lastWordMask : requests[word];
+                if (bits != 0) {
+                    return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+                }
+            }
+        } else {
+            for (int word = 0; word <= last; word++) {
+                long bits = word == last ? requests[word] & lastWordMask : requests[word];
+                if (bits != 0) {
+                    return (word << 6) + Long.numberOfTrailingZeros(bits);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The Valid output: true if enabled and at least one request is active.
+     */
+    public boolean isValid(boolean enable, long[] requests) {
+        return encode(enable, requests) >= 0;
+    }
+
+    public int getInputCount() {
+        return inputs;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return The number of output bits, ceil(log2(inputs)).
+     */
+    public int getOutputBits() {
+        return 32 - Integer.numberOfLeadingZeros(inputs - 1);
+    }
+
+    /**
+     * @return The length of the packed request vector.
+     */
+    public int getInputWords() {
+        return (inputs + 63) >>> 6;
+    }
+}
@@ -0,0 +1,42 @@
+package com.alperenulukaya.logic;
+
+/**
+ * Runs the core through the original {@link CpuCore#step()} loop, including the
+ * per-instruction action description. This is the baseline all other engines
+ * are measured and verified against.
+ */
+public class ReferenceEngine implements ExecutionEngine {
+
+    private final CpuCore core;
+
+    public ReferenceEngine(CpuCore core) {
+        this.core = core;
+    }
+
+    @Override
+    public String getName() {
+        return "Reference step()";
+    }
+
+    @Override
+    public CpuCore getCore() {
+        return core;
+    }
+
+    @Override
+    public long run(long maxSteps) {
+        long executed = 0;
+        core.updateOutputStall();
+        while (executed < maxSteps && !core.isHalted() && !core.outputStalled) {
+            if (executed > 0 && core.debugActive && core.checkBreakpoint()) {
+                break;
+            }
+            core.step();
+            executed++;
+            if (core.getStopReason() != null) {
+                break;
+            }
+        }
+        return executed;
+    }
+}
@@ -0,0 +1,115 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * A register file: a small array with combinational read ports and
+ * synchronous write ports. A read returns the register's value at once; a
+ * write takes effect at the next {@link #clock()}, so a register written and
+ * read in the same cycle reads its old value unless bypassing is enabled, in
+ * which case the read sees the pending write, as with a write-first register
+ * file or a forwarding path.
+ *
+ * Register 0 can be hardwired to zero, as in RISC designs: it always reads 0
+ * and writes to it are ignored.
+ */
+public class RegisterFile extends StorageArray {
+
+    private final int readPorts;
+    private final boolean[] readUsed;
+    private boolean zeroRegister;
+    private boolean bypass;
+
+    /**
+     * @param registers The number of registers, at least 1.
+     * @param width The bits per register, 1 to 64.
+     * @param readPorts The number of read ports, at least 1.
+     * @param writePorts The number of write ports, at least 1.
+     */
+    public RegisterFile(int registers, int width, int readPorts, int writePorts) {
+        super(registers, width, writePorts);
+        if (readPorts < 1) {
+            throw new IllegalArgumentException("A register file needs at least one read port");
+        }
+        this.readPorts = readPorts;
+        this.readUsed = new boolean[readPorts];
+    }
+
+    /**
+     * Reads a register through a read port.
+     * @throws IllegalStateException if the port has already been used this cycle.
+     */
+    public long read(int port, int address) {
+        if (readUsed[port]) {
+            throw new IllegalStateException("Read port " + port + " is already in use this cycle");
+        }
+        checkAddress(address);
+        readUsed[port] = true;
+        countRead();
+        if (zeroRegister && address == 0) {
+            return 0;
+        }
+        return bypass ? nextValue(address) : words[address];
+    }
+
+    /**
+     * @return The lowest read port not used this cycle, or -1 if all are busy
+     *         and the reader has to wait for the next cycle.
+     */
+    public int freeReadPort() {
+        for (int port = 0; port < readPorts; port++) {
+            if (!readUsed[port]) {
+                return port;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void write(int port, int address, long data, long byteEnables) {
+        super.write(port, address, data, zeroRegister && address == 0 ? 0 : byteEnables);
+    }
+
+    @Override
+    public void clock() {
+        super.clock();
+        Arrays.fill(readUsed, false);
+    }
+
+    /**
+     * Clears every register and frees the read and write ports.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(readUsed, false);
+    }
+
+    @Override
+    public long peek(int address) {
+        return zeroRegister && address == 0 ? 0 : super.peek(address);
+    }
+
+    public void setZeroRegister(boolean zeroRegister) {
+        this.zeroRegister = zeroRegister;
+    }
+
+    public boolean isZeroRegister() {
+        return zeroRegister;
+    }
+
+    /**
+     * @param bypass Whether reads see writes pending in the same cycle.
+     */
+    public void setBypass(boolean bypass) {
+        this.bypass = bypass;
+    }
+
+    public boolean isBypass() {
+        return bypass;
+    }
+
+    public int getReadPortCount() {
+        return readPorts;
+    }
+}
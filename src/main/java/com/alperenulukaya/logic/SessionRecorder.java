@@ -0,0 +1,315 @@
+package com.alperenulukaya.logic;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records the inputs of an interactive CPU session to an append-only event log
+ * that a {@link SessionReplayer} can play back without a UI.
+ *
+ * The file starts with a 5-byte header ("CPUS" and a version byte). Each event
+ * is one type byte, the core's cycle count when the event happened as an
+ * unsigned varint, and a small fixed payload, so a single step takes two or
+ * three bytes. Every recording starts with a {@link EventType#STATE} event that
+ * captures the full machine, which makes a log self-contained even when
+ * recording begins mid-session, and lets several sessions be appended to the
+ * same file.
+ *
+ * Only inputs that change architectural state are needed for replay; run,
+ * stop and debug-stop events are logged as annotations for the reader. Events
+ * are flushed as they are written so a log survives a crash of the application.
+ * Write errors do not propagate: the first one closes the log and is reported
+ * by {@link #getFailure()}, so recording can never break the session itself.
+ */
+public class SessionRecorder implements AutoCloseable {
+
+    public enum EventType {
+        STATE(1),
+        PROGRAM(2),
+        MEMORY_EDIT(3),
+        STEP(4),
+        PIPELINE_CYCLE(5),
+        PIPELINE_DRAIN(6),
+        FORWARDING(7),
+        DISPLAY(8),
+        RUN(9),
+        STOP(10),
+        BREAKPOINT(11),
+        WATCHPOINT(12),
+        CHECKPOINT(13);
+
+        private final int code;
+
+        EventType(int code) {
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        /**
+         * @return The event type with the given code, or null if there is none.
+         */
+        public static EventType of(int code) {
+            for (EventType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    static final int MAGIC = 0x43505553; // "CPUS"
+    static final int VERSION = 1;
+
+    private final DataOutputStream out;
+    private IOException failure;
+    private boolean pipelineActive;
+    private long eventCount;
+
+    private SessionRecorder(DataOutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Opens a log for appending, writing the header if the file is new or empty.
+     * @param file The log file.
+     * @return A recorder; start it with {@link #recordState(CpuCore)}.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static SessionRecorder open(Path file) throws IOException {
+        boolean empty = !Files.exists(file) || Files.size(file) == 0;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+        SessionRecorder recorder = new SessionRecorder(out);
+        if (empty) {
+            try {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.flush();
+            } catch (IOException e) {
+                out.close();
+                throw e;
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * Records the complete state of the core. Replay restores it, empties the
+     * pipeline, unmaps the display and turns forwarding on, so record any
+     * deviation from those defaults right after this event.
+     */
+    public void recordState(CpuCore core) {
+        if (begin(EventType.STATE, core)) {
+            writeState(core);
+            pipelineActive = false;
+            end();
+        }
+    }
+
+    /**
+     * Records a reset followed by loading a program at address 0.
+     * @param program The image loaded after the reset.
+     */
+    public void recordProgram(CpuCore core, int[] program) {
+        if (begin(EventType.PROGRAM, core)) {
+            for (int address = 0; address < CpuCore.MEMORY_SIZE; address++) {
+                write(address < program.length ? program[address] : 0);
+            }
+            pipelineActive = false;
+            end();
+        }
+    }
+
+    /**
+     * Records a memory cell edited by the user. Call before the edit is applied.
+     */
+    public void recordMemoryEdit(CpuCore core, int address, int value) {
+        if (begin(EventType.MEMORY_EDIT, core)) {
+            write(address);
+            write(value);
+            end();
+        }
+    }
+
+    /**
+     * Records single-cycle execution of instructions. Call before they execute.
+     * @param count The number of instructions.
+     */
+    public void recordSteps(CpuCore core, long count) {
+        if (begin(EventType.STEP, core)) {
+            writeVarLong(count);
+            end();
+        }
+    }
+
+    /**
+     * Records one clock cycle of the {@link PipelinedCpu}. Call before the cycle.
+     */
+    public void recordPipelineCycle(CpuCore core) {
+        if (begin(EventType.PIPELINE_CYCLE, core)) {
+            pipelineActive = true;
+            end();
+        }
+    }
+
+    /**
+     * Records {@link PipelinedCpu#drain()}. Nothing is written if the pipeline
+     * has not been clocked since the last drain, as the drain then has no effect.
+     */
+    public void recordPipelineDrain(CpuCore core) {
+        if (pipelineActive && begin(EventType.PIPELINE_DRAIN, core)) {
+            pipelineActive = false;
+            end();
+        }
+    }
+
+    public void recordForwarding(CpuCore core, boolean forwarding) {
+        if (begin(EventType.FORWARDING, core)) {
+            write(forwarding ? 1 : 0);
+            end();
+        }
+    }
+
+    /**
+     * Records mapping or unmapping a {@link SevenSegmentDisplay}.
+     * @param address The cell the display is mapped at.
+     * @param mapped true if it was mapped, false if it was unmapped.
+     * @param digit The digit latched in the display, which LDA reads back.
+     */
+    public void recordDisplay(CpuCore core, int address, boolean mapped, int digit) {
+        if (begin(EventType.DISPLAY, core)) {
+            write(address);
+            write(mapped ? 1 : 0);
+            write(digit);
+            end();
+        }
+    }
+
+    public void recordRun(CpuCore core) {
+        if (begin(EventType.RUN, core)) {
+            end();
+        }
+    }
+
+    public void recordStop(CpuCore core) {
+        if (begin(EventType.STOP, core)) {
+            end();
+        }
+    }
+
+    public void recordBreakpoint(CpuCore core, int address, boolean enabled) {
+        if (begin(EventType.BREAKPOINT, core)) {
+            write(address);
+            write(enabled ? 1 : 0);
+            end();
+        }
+    }
+
+    public void recordWatchpoint(CpuCore core, int address, boolean onRead, boolean onWrite) {
+        if (begin(EventType.WATCHPOINT, core)) {
+            write(address);
+            write((onRead ? 1 : 0) | (onWrite ? 2 : 0));
+            end();
+        }
+    }
+
+    /**
+     * Records the expected state of the core. Replay fails if its state differs
+     * at this point.
+     */
+    public void recordCheckpoint(CpuCore core) {
+        if (begin(EventType.CHECKPOINT, core)) {
+            writeState(core);
+            end();
+        }
+    }
+
+    /**
+     * @return The number of events written by this recorder.
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * @return The error that stopped recording, or null while recording works.
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public void close() {
+        if (failure == null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    private void writeState(CpuCore core) {
+        write(core.pc);
+        write(core.ac);
+        write(core.ir);
+        write(core.mar);
+        write((core.zFlag ? 1 : 0) | (core.cFlag ? 2 : 0) | (core.isHalted ? 4 : 0));
+        for (int value : core.memory) {
+            write(value);
+        }
+    }
+
+    private boolean begin(EventType type, CpuCore core) {
+        if (failure != null) {
+            return false;
+        }
+        write(type.code);
+        writeVarLong(core.cycleCount);
+        return failure == null;
+    }
+
+    private void end() {
+        try {
+            out.flush();
+            eventCount++;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void write(int value) {
+        try {
+            out.writeByte(value);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        write((int) value);
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // the first failure is the one reported
+            }
+        }
+    }
+}
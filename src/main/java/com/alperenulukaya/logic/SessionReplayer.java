@@ -0,0 +1,284 @@
+package com.alperenulukaya.logic;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Plays back a log written by {@link SessionRecorder} on a fresh core, without
+ * a UI and at full speed.
+ *
+ * Before each event the replayed core's cycle count must equal the recorded
+ * one, and at every checkpoint its whole state must match, so a replay either
+ * reproduces the session exactly or reports the first event where it diverged.
+ * That makes saved sessions usable as regression tests for the execution
+ * engines and as exact reproductions of bugs found interactively.
+ */
+public class SessionReplayer {
+
+    /**
+     * The outcome of a replay.
+     */
+    public static final class Result {
+        private final long events;
+        private final long instructions;
+        private final long checkpoints;
+        private final String divergence;
+        private final CpuSnapshot finalState;
+        private final String output;
+
+        Result(long events, long instructions, long checkpoints, String divergence, CpuSnapshot finalState,
+                String output) {
+            this.events = events;
+            this.instructions = instructions;
+            this.checkpoints = checkpoints;
+            this.divergence = divergence;
+            this.finalState = finalState;
+            this.output = output;
+        }
+
+        public long getEventCount() {
+            return events;
+        }
+
+        /**
+         * @return Instructions executed by steps and pipeline cycles.
+         */
+        public long getInstructionCount() {
+            return instructions;
+        }
+
+        public long getCheckpointCount() {
+            return checkpoints;
+        }
+
+        /**
+         * @return A description of the first difference from the recording, or
+         *         null if the replay matched it throughout.
+         */
+        public String getDivergence() {
+            return divergence;
+        }
+
+        public boolean isReproduced() {
+            return divergence == null;
+        }
+
+        public CpuSnapshot getFinalState() {
+            return finalState;
+        }
+
+        /**
+         * @return Every value written by OUT, as hex digits in output order.
+         */
+        public String getOutput() {
+            return output;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d events, %d instructions, %d checkpoints: %s", events, instructions, checkpoints,
+                    divergence == null ? "reproduced" : "diverged at " + divergence);
+        }
+    }
+
+    private final CpuCore core = new CpuCore();
+    private final PipelinedCpu pipeline = new PipelinedCpu(core);
+    private final StringBuilder output = new StringBuilder();
+    private final SevenSegmentDisplay display = new SevenSegmentDisplay();
+    private long instructions;
+    private long checkpoints;
+
+    /**
+     * The replayed core writes OUT values to its display as the recorded
+     * CPUModule's core does, so LDA of the mapped display reads the same.
+     */
+    private SessionReplayer() {
+        core.getIoBus().setOutputDevice(display);
+    }
+
+    /**
+     * Replays a session log.
+     * @param file The log to replay.
+     * @return The outcome, including where the replay diverged, if it did.
+     * @throws IOException if the file cannot be read, is not a session log or is truncated.
+     */
+    public static Result replay(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            return new SessionReplayer().replay(new DataInputStream(new BufferedInputStream(stream)));
+        }
+    }
+
+    private Result replay(DataInputStream in) throws IOException {
+        if (in.readInt() != SessionRecorder.MAGIC) {
+            throw new IOException("Not a CPU session log");
+        }
+        int version = in.readUnsignedByte();
+        if (version != SessionRecorder.VERSION) {
+            throw new IOException("Unsupported session log version " + version);
+        }
+        long events = 0;
+        String divergence = null;
+        int code;
+        try {
+            while (divergence == null && (code = in.read()) >= 0) {
+                SessionRecorder.EventType type = SessionRecorder.EventType.of(code);
+                if (type == null) {
+                    throw new IOException("Unknown event type " + code + " after " + events + " events");
+                }
+                long cycle = readVarLong(in);
+                if (type != SessionRecorder.EventType.STATE && cycle != core.cycleCount) {
+                    divergence = String.format("event %d (%s): recorded at cycle %d, replay is at cycle %d",
+                            events, type, cycle, core.cycleCount);
+                } else {
+                    divergence = apply(type, cycle, in, events);
+                }
+                drainOutput();
+                events++;
+            }
+        } catch (EOFException e) {
+            throw new IOException("Session log is truncated after " + events + " events", e);
+        }
+        return new Result(events, instructions, checkpoints, divergence, CpuSnapshot.of(core), output.toString());
+    }
+
+    private void drainOutput() {
+        core.getIoBus().getOutputPort().drainTo(value -> output.append(Integer.toHexString(value).toUpperCase()));
+    }
+
+    /**
+     * Applies one event to the replayed machine.
+     * @return A description of the divergence if a checkpoint did not match, or null.
+     */
+    private String apply(SessionRecorder.EventType type, long cycle, DataInputStream in, long index)
+            throws IOException {
+        switch (type) {
+            case STATE:
+                readState(in, core);
+                core.cycleCount = cycle;
+                core.getIoBus().unmapAll();
+                pipeline.setForwarding(true);
+                pipeline.restart();
+                break;
+            case PROGRAM: {
+                int[] program = new int[CpuCore.MEMORY_SIZE];
+                for (int address = 0; address < program.length; address++) {
+                    program[address] = in.readUnsignedByte();
+                }
+                core.reset();
+                core.loadProgram(program, 0);
+                pipeline.restart();
+                break;
+            }
+            case MEMORY_EDIT: {
+                int address = in.readUnsignedByte();
+                core.setDataInMemory(address, in.readUnsignedByte());
+                break;
+            }
+            case STEP: {
+                // A long step can stall on the output port; drain it and go on, as the UI would.
+                long count = readVarLong(in);
+                long executed = 0;
+                do {
+                    executed += core.run(count - executed);
+                    drainOutput();
+                } while (executed < count && !core.isHalted);
+                instructions += executed;
+                break;
+            }
+            case PIPELINE_CYCLE: {
+                long before = core.cycleCount;
+                pipeline.cycle();
+                instructions += core.cycleCount - before;
+                break;
+            }
+            case PIPELINE_DRAIN:
+                instructions += pipeline.run(0);
+                break;
+            case FORWARDING:
+                pipeline.setForwarding(in.readUnsignedByte() != 0);
+                break;
+            case DISPLAY: {
+                int address = in.readUnsignedByte();
+                boolean mapped = in.readUnsignedByte() != 0;
+                int digit = in.readUnsignedByte();
+                core.getIoBus().unmap(display);
+                if (mapped) {
+                    // The display's contents from before the recording are not in the log.
+                    display.write(0, digit, core.cycleCount);
+                    core.getIoBus().map(address, 1, display);
+                }
+                break;
+            }
+            case BREAKPOINT:
+            case WATCHPOINT:
+                // Steps are recorded one by one, so debug stops need not be replayed.
+                in.readUnsignedByte();
+                in.readUnsignedByte();
+                break;
+            case CHECKPOINT: {
+                CpuCore expected = new CpuCore();
+                readState(in, expected);
+                checkpoints++;
+                CpuSnapshot recorded = CpuSnapshot.of(expected);
+                if (!recorded.matches(core)) {
+                    return String.format("checkpoint %d (event %d): expected %s, replay has %s",
+                            checkpoints, index, recorded, CpuSnapshot.of(core));
+                }
+                break;
+            }
+            default:
+                break; // RUN and STOP are annotations
+        }
+        return null;
+    }
+
+    private static void readState(DataInputStream in, CpuCore target) throws IOException {
+        target.reset();
+        target.pc = in.readUnsignedByte() & 0x0F;
+        target.ac = in.readUnsignedByte() & 0x0F;
+        target.ir = in.readUnsignedByte();
+        target.mar = in.readUnsignedByte() & 0x0F;
+        int flags = in.readUnsignedByte();
+        target.zFlag = (flags & 1) != 0;
+        target.cFlag = (flags & 2) != 0;
+        target.isHalted = (flags & 4) != 0;
+        for (int address = 0; address < CpuCore.MEMORY_SIZE; address++) {
+            target.writeMemory(address, in.readUnsignedByte());
+        }
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in session log");
+    }
+
+    /**
+     * Replays each log given on the command line and exits with status 1 if
+     * any of them diverges, so saved sessions can run as regression tests.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean ok = true;
+        for (String arg : args) {
+            Result result = replay(Paths.get(arg));
+            System.out.printf("%s: %s%n", arg, result);
+            System.out.printf("  final state %s, output \"%s\"%n", result.getFinalState(), result.getOutput());
+            ok &= result.isReproduced();
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
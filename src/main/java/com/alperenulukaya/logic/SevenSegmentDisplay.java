@@ -0,0 +1,41 @@
+package com.alperenulukaya.logic;
+
+/**
+ * A memory-mapped 7-segment display: a write latches a hex digit, which is
+ * decoded to segments by a {@link DisplayDriver}; a read returns the latched digit.
+ */
+public class SevenSegmentDisplay implements IoDevice {
+
+    private final DisplayDriver driver = new DisplayDriver();
+    private volatile int digit;
+    private volatile long updates;
+
+    @Override
+    public int read(int offset, long cycle) {
+        return digit;
+    }
+
+    @Override
+    public void write(int offset, int value, long cycle) {
+        digit = value & 0x0F;
+        updates++;
+    }
+
+    public int getDigit() {
+        return digit;
+    }
+
+    /**
+     * @return The segments a to g for the latched digit.
+     */
+    public boolean[] getSegments() {
+        return driver.getSegmentsFor(digit);
+    }
+
+    /**
+     * @return How many times the display was written, so viewers can skip redraws.
+     */
+    public long getUpdateCount() {
+        return updates;
+    }
+}
@@ -0,0 +1,203 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * The storage and write ports shared by {@link RegisterFile} and
+ * {@link SyncRam}: a flat array of words of up to 64 bits, one long per
+ * word, written synchronously through a fixed number of write ports.
+ *
+ * Every port serves one access per clock cycle, like the ports of a real
+ * array; using a port twice in a cycle is a wiring error and throws
+ * {@link IllegalStateException}. Writes are held on their port until
+ * {@link #clock()}, so anything read in the same cycle still sees the old
+ * contents. When two write ports write the same word in one cycle the
+ * higher-numbered port wins, and the collision is counted.
+ *
+ * Writes may carry byte enables: bit i of the enable mask lets byte i of the
+ * data through, leaving the other bytes of the word unchanged.
+ */
+public abstract class StorageArray {
+
+    /** Enables every byte of a word. */
+    public static final long ALL_BYTES = 0xFF;
+
+    // BYTE_MASKS[e]: a word mask with byte i set for every bit i set in e.
+    private static final long[] BYTE_MASKS = new long[256];
+
+    static {
+        for (int enables = 0; enables < 256; enables++) {
+            long mask = 0;
+            for (int i = 0; i < 8; i++) {
+                if ((enables >> i & 1) != 0) {
+                    mask |= 0xFFL << (8 * i);
+                }
+            }
+            BYTE_MASKS[enables] = mask;
+        }
+    }
+
+    protected final long[] words;
+    protected final int width;
+    protected final long mask;
+
+    private final int writePorts;
+    private final int[] writeAddress;
+    private final long[] writeData;
+    private final long[] writeMask;
+    private final boolean[] writePending;
+
+    private long cycleCount;
+    private long readCount;
+    private long writeCount;
+    private long writeCollisionCount;
+
+    /**
+     * @param depth The number of words, at least 1.
+     * @param width The bits per word, 1 to 64.
+     * @param writePorts The number of write ports, at least 1.
+     */
+    protected StorageArray(int depth, int width, int writePorts) {
+        if (depth < 1 || width < 1 || width > 64 || writePorts < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid array: depth %d, width %d, %d write ports", depth, width, writePorts));
+        }
+        this.words = new long[depth];
+        this.width = width;
+        this.mask = BitLanes.mask(width);
+        this.writePorts = writePorts;
+        this.writeAddress = new int[writePorts];
+        this.writeData = new long[writePorts];
+        this.writeMask = new long[writePorts];
+        this.writePending = new boolean[writePorts];
+    }
+
+    /**
+     * Drives a write port for this cycle; the word changes at the next clock.
+     */
+    public void write(int port, int address, long data) {
+        write(port, address, data, ALL_BYTES);
+    }
+
+    /**
+     * Drives a write port for this cycle with byte enables.
+     * @param byteEnables Bit i enables byte i of the word; bits for bytes beyond the width are ignored.
+     */
+    public void write(int port, int address, long data, long byteEnables) {
+        if (writePending[port]) {
+            throw new IllegalStateException("Write port " + port + " is already in use this cycle");
+        }
+        checkAddress(address);
+        writePending[port] = true;
+        writeAddress[port] = address;
+        writeData[port] = data;
+        writeMask[port] = BYTE_MASKS[(int) byteEnables & 0xFF] & mask;
+    }
+
+    /**
+     * @return Whether a write port has not been driven this cycle.
+     */
+    public boolean isWritePortFree(int port) {
+        return !writePending[port];
+    }
+
+    /**
+     * Ends the cycle: commits the pending writes in port order and frees every port.
+     */
+    public void clock() {
+        for (int port = 0; port < writePorts; port++) {
+            if (!writePending[port]) {
+                continue;
+            }
+            int address = writeAddress[port];
+            for (int other = 0; other < port; other++) {
+                if (writePending[other] && writeAddress[other] == address) {
+                    writeCollisionCount++;
+                    break;
+                }
+            }
+            words[address] = (words[address] & ~writeMask[port]) | (writeData[port] & writeMask[port]);
+            writePending[port] = false;
+            writeCount++;
+        }
+        cycleCount++;
+    }
+
+    /**
+     * @return The value a pending write on any port will give a word at the
+     *         next clock, or the current value if none is pending.
+     */
+    protected long nextValue(int address) {
+        long value = words[address];
+        for (int port = 0; port < writePorts; port++) {
+            if (writePending[port] && writeAddress[port] == address) {
+                value = (value & ~writeMask[port]) | (writeData[port] & writeMask[port]);
+            }
+        }
+        return value;
+    }
+
+    protected void countRead() {
+        readCount++;
+    }
+
+    protected void checkAddress(int address) {
+        if (address < 0 || address >= words.length) {
+            throw new IndexOutOfBoundsException("Address " + address + " outside 0.." + (words.length - 1));
+        }
+    }
+
+    /**
+     * Reads a word directly, bypassing the ports, as a debugger or loader would.
+     */
+    public long peek(int address) {
+        return words[address];
+    }
+
+    /**
+     * Writes a word directly and immediately, bypassing the ports.
+     */
+    public void poke(int address, long value) {
+        words[address] = value & mask;
+    }
+
+    /**
+     * Clears every word and cancels pending writes; the statistics are kept.
+     * Subclasses with read ports override this to free them as well.
+     */
+    public void clear() {
+        Arrays.fill(words, 0);
+        Arrays.fill(writePending, false);
+    }
+
+    public int getDepth() {
+        return words.length;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getWritePortCount() {
+        return writePorts;
+    }
+
+    public long getCycleCount() {
+        return cycleCount;
+    }
+
+    public long getReadCount() {
+        return readCount;
+    }
+
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * @return The number of writes that landed on a word another port wrote in the same cycle.
+     */
+    public long getWriteCollisionCount() {
+        return writeCollisionCount;
+    }
+}
@@ -0,0 +1,110 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * A synchronous RAM, as built from FPGA block RAM: both reads and writes are
+ * clocked. An address presented on a read port with {@link #read(int, int)}
+ * is registered at the next {@link #clock()}, after which
+ * {@link #getReadData(int)} holds the word until the port reads again.
+ *
+ * When a read and a write hit the same word in one cycle, the read returns
+ * either the word before the write or the newly written word, depending on
+ * the {@link ReadDuringWrite} mode.
+ */
+public class SyncRam extends StorageArray {
+
+    /**
+     * What a read returns when the same word is written in the same cycle.
+     */
+    public enum ReadDuringWrite {
+        OLD_DATA, NEW_DATA
+    }
+
+    private final int readPorts;
+    private final int[] readAddress;
+    private final boolean[] readPending;
+    private final long[] readData;
+    private ReadDuringWrite readDuringWrite = ReadDuringWrite.OLD_DATA;
+
+    /**
+     * @param depth The number of words, at least 1.
+     * @param width The bits per word, 1 to 64.
+     * @param readPorts The number of read ports, at least 1.
+     * @param writePorts The number of write ports, 1 or 2 as in dual-port block RAM.
+     */
+    public SyncRam(int depth, int width, int readPorts, int writePorts) {
+        super(depth, width, writePorts);
+        if (readPorts < 1 || writePorts > 2) {
+            throw new IllegalArgumentException("A RAM has at least one read port and one or two write ports");
+        }
+        this.readPorts = readPorts;
+        this.readAddress = new int[readPorts];
+        this.readPending = new boolean[readPorts];
+        this.readData = new long[readPorts];
+    }
+
+    /**
+     * Presents an address on a read port; the word is available from
+     * {@link #getReadData(int)} after the next clock.
+     * @throws IllegalStateException if the port has already been used this cycle.
+     */
+    public void read(int port, int address) {
+        if (readPending[port]) {
+            throw new IllegalStateException("Read port " + port + " is already in use this cycle");
+        }
+        checkAddress(address);
+        readPending[port] = true;
+        readAddress[port] = address;
+    }
+
+    /**
+     * @return Whether a read port has not been driven this cycle.
+     */
+    public boolean isReadPortFree(int port) {
+        return !readPending[port];
+    }
+
+    /**
+     * @return The word registered on a read port at the last clock it read.
+     */
+    public long getReadData(int port) {
+        return readData[port];
+    }
+
+    @Override
+    public void clock() {
+        boolean newData = readDuringWrite == ReadDuringWrite.NEW_DATA;
+        for (int port = 0; port < readPorts; port++) {
+            if (readPending[port]) {
+                int address = readAddress[port];
+                readData[port] = newData ? nextValue(address) : words[address];
+                readPending[port] = false;
+                countRead();
+            }
+        }
+        super.clock();
+    }
+
+    /**
+     * Clears every word and cancels pending reads and writes. The read
+     * registers keep the words they last captured.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(readPending, false);
+    }
+
+    public void setReadDuringWrite(ReadDuringWrite readDuringWrite) {
+        this.readDuringWrite = readDuringWrite;
+    }
+
+    public ReadDuringWrite getReadDuringWrite() {
+        return readDuringWrite;
+    }
+
+    public int getReadPortCount() {
+        return readPorts;
+    }
+}
@@ -0,0 +1,38 @@
+package com.alperenulukaya.logic;
+
+/**
+ * A free-running memory-mapped timer clocked by executed instructions.
+ *
+ * Offset 0 reads the low 4 bits of the count; writing it restarts the count
+ * at the written value. Offset 1 is the prescaler: the count advances once
+ * every 2^n instructions. The count is derived from the instruction counter
+ * on each access, so an idle timer costs nothing.
+ */
+public class TimerDevice implements IoDevice {
+
+    public static final int SIZE = 2;
+
+    private long startCycle;
+    private int startValue;
+    private int prescaler;
+
+    @Override
+    public int read(int offset, long cycle) {
+        if (offset == 1) {
+            return prescaler;
+        }
+        return (int) (startValue + ((cycle - startCycle) >>> prescaler)) & 0x0F;
+    }
+
+    @Override
+    public void write(int offset, int value, long cycle) {
+        int count = read(0, cycle);
+        if (offset == 1) {
+            prescaler = value & 0x0F;
+            startValue = count;
+        } else {
+            startValue = value & 0x0F;
+        }
+        startCycle = cycle;
+    }
+}
@@ -0,0 +1,193 @@
+package com.alperenulukaya.logic;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * The complete truth table of a combinational component, found by
+ * enumerating every input combination.
+ *
+ * Row r is the input combination whose bits are the bits of r, and input and
+ * output columns are listed most significant first, as a printed table reads:
+ * with inputs A, B and Cin, row 6 is A=1, B=1, Cin=0. The same convention
+ * packs a row's outputs into a number.
+ *
+ * Each output column is stored as a bitset with one bit per row, so a table
+ * with 24 inputs takes 2 MB per output. Rows are enumerated in blocks of
+ * 64-row chunks, and the blocks run in parallel once a table has more than
+ * {@link #PARALLEL_INPUTS} inputs; every block writes its own words of the
+ * bitsets, so no locking is needed. Tables of the {@link LogicComponent}s are
+ * built once and cached.
+ */
+public final class TruthTable {
+
+    public static final int MAX_INPUTS = 24;
+    public static final int PARALLEL_INPUTS = 12;
+
+    private static final int BLOCK_CHUNKS = 256;
+    private static final Map<LogicComponent, TruthTable> CACHE = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final String[] inputNames;
+    private final String[] outputNames;
+    private final long[][] columns;
+
+    private TruthTable(String name, String[] inputNames, String[] outputNames) {
+        if (inputNames.length < 1 || inputNames.length > MAX_INPUTS) {
+            throw new IllegalArgumentException("A truth table has 1 to " + MAX_INPUTS + " inputs: " + inputNames.length);
+        }
+        if (outputNames.length < 1 || outputNames.length > 64) {
+            throw new IllegalArgumentException("A truth table has 1 to 64 outputs: " + outputNames.length);
+        }
+        this.name = name;
+        this.inputNames = inputNames.clone();
+        this.outputNames = outputNames.clone();
+        this.columns = new long[outputNames.length][(int) ((getRowCount() + 63) >>> 6)];
+    }
+
+    /**
+     * @return The cached table of a component, built on first use.
+     */
+    public static TruthTable of(LogicComponent component) {
+        return CACHE.computeIfAbsent(component, LogicComponent::buildTruthTable);
+    }
+
+    /**
+     * Builds a table by evaluating a component one row at a time.
+     * @param evaluators Creates an evaluator that maps a row to its packed
+     *        outputs; each parallel block gets its own, so an evaluator may
+     *        wrap a stateful component object.
+     */
+    public static TruthTable enumerate(String name, String[] inputNames, String[] outputNames,
+            Supplier<? extends LongUnaryOperator> evaluators) {
+        TruthTable table = new TruthTable(name, inputNames, outputNames);
+        table.fill((firstChunk, lastChunk) -> {
+            LongUnaryOperator evaluator = evaluators.get();
+            long[] words = new long[outputNames.length];
+            long rows = table.getRowCount();
+            for (long chunk = firstChunk; chunk < lastChunk; chunk++) {
+                for (int lane = 0; lane < 64 && lane < rows; lane++) {
+                    long outputs = evaluator.applyAsLong(chunk << 6 | lane);
+                    for (int bit = 0; bit < words.length; bit++) {
+                        words[bit] |= (outputs >>> bit & 1) << lane;
+                    }
+                }
+                table.store(chunk, words);
+            }
+        });
+        return table;
+    }
+
+    /**
+     * Builds a table from a gate netlist, 64 rows per evaluation. Netlist
+     * input i is bit i of the row and output i is bit i of the packed
+     * outputs, so the names are those of the last input and output first.
+     */
+    public static TruthTable enumerate(String name, String[] inputNames, String[] outputNames, Netlist netlist) {
+        if (netlist.getInputCount() != inputNames.length || netlist.getOutputCount() != outputNames.length) {
+            throw new IllegalArgumentException("Names do not match the netlist's inputs and outputs");
+        }
+        TruthTable table = new TruthTable(name, inputNames, outputNames);
+        table.fill((firstChunk, lastChunk) -> {
+            long[] inputs = new long[inputNames.length];
+            long[] values = netlist.newValueBuffer();
+            long[] words = new long[outputNames.length];
+            for (long chunk = firstChunk; chunk < lastChunk; chunk++) {
+                netlist.evaluateChunk(chunk, inputs, values, words);
+                table.store(chunk, words);
+            }
+        });
+        return table;
+    }
+
+    private interface BlockFiller {
+        void fill(long firstChunk, long lastChunk);
+    }
+
+    private void fill(BlockFiller filler) {
+        long chunks = columns[0].length;
+        int blocks = (int) ((chunks + BLOCK_CHUNKS - 1) / BLOCK_CHUNKS);
+        IntStream range = IntStream.range(0, blocks);
+        if (inputNames.length > PARALLEL_INPUTS) {
+            range = range.parallel();
+        }
+        range.forEach(block -> filler.fill((long) block * BLOCK_CHUNKS,
+                Math.min(chunks, (long) (block + 1) * BLOCK_CHUNKS)));
+    }
+
+    /**
+     * Stores one chunk's output words, masking rows beyond the table, and
+     * clears the words for the next chunk.
+     */
+    private void store(long chunk, long[] words) {
+        long valid = getRowCount() >= 64 ? -1L : BitLanes.mask((int) getRowCount());
+        for (int bit = 0; bit < words.length; bit++) {
+            columns[bit][(int) chunk] = words[bit] & valid;
+            words[bit] = 0;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRowCount() {
+        return 1L << inputNames.length;
+    }
+
+    public int getInputCount() {
+        return inputNames.length;
+    }
+
+    public int getOutputCount() {
+        return outputNames.length;
+    }
+
+    public String[] getInputNames() {
+        return inputNames.clone();
+    }
+
+    public String[] getOutputNames() {
+        return outputNames.clone();
+    }
+
+    /**
+     * @param column The input column, 0 being the leftmost (most significant).
+     */
+    public boolean getInput(long row, int column) {
+        return (row >>> (inputNames.length - 1 - column) & 1) != 0;
+    }
+
+    /**
+     * @param column The output column, 0 being the leftmost (most significant).
+     */
+    public boolean getOutput(long row, int column) {
+        long[] bits = columns[outputNames.length - 1 - column];
+        return (bits[(int) (row >>> 6)] >>> row & 1) != 0;
+    }
+
+    /**
+     * @return A row's outputs packed into a number, the last output being bit 0.
+     */
+    public long getOutputs(long row) {
+        long outputs = 0;
+        for (int bit = 0; bit < columns.length; bit++) {
+            outputs |= (columns[bit][(int) (row >>> 6)] >>> row & 1) << bit;
+        }
+        return outputs;
+    }
+
+    /**
+     * @return The number of rows in which an output is 1, its minterm count.
+     */
+    public long getOnesCount(int column) {
+        long count = 0;
+        for (long word : columns[outputNames.length - 1 - column]) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,343 @@
+package com.alperenulukaya.logic;
+
+import java.util.Arrays;
+
+/**
+ * An N-bit universal shift register, the general form of
+ * {@link ShiftRegister4Bit}: serial or parallel in, serial or parallel out,
+ * shifting either way, rotating, or shifting arithmetically.
+ *
+ * The flip-flops are held as bits of long words, Q0 being bit 0 of word 0,
+ * and Q0 is the least significant bit when the contents are read as a
+ * number. "Left" is toward Q(N-1), as with the << operator, so the SISO chain
+ * of {@link ShiftRegister4Bit}, fed at Q0 and read at Q3, shifts left. Every
+ * shift works on whole words, so shifting by k positions costs the same as
+ * shifting by one, and a serial stream of any length passes through in one
+ * call of {@link #shiftLeftSerial} or {@link #shiftRightSerial}.
+ *
+ * Like the 74194, the register can also be clocked in a {@link Mode} with a
+ * serial input and parallel inputs.
+ */
+public class UniversalShiftRegister {
+
+    /**
+     * What a clock pulse does.
+     */
+    public enum Mode {
+        HOLD, SHIFT_LEFT, SHIFT_RIGHT, LOAD
+    }
+
+    private final int width;
+    private final long[] words;
+    private final long[] parallelInputs;
+    private final long lastWordMask;
+    // Scratch space for rotations and left serial streams.
+    private final long[] scratch;
+    private Mode mode = Mode.SHIFT_LEFT;
+    private boolean serialInput;
+
+    /**
+     * @param width The number of flip-flops, at least 1.
+     */
+    public UniversalShiftRegister(int width) {
+        if (width < 1) {
+            throw new IllegalArgumentException("A shift register needs at least one bit");
+        }
+        this.width = width;
+        int length = (width + 63) >>> 6;
+        this.words = new long[length];
+        this.parallelInputs = new long[length];
+        this.scratch = new long[length];
+        this.lastWordMask = BitLanes.mask(width - ((length - 1) << 6));
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets the serial data input for the next clock pulse: it enters at Q0
+     * when shifting left and at Q(N-1) when shifting right.
+     */
+    public void setSerialInput(boolean data) {
+        this.serialInput = data;
+    }
+
+    /**
+     * Sets the parallel data inputs loaded by a clock pulse in LOAD mode.
+     * @param data The inputs, bit i for D_i; bits beyond the width are ignored.
+     */
+    public void setParallelInputs(long[] data) {
+        System.arraycopy(data, 0, parallelInputs, 0, parallelInputs.length);
+        parallelInputs[parallelInputs.length - 1] &= lastWordMask;
+    }
+
+    /**
+     * Simulates a clock pulse in the current mode.
+     */
+    public void clock() {
+        switch (mode) {
+            case SHIFT_LEFT:
+                shiftLeft(1, serialInput);
+                break;
+            case SHIFT_RIGHT:
+                shiftRight(1, serialInput);
+                break;
+            case LOAD:
+                System.arraycopy(parallelInputs, 0, words, 0, words.length);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Shifts toward Q(N-1) by k positions.
+     * @param fill The value shifted in at Q0.
+     */
+    public void shiftLeft(int k, boolean fill) {
+        if (k <= 0) {
+            return;
+        }
+        shiftUp(words, Math.min(k, width));
+        if (fill) {
+            setRange(words, 0, Math.min(k, width));
+        }
+        words[words.length - 1] &= lastWordMask;
+    }
+
+    /**
+     * Shifts toward Q0 by k positions.
+     * @param fill The value shifted in at Q(N-1).
+     */
+    public void shiftRight(int k, boolean fill) {
+        if (k <= 0) {
+            return;
+        }
+        shiftDown(words, Math.min(k, width));
+        if (fill) {
+            setRange(words, Math.max(0, width - k), width);
+        }
+    }
+
+    /**
+     * Shifts by k positions, shifting in zeros: left for positive k, right for negative k.
+     */
+    public void shiftBy(int k) {
+        if (k > 0) {
+            shiftLeft(k, false);
+        } else if (k < 0) {
+            shiftRight(k == Integer.MIN_VALUE ? Integer.MAX_VALUE : -k, false);
+        }
+    }
+
+    /**
+     * Shifts toward Q0 by k positions, copying the sign bit Q(N-1) in, which
+     * divides the contents as a two's complement number by 2^k, rounding down.
+     */
+    public void shiftRightArithmetic(int k) {
+        shiftRight(k, getBit(width - 1));
+    }
+
+    /**
+     * Rotates toward Q(N-1) by k positions; Q(N-1) wraps around to Q0.
+     */
+    public void rotateLeft(int k) {
+        k = Math.floorMod(k, width);
+        if (k == 0) {
+            return;
+        }
+        System.arraycopy(words, 0, scratch, 0, words.length);
+        shiftUp(words, k);
+        shiftDown(scratch, width - k);
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= scratch[i];
+        }
+        words[words.length - 1] &= lastWordMask;
+    }
+
+    /**
+     * Rotates toward Q0 by k positions; Q0 wraps around to Q(N-1).
+     */
+    public void rotateRight(int k) {
+        rotateLeft(width - Math.floorMod(k, width));
+    }
+
+    /**
+     * Clocks a serial stream through in the right direction: each bit enters
+     * at Q(N-1) and the bit leaving Q0 goes to the serial output. Equivalent
+     * to count SHIFT_RIGHT clock pulses, but costs one word operation per 64
+     * bits. Seen as one sequence, the register's Q0 to Q(N-1) followed by the
+     * input bits, the first count bits come out and the next N bits remain.
+     * @param in The input bits; the bit at inPosition enters first.
+     * @param inPosition The bit index of the first input bit.
+     * @param count The number of bits to clock in.
+     * @param out Receives the bits shifted out in order, or null to discard them.
+     * @param outPosition The bit index in out of the first output bit.
+     */
+    public void shiftRightSerial(long[] in, long inPosition, long count, long[] out, long outPosition) {
+        if (count <= 0) {
+            return;
+        }
+        if (count >= width) {
+            if (out != null) {
+                BitLanes.copy(words, 0, out, outPosition, width);
+                BitLanes.copy(in, inPosition, out, outPosition + width, count - width);
+            }
+            BitLanes.copy(in, inPosition + count - width, words, 0, width);
+        } else {
+            int k = (int) count;
+            if (out != null) {
+                BitLanes.copy(words, 0, out, outPosition, k);
+            }
+            shiftDown(words, k);
+            BitLanes.copy(in, inPosition, words, width - k, k);
+        }
+    }
+
+    /**
+     * Clocks a serial stream through in the left direction, the way
+     * {@link ShiftRegister4Bit} is fed: each bit enters at Q0 and the bit
+     * leaving Q(N-1) goes to the serial output. The register is mirrored
+     * into scratch words with {@link Long#reverse(long)} and streamed as in
+     * {@link #shiftRightSerial}.
+     * @see #shiftRightSerial(long[], long, long, long[], long)
+     */
+    public void shiftLeftSerial(long[] in, long inPosition, long count, long[] out, long outPosition) {
+        if (count <= 0) {
+            return;
+        }
+        mirror(words, scratch);
+        System.arraycopy(scratch, 0, words, 0, words.length);
+        shiftRightSerial(in, inPosition, count, out, outPosition);
+        mirror(words, scratch);
+        System.arraycopy(scratch, 0, words, 0, words.length);
+    }
+
+    /**
+     * Loads all flip-flops at once (parallel in).
+     * @param data Bit i for Q_i; bits beyond the width are ignored.
+     */
+    public void load(long[] data) {
+        System.arraycopy(data, 0, words, 0, words.length);
+        words[words.length - 1] &= lastWordMask;
+    }
+
+    /**
+     * Loads a register of up to 64 bits from a single word.
+     */
+    public void load(long value) {
+        Arrays.fill(words, 0);
+        words[0] = words.length == 1 ? value & lastWordMask : value;
+    }
+
+    /**
+     * @return A copy of the contents (parallel out), bit i being Q_i.
+     */
+    public long[] getWords() {
+        return words.clone();
+    }
+
+    /**
+     * @return Q0 to Q63 as a word.
+     */
+    public long getValue() {
+        return words[0];
+    }
+
+    public boolean getBit(int index) {
+        return (words[index >>> 6] >>> index & 1) != 0;
+    }
+
+    /**
+     * @return The states of Q0 to Q(N-1).
+     */
+    public boolean[] getBits() {
+        boolean[] bits = new boolean[width];
+        for (int i = 0; i < width; i++) {
+            bits[i] = getBit(i);
+        }
+        return bits;
+    }
+
+    /**
+     * @return The serial output in the current direction: Q0 when shifting
+     *         right, otherwise Q(N-1).
+     */
+    public boolean getSerialOut() {
+        return getBit(mode == Mode.SHIFT_RIGHT ? 0 : width - 1);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Resets all flip-flops and inputs to 0.
+     */
+    public void reset() {
+        Arrays.fill(words, 0);
+        Arrays.fill(parallelInputs, 0);
+        serialInput = false;
+    }
+
+    /**
+     * Moves bit i to bit i + k, clearing the low k bits. Bits may move past
+     * the width; callers mask the last word.
+     */
+    private static void shiftUp(long[] w, int k) {
+        int wordShift = k >>> 6;
+        int bitShift = k & 63;
+        for (int i = w.length - 1; i >= 0; i--) {
+            int src = i - wordShift;
+            long value = src >= 0 ? w[src] << bitShift : 0;
+            if (bitShift != 0 && src > 0) {
+                value |= w[src - 1] >>> (64 - bitShift);
+            }
+            w[i] = value;
+        }
+    }
+
+    /**
+     * Moves bit i to bit i - k, clearing the top k bits of the array.
+     */
+    private static void shiftDown(long[] w, int k) {
+        int wordShift = k >>> 6;
+        int bitShift = k & 63;
+        for (int i = 0; i < w.length; i++) {
+            int src = i + wordShift;
+            long value = src < w.length ? w[src] >>> bitShift : 0;
+            if (bitShift != 0 && src + 1 < w.length) {
+                value |= w[src + 1] << (64 - bitShift);
+            }
+            w[i] = value;
+        }
+    }
+
+    /**
+     * Sets bits from (inclusive) to to (exclusive).
+     */
+    private static void setRange(long[] w, int from, int to) {
+        while (from < to) {
+            int count = Math.min(64 - (from & 63), to - from);
+            w[from >>> 6] |= BitLanes.mask(count) << (from & 63);
+            from += count;
+        }
+    }
+
+    /**
+     * Writes the register's bits in reverse order, Q(N-1) first, into target.
+     */
+    private void mirror(long[] source, long[] target) {
+        int length = source.length;
+        for (int i = 0; i < length; i++) {
+            target[length - 1 - i] = Long.reverse(source[i]);
+        }
+        // The reversed bits now end at bit 64 * length; move them down to end at the width.
+        shiftDown(target, (length << 6) - width);
+    }
+}
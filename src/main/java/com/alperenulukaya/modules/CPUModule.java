@@ -1,12 +1,31 @@
 package com.alperenulukaya.modules;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
+import com.alperenulukaya.logic.Assembler;
+import com.alperenulukaya.logic.CacheModel;
+import com.alperenulukaya.logic.CacheModel.ReplacementPolicy;
+import com.alperenulukaya.logic.CacheModel.WritePolicy;
 import com.alperenulukaya.logic.CpuCore;
 import com.alperenulukaya.logic.CpuCore.Flag;
 import com.alperenulukaya.logic.CpuCore.Register;
+import com.alperenulukaya.logic.CpuProfiler;
+import com.alperenulukaya.logic.MicrocodedControlUnit;
+import com.alperenulukaya.logic.MicrocodedControlUnit.Signal;
+import com.alperenulukaya.logic.PipelinedCpu;
+import com.alperenulukaya.logic.PipelinedCpu.SlotState;
+import com.alperenulukaya.logic.PipelinedCpu.Stage;
+import com.alperenulukaya.logic.SessionRecorder;
+import com.alperenulukaya.logic.SessionReplayer;
+import com.alperenulukaya.logic.SevenSegmentDisplay;
+import com.alperenulukaya.util.ProgramLoader;
+import com.alperenulukaya.util.TimingDiagram;
 
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
@@ -17,19 +36,31 @@ import javafx.animation.Transition;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Label;
 import javafx.scene.control.Labeled;
 import javafx.scene.control.Slider;
+import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseButton;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
+import javafx.scene.layout.Pane;
 import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.stage.FileChooser;
 import javafx.util.Duration;
 
 /**
@@ -41,16 +72,47 @@ public class CPUModule {
 
     private final BorderPane view;
     private final CpuCore cpuCore;
+    private final CpuProfiler profiler = new CpuProfiler();
+    private final PipelinedCpu pipeline;
+    private final MicrocodedControlUnit microcode;
+    private final SevenSegmentDisplay display = new SevenSegmentDisplay();
+    private final StringBuilder outputLog = new StringBuilder();
+    private final Rectangle[] segments = new Rectangle[7];
+    private long lastDisplayUpdate = -1;
     private Timeline autoRunTimeline;
+    private boolean isRunning = false;
 
     private final Map<Register, Label> registerValueLabels = new HashMap<>();
     private final Map<Flag, Circle> flagLeds = new HashMap<>();
     private final TextField[] memoryFields = new TextField[16];
     private final Label[] memoryMnemonics = new Label[16];
+    private final Tooltip[] heatTooltips = new Tooltip[16];
+    private final Label[] addressLabels = new Label[16];
+    private final Label[][] pipelineCells = new Label[Stage.values().length][PIPELINE_CHART_CYCLES];
+    private final Label[] pipelineCycleLabels = new Label[PIPELINE_CHART_CYCLES];
+    private Label pipelineStatsLabel;
+    private Button cycleButton;
     private Label outputLabel;
+    private Label outputLogLabel;
     private Label statusLabel;
-    private Button stepButton, runButton, stopButton, resetButton;
+    private Button stepButton, runButton, stopButton, resetButton, loadButton;
     private Slider speedSlider;
+    private ToggleButton heatMapButton;
+    private CheckBox microcodeBox;
+    private CheckBox cacheBox;
+    private ComboBox<String> cacheOrganizationBox;
+    private ComboBox<ReplacementPolicy> replacementBox;
+    private ComboBox<WritePolicy> writePolicyBox;
+    private Label cacheStatsLabel;
+    private CheckBox forwardingBox;
+    private CheckBox mapDisplayBox;
+    private ToggleButton recordButton;
+
+    // The session log being written, or null when not recording.
+    private SessionRecorder recorder;
+
+    // The program restored by Reset; replaced when a file is loaded.
+    private int[] currentProgram;
 
     private final String STYLE_DEFAULT = "-fx-control-inner-background: #3C3F41; -fx-text-fill: lightgreen; -fx-font-family: 'Consolas';";
     private final String STYLE_PC = "-fx-control-inner-background: #614600; -fx-text-fill: yellow; -fx-font-family: 'Consolas';";
@@ -61,8 +123,33 @@ public class CPUModule {
     private final Color HIGHLIGHT_TEXT_COLOR = Color.YELLOW;
     private final Color DEFAULT_TEXT_COLOR = Color.CYAN;
 
+    private static final int PIPELINE_CHART_CYCLES = 12;
+    private static final int OUTPUT_LOG_LENGTH = 32;
+    private static final int DISPLAY_ADDRESS = 0xF;
+    private final Color SEGMENT_ON_COLOR = Color.RED;
+    private final Color SEGMENT_OFF_COLOR = Color.rgb(60, 20, 20);
+
+    // Cache organizations offered in the UI: {sets, ways} with 2-cell lines (8 of 16 cells cached).
+    private static final String[] CACHE_ORGANIZATIONS = { "Direct-mapped", "2-way", "Fully associative" };
+    private static final int[][] CACHE_GEOMETRY = { { 4, 1 }, { 2, 2 }, { 1, 4 } };
+
+    private static final String DEFAULT_PROGRAM = String.join("\n",
+            "        LDA a    ; AC = 9",
+            "        ADD b    ; 9+8=17 -> AC=1, C=1",
+            "        OUT",
+            "        HLT",
+            "        .org 0xE",
+            "a:      .byte 9",
+            "b:      .byte 8");
+
     public CPUModule() {
         this.cpuCore = new CpuCore();
+        cpuCore.setProfiler(profiler);
+        cpuCore.getIoBus().setOutputDevice(display);
+        this.pipeline = new PipelinedCpu(cpuCore);
+        pipeline.setRecordHistory(true);
+        this.microcode = new MicrocodedControlUnit(cpuCore);
+        microcode.setTracing(true);
         this.view = new BorderPane();
         view.setPadding(new Insets(20));
         view.setStyle("-fx-background-color: #2B2B2B;");
@@ -70,8 +157,9 @@ public class CPUModule {
         view.setTop(createControlPanel());
         view.setLeft(createLeftPanel());
         view.setCenter(createMemoryPanel());
+        view.setBottom(createPipelinePanel());
 
-        loadDefaultProgram();
+        reloadProgram();
         updateUI(true, -1);
     }
 
@@ -93,17 +181,29 @@ public class CPUModule {
 
         autoRunTimeline = new Timeline();
         autoRunTimeline.setOnFinished(e -> {
-            if (!cpuCore.isHalted()) {
+            if (!isRunning) {
+                return;
+            }
+            int pc = cpuCore.getRegisterValue(Register.PC);
+            if (cpuCore.hasBreakpoint(pc)) {
+                isRunning = false;
+                setControlsDisabled(false);
+                statusLabel.setText(String.format("Breakpoint at 0x%X. Press Run to continue.", pc));
+            } else if (!cpuCore.isHalted()) {
                 animateFullCycle();
             }
         });
 
         runButton.setOnAction(e -> {
+            record(r -> r.recordRun(cpuCore));
+            isRunning = true;
             setControlsDisabled(true);
             animateFullCycle();
         });
 
         stopButton.setOnAction(e -> {
+            record(r -> r.recordStop(cpuCore));
+            isRunning = false;
             autoRunTimeline.stop();
             Node center = view.getCenter();
             if (center.getProperties().get("current_animation") instanceof Animation) {
@@ -115,8 +215,9 @@ public class CPUModule {
 
         resetButton = new Button("Reset CPU & Load Program");
         resetButton.setOnAction(e -> {
+            isRunning = false;
             autoRunTimeline.stop();
-            loadDefaultProgram();
+            reloadProgram();
             updateUI(true, -1);
             setControlsDisabled(false);
         });
@@ -124,9 +225,54 @@ public class CPUModule {
         HBox runControls = new HBox(10, runButton, stopButton, speedLabel, speedSlider);
         runControls.setAlignment(Pos.CENTER_LEFT);
 
-        HBox mainControls = new HBox(30, stepButton, runControls, resetButton);
+        loadButton = new Button("Load Program...");
+        loadButton.setOnAction(e -> loadProgramFromFile());
+
+        HBox mainControls = new HBox(30, stepButton, runControls, resetButton, loadButton);
         mainControls.setAlignment(Pos.CENTER);
-        mainControls.setPadding(new Insets(10, 0, 10, 0));
+        mainControls.setPadding(new Insets(10, 0, 0, 0));
+
+        heatMapButton = new ToggleButton("Heat Map");
+        heatMapButton.setOnAction(e -> updateUI(false, -1));
+        Button profileButton = new Button("Profile Report");
+        profileButton.setOnAction(e -> showProfileReport());
+
+        microcodeBox = new CheckBox("Microcoded");
+        microcodeBox.setTextFill(Color.WHITE);
+        Button signalsButton = new Button("Control Signals");
+        signalsButton.setOnAction(e -> showControlSignals());
+
+        cacheBox = new CheckBox("Cache");
+        cacheBox.setTextFill(Color.WHITE);
+        cacheOrganizationBox = new ComboBox<>();
+        cacheOrganizationBox.getItems().addAll(CACHE_ORGANIZATIONS);
+        cacheOrganizationBox.getSelectionModel().select(0);
+        replacementBox = new ComboBox<>();
+        replacementBox.getItems().addAll(ReplacementPolicy.values());
+        replacementBox.getSelectionModel().select(ReplacementPolicy.LRU);
+        writePolicyBox = new ComboBox<>();
+        writePolicyBox.getItems().addAll(WritePolicy.values());
+        writePolicyBox.getSelectionModel().select(WritePolicy.WRITE_BACK);
+        cacheOrganizationBox.setDisable(true);
+        replacementBox.setDisable(true);
+        writePolicyBox.setDisable(true);
+        cacheBox.setOnAction(e -> configureCache());
+        cacheOrganizationBox.setOnAction(e -> configureCache());
+        replacementBox.setOnAction(e -> configureCache());
+        writePolicyBox.setOnAction(e -> configureCache());
+
+        recordButton = new ToggleButton("Record Session");
+        recordButton.setOnAction(e -> toggleRecording());
+        Button replayButton = new Button("Replay Session...");
+        replayButton.setOnAction(e -> replaySession());
+
+        HBox toolControls = new HBox(15, heatMapButton, profileButton, microcodeBox, signalsButton, cacheBox, cacheOrganizationBox,
+                replacementBox, writePolicyBox, recordButton, replayButton);
+        toolControls.setAlignment(Pos.CENTER);
+
+        cacheStatsLabel = new Label();
+        cacheStatsLabel.setFont(Font.font("Consolas", 12));
+        cacheStatsLabel.setTextFill(Color.LIGHTGRAY);
 
         statusLabel = new Label();
         statusLabel.setFont(Font.font("Consolas", 14));
@@ -136,7 +282,7 @@ public class CPUModule {
         statusLabel.setMinWidth(600);
         statusLabel.setAlignment(Pos.CENTER);
 
-        VBox controlBox = new VBox(10, title, mainControls, statusLabel);
+        VBox controlBox = new VBox(10, title, mainControls, toolControls, cacheStatsLabel, statusLabel);
         controlBox.setAlignment(Pos.CENTER);
         return controlBox;
     }
@@ -184,7 +330,26 @@ public class CPUModule {
         outputLabel = new Label(" ");
         outputLabel.setFont(Font.font("Consolas", FontWeight.BOLD, 48));
         outputLabel.setTextFill(Color.YELLOW);
-        VBox outputDisplayBox = new VBox(5, outHeader, outputLabel);
+        outputLogLabel = new Label();
+        outputLogLabel.setFont(Font.font("Consolas", 12));
+        outputLogLabel.setTextFill(Color.LIGHTGRAY);
+        outputLogLabel.setWrapText(true);
+        outputLogLabel.setMaxWidth(220);
+
+        mapDisplayBox = new CheckBox(String.format("Map display at 0x%X", DISPLAY_ADDRESS));
+        mapDisplayBox.setTextFill(Color.WHITE);
+        mapDisplayBox.setOnAction(e -> {
+            record(r -> r.recordDisplay(cpuCore, DISPLAY_ADDRESS, mapDisplayBox.isSelected(), display.getDigit()));
+            if (mapDisplayBox.isSelected()) {
+                cpuCore.getIoBus().map(DISPLAY_ADDRESS, 1, display);
+            } else {
+                cpuCore.getIoBus().unmap(display);
+            }
+        });
+
+        HBox outputRow = new HBox(20, outputLabel, createSevenSegmentDisplay());
+        outputRow.setAlignment(Pos.CENTER);
+        VBox outputDisplayBox = new VBox(5, outHeader, outputRow, outputLogLabel, mapDisplayBox);
         outputDisplayBox.setAlignment(Pos.CENTER);
         outputDisplayBox.setPadding(new Insets(10));
         outputDisplayBox.setStyle("-fx-border-color: #555; -fx-border-width: 2; -fx-border-radius: 5;");
@@ -208,9 +373,17 @@ public class CPUModule {
         Pattern binaryPattern = Pattern.compile("[01]{1,8}");
         for (int i = 0; i < 16; i++) {
             final int address = i;
-            Label addressLabel = new Label(String.format("0x%X:", address));
+            Label addressLabel = new Label();
             addressLabel.setFont(Font.font("Consolas", FontWeight.BOLD, 14));
-            addressLabel.setTextFill(Color.GRAY);
+            addressLabel.setOnMouseClicked(e -> {
+                if (e.getButton() == MouseButton.PRIMARY) {
+                    record(r -> r.recordBreakpoint(cpuCore, address, !cpuCore.hasBreakpoint(address)));
+                    cpuCore.setBreakpoint(address, !cpuCore.hasBreakpoint(address));
+                    updateDebugMarkers();
+                }
+            });
+            addressLabel.setContextMenu(createWatchMenu(address));
+            addressLabels[i] = addressLabel;
 
             TextField valueField = new TextField();
             valueField.setFont(Font.font("Consolas", 14));
@@ -220,7 +393,11 @@ public class CPUModule {
                 if (!newVal) {
                     String text = valueField.getText().replace(" ", "");
                     if (binaryPattern.matcher(text).matches()) {
-                        cpuCore.setDataInMemory(address, Integer.parseInt(text, 2));
+                        int value = Integer.parseInt(text, 2);
+                        record(r -> r.recordPipelineDrain(cpuCore));
+                        pipeline.drain();
+                        record(r -> r.recordMemoryEdit(cpuCore, address, value));
+                        cpuCore.setDataInMemory(address, value);
                     }
                     updateUI(false, -1);
                 }
@@ -235,14 +412,118 @@ public class CPUModule {
             grid.add(mnemonicLabel, (i % 2) * 4 + 2, i / 2);
             memoryFields[i] = valueField;
             memoryMnemonics[i] = mnemonicLabel;
+            heatTooltips[i] = new Tooltip();
         }
 
-        VBox memoryBox = new VBox(10, header, grid);
+        Label debugHint = new Label("Click an address to toggle a breakpoint; right-click to watch reads/writes.");
+        debugHint.setFont(Font.font("Consolas", 12));
+        debugHint.setTextFill(Color.GRAY);
+
+        updateDebugMarkers();
+        VBox memoryBox = new VBox(10, header, grid, debugHint);
         memoryBox.setAlignment(Pos.TOP_CENTER);
         return memoryBox;
     }
 
+    private Node createPipelinePanel() {
+        Label header = new Label("Pipeline (IF ID MEM EX WB)");
+        header.setFont(Font.font("Consolas", FontWeight.BOLD, 18));
+        header.setTextFill(Color.ORANGE);
+
+        cycleButton = new Button("Clock Cycle");
+        cycleButton.setOnAction(e -> {
+            if (!cpuCore.isHalted()) {
+                record(r -> r.recordPipelineCycle(cpuCore));
+            }
+            pipeline.cycle();
+            updateUI(false, -1);
+        });
+        forwardingBox = new CheckBox("Forwarding");
+        forwardingBox.setSelected(pipeline.isForwarding());
+        forwardingBox.setTextFill(Color.WHITE);
+        forwardingBox.setOnAction(e -> {
+            record(r -> r.recordForwarding(cpuCore, forwardingBox.isSelected()));
+            pipeline.setForwarding(forwardingBox.isSelected());
+        });
+
+        pipelineStatsLabel = new Label();
+        pipelineStatsLabel.setFont(Font.font("Consolas", 12));
+        pipelineStatsLabel.setTextFill(Color.LIGHTGRAY);
+
+        HBox pipelineControls = new HBox(15, header, cycleButton, forwardingBox, pipelineStatsLabel);
+        pipelineControls.setAlignment(Pos.CENTER_LEFT);
+
+        // One row per stage, one column per cycle, oldest cycle on the left.
+        GridPane chart = new GridPane();
+        chart.setHgap(2);
+        chart.setVgap(2);
+        for (int column = 0; column < PIPELINE_CHART_CYCLES; column++) {
+            Label cycleLabel = new Label();
+            cycleLabel.setFont(Font.font("Consolas", 11));
+            cycleLabel.setTextFill(Color.GRAY);
+            pipelineCycleLabels[column] = cycleLabel;
+            chart.add(cycleLabel, column + 1, 0);
+        }
+        for (Stage stage : Stage.values()) {
+            Label stageLabel = new Label(stage.name());
+            stageLabel.setFont(Font.font("Consolas", FontWeight.BOLD, 12));
+            stageLabel.setTextFill(Color.LIGHTGRAY);
+            chart.add(stageLabel, 0, stage.ordinal() + 1);
+            for (int column = 0; column < PIPELINE_CHART_CYCLES; column++) {
+                Label cell = new Label();
+                cell.setFont(Font.font("Consolas", 11));
+                cell.setMinWidth(72);
+                cell.setAlignment(Pos.CENTER);
+                pipelineCells[stage.ordinal()][column] = cell;
+                chart.add(cell, column + 1, stage.ordinal() + 1);
+            }
+        }
+
+        VBox pipelineBox = new VBox(8, pipelineControls, chart);
+        pipelineBox.setPadding(new Insets(10));
+        pipelineBox.setStyle("-fx-border-color: #555; -fx-border-width: 2; -fx-border-radius: 5;");
+        BorderPane.setMargin(pipelineBox, new Insets(15, 0, 0, 0));
+        return pipelineBox;
+    }
+
+    private void updatePipelineChart() {
+        long cycles = pipeline.getCycles();
+        for (int column = 0; column < PIPELINE_CHART_CYCLES; column++) {
+            int cyclesAgo = PIPELINE_CHART_CYCLES - 1 - column;
+            pipelineCycleLabels[column].setText(cycles > cyclesAgo ? "c" + (cycles - cyclesAgo) : "");
+            for (Stage stage : Stage.values()) {
+                Label cell = pipelineCells[stage.ordinal()][column];
+                SlotState state = pipeline.getSlotState(cyclesAgo, stage);
+                String text = pipeline.getSlotText(cyclesAgo, stage);
+                switch (state) {
+                    case BUSY:
+                        cell.setText(text);
+                        cell.setStyle("-fx-background-color: #2E4E2E; -fx-text-fill: lightgreen;");
+                        break;
+                    case STALLED:
+                        cell.setText(text.isEmpty() ? "stall" : text);
+                        cell.setStyle("-fx-background-color: #614600; -fx-text-fill: yellow;");
+                        break;
+                    case SQUASHED:
+                        cell.setText("x " + text);
+                        cell.setStyle("-fx-background-color: #600030; -fx-text-fill: pink;");
+                        break;
+                    default:
+                        cell.setText("");
+                        cell.setStyle("-fx-background-color: #3C3F41;");
+                        break;
+                }
+            }
+        }
+        pipelineStatsLabel.setText(String.format("cycle %d, retired %d, CPI %.2f | stalls: data %d, memory port %d | flushed %d",
+                cycles, pipeline.getRetiredCount(), pipeline.getCpi(), pipeline.getDataStallCycles(),
+                pipeline.getStructuralStallCycles(), pipeline.getFlushedCount()));
+    }
+
     private void animateFullCycle() {
+        // The single-cycle datapath continues from wherever the pipeline retired to.
+        record(r -> r.recordPipelineDrain(cpuCore));
+        pipeline.drain();
         if (cpuCore.isHalted()) {
             setControlsDisabled(false);
             statusLabel.setText("CPU is Halted. Press Reset to restart.");
@@ -260,7 +541,12 @@ public class CPUModule {
                 updateHighlight(registerValueLabels.get(Register.IR), HIGHLIGHT_TEXT_COLOR),
                 pause(250),
                 update(() -> {
-                    cpuCore.step();
+                    record(r -> r.recordSteps(cpuCore, 1));
+                    if (microcodeBox.isSelected()) {
+                        microcode.run(1);
+                    } else {
+                        cpuCore.step();
+                    }
                     updateAllRegistersAndFlags();
                 }),
                 pause(250),
@@ -283,11 +569,17 @@ public class CPUModule {
 
         view.getCenter().getProperties().put("current_animation", animation);
         animation.setOnFinished(e -> {
-            if (autoRunTimeline.getStatus() == Animation.Status.RUNNING) {
+            String stopReason = cpuCore.getStopReason();
+            if (stopReason != null) {
+                isRunning = false;
+                statusLabel.setText(stopReason + " Press Run to continue.");
+            }
+            if (isRunning && !cpuCore.isHalted()) {
                 double delay = 1200 / speedSlider.getValue();
                 autoRunTimeline.getKeyFrames().setAll(new KeyFrame(Duration.millis(delay)));
                 autoRunTimeline.playFromStart();
             } else {
+                isRunning = false;
                 setControlsDisabled(false);
             }
         });
@@ -298,6 +590,7 @@ public class CPUModule {
     private void updateUI(boolean isReset, int lastPC) {
         if (isReset) {
             outputLabel.setText(" ");
+            outputLog.setLength(0);
         }
         updateAllRegistersAndFlags();
 
@@ -308,21 +601,143 @@ public class CPUModule {
             memoryFields[i].setText(formatValue(memoryState[i], 8));
             memoryMnemonics[i].setText("(" + CpuCore.disassemble(memoryState[i]) + ")");
             if (i != lastPC) {
-                memoryFields[i].setStyle(STYLE_DEFAULT);
+                memoryFields[i].setStyle(memoryStyle(i));
+            }
+            if (heatMapButton.isSelected()) {
+                heatTooltips[i].setText(heatDetails(i));
+                memoryFields[i].setTooltip(heatTooltips[i]);
+            } else {
+                memoryFields[i].setTooltip(null);
             }
         }
 
         if (!cpuCore.isHalted()) {
             memoryFields[currentPC].setStyle(STYLE_PC);
         } else if (lastPC != -1) {
-            memoryFields[lastPC].setStyle(STYLE_DEFAULT);
+            memoryFields[lastPC].setStyle(memoryStyle(lastPC));
         }
 
-        String output = cpuCore.getLastOutput();
-        if (!output.trim().isEmpty()) {
-            outputLabel.setText(output);
-        }
+        drainOutput();
         statusLabel.setText(cpuCore.getLastActionDescription());
+        updatePipelineChart();
+        updateCacheStats();
+    }
+
+    /**
+     * Replaces the attached cache with one built from the current selection,
+     * or detaches it when the cache is switched off.
+     */
+    private void configureCache() {
+        boolean enabled = cacheBox.isSelected();
+        cacheOrganizationBox.setDisable(!enabled);
+        replacementBox.setDisable(!enabled);
+        writePolicyBox.setDisable(!enabled);
+        if (enabled) {
+            int[] geometry = CACHE_GEOMETRY[cacheOrganizationBox.getSelectionModel().getSelectedIndex()];
+            cpuCore.setCache(new CacheModel(geometry[0], geometry[1], 2, replacementBox.getValue(), writePolicyBox.getValue()));
+        } else {
+            cpuCore.setCache(null);
+        }
+        updateCacheStats();
+    }
+
+    private void updateCacheStats() {
+        CacheModel cache = cpuCore.getCache();
+        cacheStatsLabel.setText(cache == null ? "Cache off: every access goes to memory."
+                : cache.getDescription() + " | " + cache.getStats());
+        for (int i = 0; i < 16; i++) {
+            memoryMnemonics[i].setTextFill(cache != null && cache.contains(i) ? Color.LIGHTSKYBLUE : Color.DARKGRAY);
+        }
+    }
+
+    private Node createSevenSegmentDisplay() {
+        final double segWidth = 30, segHeight = 6;
+        Pane displayPane = new Pane();
+        displayPane.setPrefSize(segWidth + 2 * segHeight + 4, 2 * segWidth + 3 * segHeight + 4);
+        double[][] positions = {
+            {segHeight + 2, 2},
+            {segWidth + segHeight + 2, segHeight + 2},
+            {segWidth + segHeight + 2, segWidth + 2 * segHeight + 2},
+            {segHeight + 2, 2 * segWidth + 2 * segHeight + 2},
+            {2, segWidth + 2 * segHeight + 2},
+            {2, segHeight + 2},
+            {segHeight + 2, segWidth + segHeight + 2}
+        };
+        for (int i = 0; i < 7; i++) {
+            boolean isHorizontal = (i == 0 || i == 3 || i == 6);
+            segments[i] = new Rectangle(isHorizontal ? segWidth : segHeight, isHorizontal ? segHeight : segWidth);
+            segments[i].setFill(SEGMENT_OFF_COLOR);
+            segments[i].setArcWidth(4);
+            segments[i].setArcHeight(4);
+            segments[i].relocate(positions[i][0], positions[i][1]);
+            displayPane.getChildren().add(segments[i]);
+        }
+        return displayPane;
+    }
+
+    /**
+     * Takes every value OUT produced since the last refresh, so none are lost
+     * when several instructions run between frames, and redraws the 7-segment
+     * display if it changed. The core writes the display itself on OUT (and
+     * on STA while it is mapped); this only reads it.
+     */
+    private void drainOutput() {
+        int[] last = { -1 };
+        int drained = cpuCore.getIoBus().getOutputPort().drainTo(value -> {
+            outputLog.append(value).append(' ');
+            last[0] = value;
+        });
+        if (drained > 0) {
+            outputLabel.setText(String.valueOf(last[0]));
+            if (outputLog.length() > 2 * OUTPUT_LOG_LENGTH) {
+                outputLog.delete(0, outputLog.length() - 2 * OUTPUT_LOG_LENGTH);
+            }
+        }
+        outputLogLabel.setText("Log: " + outputLog);
+        if (display.getUpdateCount() != lastDisplayUpdate) {
+            lastDisplayUpdate = display.getUpdateCount();
+            boolean[] lit = display.getSegments();
+            for (int i = 0; i < 7; i++) {
+                segments[i].setFill(lit[i] ? SEGMENT_ON_COLOR : SEGMENT_OFF_COLOR);
+            }
+        }
+    }
+
+    private ContextMenu createWatchMenu(int address) {
+        CheckMenuItem breakItem = new CheckMenuItem("Breakpoint");
+        CheckMenuItem readItem = new CheckMenuItem("Watch reads");
+        CheckMenuItem writeItem = new CheckMenuItem("Watch writes");
+        ContextMenu menu = new ContextMenu(breakItem, readItem, writeItem);
+        menu.setOnShowing(e -> {
+            breakItem.setSelected(cpuCore.hasBreakpoint(address));
+            readItem.setSelected(cpuCore.hasReadWatchpoint(address));
+            writeItem.setSelected(cpuCore.hasWriteWatchpoint(address));
+        });
+        breakItem.setOnAction(e -> {
+            record(r -> r.recordBreakpoint(cpuCore, address, breakItem.isSelected()));
+            cpuCore.setBreakpoint(address, breakItem.isSelected());
+            updateDebugMarkers();
+        });
+        readItem.setOnAction(e -> {
+            record(r -> r.recordWatchpoint(cpuCore, address, readItem.isSelected(), cpuCore.hasWriteWatchpoint(address)));
+            cpuCore.setWatchpoint(address, readItem.isSelected(), cpuCore.hasWriteWatchpoint(address));
+            updateDebugMarkers();
+        });
+        writeItem.setOnAction(e -> {
+            record(r -> r.recordWatchpoint(cpuCore, address, cpuCore.hasReadWatchpoint(address), writeItem.isSelected()));
+            cpuCore.setWatchpoint(address, cpuCore.hasReadWatchpoint(address), writeItem.isSelected());
+            updateDebugMarkers();
+        });
+        return menu;
+    }
+
+    private void updateDebugMarkers() {
+        for (int i = 0; i < 16; i++) {
+            boolean breakpoint = cpuCore.hasBreakpoint(i);
+            String watch = (cpuCore.hasReadWatchpoint(i) ? "r" : "") + (cpuCore.hasWriteWatchpoint(i) ? "w" : "");
+            addressLabels[i].setText(String.format("%s0x%X%-2s:", breakpoint ? "\u25CF" : " ", i, watch));
+            addressLabels[i].setTextFill(breakpoint ? Color.RED : (watch.isEmpty() ? Color.GRAY : Color.ORANGE));
+        }
     }
 
     private void updateAllRegistersAndFlags() {
@@ -389,6 +804,8 @@ public class CPUModule {
         stepButton.setDisable(disabled);
         runButton.setDisable(disabled);
         resetButton.setDisable(disabled);
+        loadButton.setDisable(disabled);
+        cycleButton.setDisable(disabled);
         stopButton.setDisable(!disabled);
     }
 
@@ -397,17 +814,199 @@ public class CPUModule {
         return (bits == 8) ? padded.substring(0, 4) + " " + padded.substring(4) : padded;
     }
 
-    private void loadDefaultProgram() {
+    private void reloadProgram() {
+        if (currentProgram == null) {
+            currentProgram = new Assembler().assemble(DEFAULT_PROGRAM);
+        }
+        record(r -> r.recordProgram(cpuCore, currentProgram));
         cpuCore.reset();
-        cpuCore.setDataInMemory(14, 9);
-        cpuCore.setDataInMemory(15, 8);
-        int[] program = {
-            0b00011110, // LDA E (14)
-            0b00101111, // ADD F (15) -> 9+8=17. AC=1, C=1
-            0b01000000, // OUT
-            0b11110000 // HLT
-        };
-        cpuCore.loadProgram(program, 0);
+        profiler.reset();
+        cpuCore.loadProgram(currentProgram, 0);
+        cpuCore.getIoBus().getOutputPort().clear();
+        pipeline.restart();
+        pipeline.resetStatistics();
+        microcode.resetStatistics();
+        microcode.setTracing(true);
+        CacheModel cache = cpuCore.getCache();
+        if (cache != null) {
+            cache.invalidate();
+            cache.resetStatistics();
+        }
+    }
+
+    /**
+     * The resting style of a memory cell: plain, or tinted by activity when the
+     * heat map is on (log scale, so rarely used cells remain visible).
+     */
+    private String memoryStyle(int address) {
+        if (!heatMapButton.isSelected()) {
+            return STYLE_DEFAULT;
+        }
+        long max = 0;
+        for (int i = 0; i < 16; i++) {
+            max = Math.max(max, profiler.getHeat(i));
+        }
+        double intensity = max == 0 ? 0 : Math.log1p(profiler.getHeat(address)) / Math.log1p(max);
+        Color heat = Color.web("#3C3F41").interpolate(Color.web("#B22222"), intensity);
+        return String.format("-fx-control-inner-background: #%02X%02X%02X; -fx-text-fill: lightgreen; -fx-font-family: 'Consolas';",
+                (int) (heat.getRed() * 255), (int) (heat.getGreen() * 255), (int) (heat.getBlue() * 255));
+    }
+
+    private String heatDetails(int address) {
+        return String.format("Executed %d times%nRead %d times%nWritten %d times",
+                profiler.getExecutionCount(address), profiler.getReadCount(address),
+                profiler.getWriteCount(address));
+    }
+
+    private void showProfileReport() {
+        TextArea reportArea = new TextArea(profiler.getReport());
+        reportArea.setEditable(false);
+        reportArea.setFont(Font.font("Consolas", 13));
+        reportArea.setPrefSize(520, 480);
+
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("CPU Profile");
+        alert.setHeaderText("Execution profile since the last reset");
+        alert.getDialogPane().setContent(reportArea);
+        alert.showAndWait();
+    }
+
+    /**
+     * Shows the control words of the most recent micro-cycles as a timing diagram.
+     */
+    private void showControlSignals() {
+        int[] trace = microcode.getTrace();
+        String[] names = new String[Signal.values().length];
+        for (Signal signal : Signal.values()) {
+            names[signal.ordinal()] = signal.getLabel();
+        }
+        TimingDiagram diagram = new TimingDiagram(80 + MicrocodedControlUnit.TRACE_LENGTH * 25, names);
+        for (int word : trace) {
+            Map<String, Boolean> states = new LinkedHashMap<>();
+            for (Signal signal : Signal.values()) {
+                states.put(signal.getLabel(), (word & signal.mask()) != 0);
+            }
+            diagram.addState(states);
+        }
+
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Microcode Control Signals");
+        alert.setHeaderText(trace.length == 0 ? "No micro-cycles yet: tick \"Microcoded\" and step the CPU."
+                : "Last " + trace.length + " micro-cycles. " + microcode.getStats());
+        alert.getDialogPane().setContent(diagram.getCanvas());
+        alert.showAndWait();
+    }
+
+    /**
+     * Passes an event to the session recorder, if recording. A write error ends
+     * the recording but never the session.
+     */
+    private void record(Consumer<SessionRecorder> event) {
+        if (recorder == null) {
+            return;
+        }
+        event.accept(recorder);
+        if (recorder.getFailure() != null) {
+            statusLabel.setText("Recording stopped: " + recorder.getFailure().getMessage());
+            recorder = null;
+            recordButton.setSelected(false);
+        }
+    }
+
+    /**
+     * Starts recording to a chosen log file, or ends the recording with a
+     * checkpoint of the final state. A new recording starts from a drained
+     * pipeline so the log holds the complete machine state.
+     */
+    private void toggleRecording() {
+        if (recorder != null) {
+            record(r -> r.recordPipelineDrain(cpuCore));
+            pipeline.drain();
+            record(r -> r.recordCheckpoint(cpuCore));
+            if (recorder != null) {
+                recorder.close();
+                statusLabel.setText("Recorded " + recorder.getEventCount() + " events.");
+                recorder = null;
+            }
+            updateUI(false, -1);
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Record Session To");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CPU Session Log (*.cpulog)", "*.cpulog"));
+        File file = chooser.showSaveDialog(view.getScene().getWindow());
+        if (file == null) {
+            recordButton.setSelected(false);
+            return;
+        }
+        try {
+            recorder = SessionRecorder.open(file.toPath());
+        } catch (IOException ex) {
+            recordButton.setSelected(false);
+            statusLabel.setText("Could not record to " + file.getName() + ": " + ex.getMessage());
+            return;
+        }
+        pipeline.drain();
+        pipeline.restart();
+        record(r -> r.recordState(cpuCore));
+        if (!forwardingBox.isSelected()) {
+            record(r -> r.recordForwarding(cpuCore, false));
+        }
+        if (mapDisplayBox.isSelected()) {
+            record(r -> r.recordDisplay(cpuCore, DISPLAY_ADDRESS, true, display.getDigit()));
+        }
+        updateUI(false, -1);
+        statusLabel.setText("Recording to " + file.getName() + ".");
+    }
+
+    private void replaySession() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Replay Session");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CPU Session Log (*.cpulog)", "*.cpulog"),
+                new FileChooser.ExtensionFilter("All Files", "*.*"));
+        File file = chooser.showOpenDialog(view.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        try {
+            SessionReplayer.Result result = SessionReplayer.replay(file.toPath());
+            TextArea reportArea = new TextArea(String.format("%s%n%nFinal state:%n%s%n%nOutput: %s", result,
+                    result.getFinalState(), result.getOutput()));
+            reportArea.setEditable(false);
+            reportArea.setWrapText(true);
+            reportArea.setFont(Font.font("Consolas", 13));
+            reportArea.setPrefSize(520, 240);
+
+            Alert alert = new Alert(result.isReproduced() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
+            alert.setTitle("Session Replay");
+            alert.setHeaderText(file.getName() + (result.isReproduced() ? " replayed exactly." : " did not replay exactly."));
+            alert.getDialogPane().setContent(reportArea);
+            alert.showAndWait();
+        } catch (IOException ex) {
+            statusLabel.setText("Could not replay " + file.getName() + ": " + ex.getMessage());
+        }
+    }
+
+    private void loadProgramFromFile() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Load CPU Program");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Assembly Source (*.asm)", "*.asm"),
+                new FileChooser.ExtensionFilter("Memory Image (*.bin)", "*.bin"),
+                new FileChooser.ExtensionFilter("All Files", "*.*"));
+        File file = chooser.showOpenDialog(view.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        try {
+            currentProgram = ProgramLoader.readProgram(file.toPath());
+            reloadProgram();
+            updateUI(true, -1);
+            statusLabel.setText("Loaded " + file.getName() + ".");
+        } catch (IOException | IllegalArgumentException ex) {
+            statusLabel.setText("Could not load " + file.getName() + ": " + ex.getMessage());
+        }
     }
 
     public Node getView() {
@@ -418,5 +1017,9 @@ public class CPUModule {
         if (autoRunTimeline != null) {
             autoRunTimeline.stop();
         }
+        if (recorder != null) {
+            recorder.close();
+            recorder = null;
+        }
     }
 }
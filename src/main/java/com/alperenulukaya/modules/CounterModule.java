@@ -1,10 +1,9 @@
 package com.alperenulukaya.modules;
 
-import com.alperenulukaya.logic.Counter4Bit;
+import com.alperenulukaya.logic.Counter;
 import com.alperenulukaya.logic.DisplayDriver;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -20,30 +19,45 @@ import javafx.scene.shape.Line;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
-import javafx.util.Duration;
 
 /**
  * A self-contained module for the 4-Bit Up/Down Counter simulation. It handles
  * its own UI, logic, and animation.
+ *
+ * The auto-clock runs at a simulated rate from 0.5 Hz to 10 MHz. Each frame
+ * the ticks due since the last one are applied in a single
+ * {@link Counter#clock(long)} call, so high rates cost no more than low ones.
  */
 public class CounterModule {
 
     private VBox view; // The main UI node for this module
 
     // --- Core Simulation Objects ---
-    private final Counter4Bit counter = new Counter4Bit();
+    private final Counter counter = Counter.binary(4);
     private final DisplayDriver driver = new DisplayDriver();
 
     // --- UI Elements ---
     private final Circle[] leds = new Circle[4];
     private final Rectangle[] segments = new Rectangle[7];
     private final Line[] circuitLines = new Line[3];
-    private Label binaryLabel, decimalLabel, hexLabel;
+    private Label binaryLabel, decimalLabel, hexLabel, rateLabel, ticksLabel;
     private Button modeButton, autoClockButton;
 
     // --- Animation and State ---
-    private Timeline autoClockTimeline;
+    private static final double MIN_RATE_HZ = 0.5;
+    private static final double MAX_RATE_HZ = 10_000_000;
+    private final AnimationTimer autoClockTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            advanceAutoClock(now);
+        }
+    };
     private boolean isAutoClockRunning = false;
+    private double clockRateHz = 1.0;
+    private long lastFrameNanos;
+    // Ticks due but not yet applied, carried between frames at low rates.
+    private double pendingTicks;
+    private long totalTicks;
 
     // --- UI Constants ---
     private final Color LED_ON_COLOR = Color.LIMEGREEN;
@@ -64,7 +78,6 @@ public class CounterModule {
 
         view.getChildren().addAll(title, displayArea, controlArea);
 
-        setupAutoClock(1.0);
         updateUI();
     }
 
@@ -73,9 +86,7 @@ public class CounterModule {
     }
 
     public void stopTimeline() {
-        if (autoClockTimeline != null) {
-            autoClockTimeline.stop();
-        }
+        autoClockTimer.stop();
     }
 
     // --- UI Creation Methods ---
@@ -208,56 +219,83 @@ public class CounterModule {
         HBox topControlRow = new HBox(30, clockButton, resetButton, modeButton);
         topControlRow.setAlignment(Pos.CENTER);
 
-        Label speedLabel = new Label("Speed (Hz):");
+        Label speedLabel = new Label("Speed:");
         speedLabel.setTextFill(Color.WHITE);
-        Slider speedSlider = new Slider(0.5, 10, 1);
-        speedSlider.setPrefWidth(200);
-        speedSlider.setShowTickLabels(true);
+        // The slider is logarithmic: its value is log10 of the rate in Hz.
+        Slider speedSlider = new Slider(Math.log10(MIN_RATE_HZ), Math.log10(MAX_RATE_HZ), 0);
+        speedSlider.setPrefWidth(300);
         speedSlider.setShowTickMarks(true);
-        speedSlider.setMajorTickUnit(2.5);
-        speedSlider.setBlockIncrement(0.5);
-        speedSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
-            setupAutoClock(newVal.doubleValue());
-            if (isAutoClockRunning) {
-                autoClockTimeline.play();
-            }
-        });
-
-        HBox bottomControlRow = new HBox(15, autoClockButton, speedLabel, speedSlider);
+        speedSlider.setMajorTickUnit(1);
+        speedSlider.setBlockIncrement(0.25);
+        speedSlider.valueProperty().addListener((obs, oldVal, newVal) -> setClockRate(Math.pow(10, newVal.doubleValue())));
+
+        rateLabel = new Label();
+        rateLabel.setTextFill(Color.WHITE);
+        rateLabel.setFont(Font.font("Consolas", FontWeight.BOLD, 14));
+        rateLabel.setMinWidth(90);
+        ticksLabel = new Label();
+        ticksLabel.setTextFill(Color.WHITE);
+        ticksLabel.setFont(Font.font("Consolas", FontWeight.BOLD, 14));
+        setClockRate(1.0);
+
+        HBox bottomControlRow = new HBox(15, autoClockButton, speedLabel, speedSlider, rateLabel);
         bottomControlRow.setAlignment(Pos.CENTER);
 
-        VBox controlBox = new VBox(20, topControlRow, bottomControlRow);
+        VBox controlBox = new VBox(20, topControlRow, bottomControlRow, ticksLabel);
         controlBox.setAlignment(Pos.CENTER);
         controlBox.setPadding(new Insets(30, 0, 0, 0));
         return controlBox;
     }
 
     // --- Event Handlers and Logic ---
-    private void setupAutoClock(double hertz) {
-        if (autoClockTimeline != null) {
-            autoClockTimeline.stop();
+    private void setClockRate(double hertz) {
+        clockRateHz = hertz;
+        if (hertz >= 1e6) {
+            rateLabel.setText(String.format("%.2f MHz", hertz / 1e6));
+        } else if (hertz >= 1e3) {
+            rateLabel.setText(String.format("%.2f kHz", hertz / 1e3));
+        } else {
+            rateLabel.setText(String.format("%.2f Hz", hertz));
+        }
+    }
+
+    /**
+     * Applies every tick that fell due since the previous frame in one jump.
+     */
+    private void advanceAutoClock(long now) {
+        if (lastFrameNanos != 0) {
+            pendingTicks += (now - lastFrameNanos) / 1e9 * clockRateHz;
+        }
+        lastFrameNanos = now;
+        long ticks = (long) pendingTicks;
+        if (ticks > 0) {
+            pendingTicks -= ticks;
+            clockTicks(ticks);
         }
-        double cycleDuration = 1000.0 / hertz; // in milliseconds
-        autoClockTimeline = new Timeline(new KeyFrame(Duration.millis(cycleDuration), e -> handleClock()));
-        autoClockTimeline.setCycleCount(Timeline.INDEFINITE);
     }
 
     private void handleClock() {
-        counter.clock();
+        clockTicks(1);
+    }
+
+    private void clockTicks(long ticks) {
+        counter.clock(ticks);
+        totalTicks += ticks;
         updateUI();
     }
 
     private void handleReset() {
         counter.reset();
+        totalTicks = 0;
         updateUI();
     }
 
     private void handleModeChange() {
-        if (counter.getMode() == Counter4Bit.CountMode.UP) {
-            counter.setMode(Counter4Bit.CountMode.DOWN);
+        if (counter.getMode() == Counter.CountMode.UP) {
+            counter.setMode(Counter.CountMode.DOWN);
             modeButton.setText("Mode: DOWN");
         } else {
-            counter.setMode(Counter4Bit.CountMode.UP);
+            counter.setMode(Counter.CountMode.UP);
             modeButton.setText("Mode: UP");
         }
         updateUI();
@@ -267,15 +305,17 @@ public class CounterModule {
         isAutoClockRunning = !isAutoClockRunning;
         if (isAutoClockRunning) {
             autoClockButton.setText("Stop Auto-Clock");
-            autoClockTimeline.play();
+            lastFrameNanos = 0;
+            pendingTicks = 0;
+            autoClockTimer.start();
         } else {
             autoClockButton.setText("Start Auto-Clock");
-            autoClockTimeline.stop();
+            autoClockTimer.stop();
         }
     }
 
     private void updateUI() {
-        int decimalValue = counter.getValue();
+        int decimalValue = (int) counter.getValue();
         boolean[] bits = counter.getBits();
         boolean[] segmentStates = driver.getSegmentsFor(decimalValue);
 
@@ -297,5 +337,6 @@ public class CounterModule {
         binaryLabel.setText(String.format("Binary: %d%d%d%d", bits[3] ? 1 : 0, bits[2] ? 1 : 0, bits[1] ? 1 : 0, bits[0] ? 1 : 0));
         decimalLabel.setText("Decimal: " + decimalValue);
         hexLabel.setText("Hex: " + Integer.toHexString(decimalValue).toUpperCase());
+        ticksLabel.setText("Ticks: " + totalTicks);
     }
 }
@@ -1,7 +1,7 @@
 
 package com.alperenulukaya.modules;
 
-import com.alperenulukaya.logic.Decoder3to8;
+import com.alperenulukaya.logic.Decoder;
 
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -25,7 +25,7 @@ import javafx.scene.text.Text;
 public class DecoderModule {
 
     private final VBox view;
-    private final Decoder3to8 decoder = new Decoder3to8();
+    private final Decoder decoder = new Decoder(3);
 
     // UI Elements
     private final Button[] inputButtons = new Button[3];
@@ -173,7 +173,8 @@ public class DecoderModule {
         enableButton.setStyle(enableInput ? ACTIVE_STYLE : INACTIVE_STYLE);
 
         // Get the active output from the logic
-        int activeIndex = decoder.getActiveOutput(enableInput, inputs[0], inputs[1], inputs[2]);
+        int address = (inputs[0] ? 4 : 0) | (inputs[1] ? 2 : 0) | (inputs[2] ? 1 : 0);
+        int activeIndex = decoder.getActiveOutput(enableInput, address);
 
         // Update output LEDs
         for (int i = 0; i < 8; i++) {
@@ -1,6 +1,6 @@
 package com.alperenulukaya.modules;
 
-import com.alperenulukaya.logic.Encoder8to3;
+import com.alperenulukaya.logic.PriorityEncoder;
 
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -23,7 +23,7 @@ import javafx.scene.text.Text;
 public class EncoderModule {
 
     private final VBox view;
-    private final Encoder8to3 encoder = new Encoder8to3();
+    private final PriorityEncoder encoder = new PriorityEncoder(8);
 
     private final Button[] inputButtons = new Button[8];
     private final Circle[] outputLeds = new Circle[3];
@@ -148,7 +148,7 @@ public class EncoderModule {
         }
 
         // Output Wires
-        boolean[] outputBits = encoder.getOutput(enableInput, activeInput);
+        boolean[] outputBits = encodeOutput();
         for (int i = 0; i < 3; i++) {
             double yPos = encoderStartY + 60 + i * 80;
             HBox outputBox = (HBox) outputLeds[i].getParent();
@@ -189,7 +189,7 @@ public class EncoderModule {
         enableButton.setText(enableInput ? "1" : "0");
         enableButton.setStyle(enableInput ? ACTIVE_STYLE : INACTIVE_STYLE);
 
-        boolean[] output = encoder.getOutput(enableInput, activeInput);
+        boolean[] output = encodeOutput();
         for (int i = 0; i < 3; i++) {
             outputLeds[i].setFill(output[i] ? LED_ON_COLOR : LED_OFF_COLOR);
         }
@@ -197,6 +197,21 @@ public class EncoderModule {
         drawWires();
     }
 
+    /**
+     * Runs the pressed input line through the priority encoder.
+     * @return The binary output [A2, A1, A0], all zeros if disabled or no input is active.
+     */
+    private boolean[] encodeOutput() {
+        int index = encoder.encode(enableInput, activeInput < 0 ? 0 : 1L << activeInput);
+        boolean[] output = new boolean[3];
+        if (index >= 0) {
+            output[0] = (index & 4) != 0;
+            output[1] = (index & 2) != 0;
+            output[2] = (index & 1) != 0;
+        }
+        return output;
+    }
+
     // --- Helper Methods for UI Creation ---
     private VBox createComponentBody(double x, double y, double w, double h, String text) {
         VBox box = new VBox();
@@ -1,10 +1,6 @@
 package com.alperenulukaya.modules;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import com.alperenulukaya.logic.Mux4to1;
-import com.alperenulukaya.logic.Mux8to1;
+import com.alperenulukaya.logic.Mux;
 
 import javafx.animation.FillTransition;
 import javafx.geometry.Insets;
@@ -29,26 +25,51 @@ import javafx.util.Duration;
 /**
  * The final, polished version of the MUX UI module. Features a larger, clearer
  * layout, correct wiring, and enhanced visual feedback for the active path.
+ *
+ * The circuit is built once per mux size: every wire, toggle and the output
+ * LED transition are created in {@link #redrawUI()} and later updates only
+ * change their stroke, fill and position. A toggle touches the toggled input,
+ * the previously and newly selected paths and the select lines, so a 64-to-1
+ * mux updates as cheaply as a 4-to-1 one.
  */
 public class MuxModule {
 
-    private enum MuxType {
-        MUX_4_TO_1, MUX_8_TO_1
-    }
-    private MuxType currentMuxType = MuxType.MUX_4_TO_1;
+    private static final int[] SIZES = { 4, 8, 16, 32, 64 };
+    private static final int MAX_INPUTS = 64;
+
+    // Muxes up to 8-to-1 get a button per input; wider ones a compact square.
+    private static final int MAX_BUTTON_INPUTS = 8;
+    private static final double BUTTON_PITCH = 50;
+    private static final double WIDE_COLUMN_HEIGHT = 480;
+
+    private static final double MUX_X = 300;
+    private static final double MUX_Y = 50;
+    private static final double MUX_WIDTH = 180;
+
+    private int size = 4;
 
     private final VBox view;
-    private final Mux4to1 mux4to1 = new Mux4to1();
-    private final Mux8to1 mux8to1 = new Mux8to1();
+    private Mux mux = new Mux(size, 1);
 
     private Pane circuitPane;
-    private List<Button> dataButtons = new ArrayList<>();
-    private List<Button> selectButtons = new ArrayList<>();
     private Circle outputLed;
+    private FillTransition ledTransition;
+    private Color ledTarget;
     private Label selectedIndexLabel;
 
-    private boolean[] dataInputs = new boolean[8];
-    private boolean[] selectInputs = new boolean[3];
+    // Retained circuit, rebuilt only when the size changes.
+    private Node[] dataToggles;
+    private Button[] selectButtons;
+    private Line[] inputWires;
+    private Line[] selectWires;
+    private Line connector;
+    private Line outputWire;
+    private int shownActiveIndex = -1;
+
+    private final boolean[] dataInputs = new boolean[MAX_INPUTS];
+    // The same inputs packed one bit per lane for the word-level mux.
+    private final long[] packedData = new long[1];
+    private final boolean[] selectInputs = new boolean[Integer.numberOfTrailingZeros(MAX_INPUTS)];
 
     private final String ACTIVE_STYLE = "-fx-background-color: #4CAF50; -fx-font-size: 14px; -fx-text-fill: white;";
     private final String INACTIVE_STYLE = "-fx-background-color: #555555; -fx-font-size: 14px; -fx-text-fill: white;";
@@ -56,6 +77,8 @@ public class MuxModule {
     private final Color PATH_ACTIVE_0_COLOR = Color.CYAN;
     private final Color PATH_ACTIVE_1_COLOR = Color.LIMEGREEN;
     private final Color LED_OFF_COLOR = Color.DARKSLATEGRAY;
+    private final Color TOGGLE_OFF_COLOR = Color.web("#555555");
+    private final Color TOGGLE_ON_COLOR = Color.web("#4CAF50");
 
     public MuxModule() {
         view = new VBox(10);
@@ -78,13 +101,18 @@ public class MuxModule {
     }
 
     public void stopTimeline() {
-        /* No timeline */ }
+        if (ledTransition != null) {
+            ledTransition.stop();
+        }
+    }
 
-    private void setMuxType(MuxType type) {
-        if (this.currentMuxType == type) {
+    private void setMuxSize(int size) {
+        if (this.size == size) {
             return;
         }
-        this.currentMuxType = type;
+        this.size = size;
+        mux = new Mux(size, 1);
+        packedData[0] = 0;
         for (int i = 0; i < dataInputs.length; i++) {
             dataInputs[i] = false;
         }
@@ -94,67 +122,100 @@ public class MuxModule {
         redrawUI();
     }
 
-    private void redrawUI() {
-        circuitPane.getChildren().clear();
-        dataButtons.clear();
-        selectButtons.clear();
+    private int selectCount() {
+        return Integer.numberOfTrailingZeros(size);
+    }
+
+    private double pitch() {
+        return size <= MAX_BUTTON_INPUTS ? BUTTON_PITCH : WIDE_COLUMN_HEIGHT / size;
+    }
 
-        int numDataInputs = (currentMuxType == MuxType.MUX_4_TO_1) ? 4 : 8;
-        int numSelectInputs = (currentMuxType == MuxType.MUX_4_TO_1) ? 2 : 3;
+    private double muxHeight() {
+        return 50 + size * pitch();
+    }
 
-        double muxWidth = 180;
-        double muxHeight = 50 + numDataInputs * 50;
-        double startX = 300;
-        double startY = 50;
+    private double inputY(int index) {
+        return MUX_Y + 25 + pitch() / 2 + index * pitch();
+    }
 
-        Rectangle body = new Rectangle(startX, startY, muxWidth, muxHeight);
+    /**
+     * Builds the circuit for the current size. Called only when the size changes.
+     */
+    private void redrawUI() {
+        if (ledTransition != null) {
+            ledTransition.stop();
+        }
+        circuitPane.getChildren().clear();
+        int numSelectInputs = selectCount();
+        double muxHeight = muxHeight();
+        double pitch = pitch();
+
+        Rectangle body = new Rectangle(MUX_X, MUX_Y, MUX_WIDTH, muxHeight);
         body.setFill(Color.CORNFLOWERBLUE);
         body.setStroke(Color.BLACK);
 
-        String label = (numDataInputs == 4) ? "4-to-1\nMUX" : "8-to-1\nMUX";
-        Text muxLabel = new Text(startX + muxWidth / 2 - 45, startY + muxHeight / 2 - 25, label);
+        Text muxLabel = new Text(MUX_X + MUX_WIDTH / 2 - 45, MUX_Y + muxHeight / 2 - 25, size + "-to-1\nMUX");
         muxLabel.setFont(Font.font("Arial", FontWeight.BOLD, 28));
         circuitPane.getChildren().addAll(body, muxLabel);
 
-        for (int i = 0; i < numDataInputs; i++) {
+        dataToggles = new Node[size];
+        inputWires = new Line[size];
+        for (int i = 0; i < size; i++) {
             final int index = i;
-            double yPos = startY + 30 + i * 50;
-
-            Label inputLabel = new Label("I" + i);
-            inputLabel.setFont(Font.font("Consolas", 18));
-            inputLabel.setTextFill(Color.WHITE);
-            inputLabel.setLayoutX(startX - 130);
-            inputLabel.setLayoutY(yPos - 5);
-
-            Button btn = new Button("0");
-            btn.setStyle(INACTIVE_STYLE);
-            btn.setPrefWidth(50);
-            btn.setLayoutX(startX - 80);
-            btn.setLayoutY(yPos - 10);
-            btn.setOnAction(e -> {
-                dataInputs[index] = !dataInputs[index];
-                updateVisuals();
-            });
-            dataButtons.add(btn);
-            circuitPane.getChildren().addAll(inputLabel, btn);
+            double yPos = inputY(i);
+
+            Line wire = new Line(MUX_X - 30, yPos, MUX_X, yPos);
+            wire.setStrokeWidth(Math.min(5, Math.max(1, pitch / 4)));
+            wire.setStroke(PATH_INACTIVE_COLOR);
+            inputWires[i] = wire;
+
+            Node toggle;
+            if (size <= MAX_BUTTON_INPUTS) {
+                Button btn = new Button("0");
+                btn.setPrefWidth(50);
+                btn.setLayoutX(MUX_X - 80);
+                btn.setLayoutY(yPos - 10);
+                btn.setOnAction(e -> toggleData(index));
+                toggle = btn;
+            } else {
+                double side = Math.min(pitch - 2, 20);
+                Rectangle square = new Rectangle(MUX_X - 30 - side - 6, yPos - side / 2, side, side);
+                square.setStroke(Color.BLACK);
+                square.setOnMouseClicked(e -> toggleData(index));
+                toggle = square;
+            }
+            dataToggles[i] = toggle;
+            circuitPane.getChildren().addAll(wire, toggle);
+            styleDataToggle(i);
+
+            // Wide muxes label every eighth input only.
+            if (size <= 16 || i % 8 == 0) {
+                Label inputLabel = new Label("I" + i);
+                inputLabel.setFont(Font.font("Consolas", size <= MAX_BUTTON_INPUTS ? 18 : 12));
+                inputLabel.setTextFill(Color.WHITE);
+                inputLabel.setLayoutX(MUX_X - (size <= MAX_BUTTON_INPUTS ? 130 : 95));
+                inputLabel.setLayoutY(yPos - (size <= MAX_BUTTON_INPUTS ? 5 : 8));
+                circuitPane.getChildren().add(inputLabel);
+            }
         }
 
         double buttonWidth = 50;
         double spacing = 80;
         double totalGroupWidth = (numSelectInputs * buttonWidth) + ((numSelectInputs - 1) * (spacing - buttonWidth));
-        double selectStartX = (startX + muxWidth / 2) - (totalGroupWidth / 2);
+        double selectStartX = (MUX_X + MUX_WIDTH / 2) - (totalGroupWidth / 2);
 
+        selectButtons = new Button[numSelectInputs];
+        selectWires = new Line[numSelectInputs];
         for (int i = 0; i < numSelectInputs; i++) {
             final int index = i;
             Button btn = new Button("0");
-            btn.setStyle(INACTIVE_STYLE);
             btn.setPrefWidth(buttonWidth);
             btn.setLayoutX(selectStartX + i * spacing);
-            btn.setLayoutY(startY + muxHeight + 25);
-            btn.setOnAction(e -> {
-                selectInputs[index] = !selectInputs[index];
-                updateVisuals();
-            });
+            btn.setLayoutY(MUX_Y + muxHeight + 25);
+            btn.setOnAction(e -> toggleSelect(index));
+
+            Line selectLine = new Line(btn.getLayoutX() + 25, btn.getLayoutY(), btn.getLayoutX() + 25, MUX_Y + muxHeight);
+            selectLine.setStrokeWidth(3);
 
             Label selectLabel = new Label("S" + (numSelectInputs - 1 - i));
             selectLabel.setFont(Font.font("Consolas", 18));
@@ -162,15 +223,24 @@ public class MuxModule {
             selectLabel.setLayoutX(btn.getLayoutX() + 15);
             selectLabel.setLayoutY(btn.getLayoutY() + 35);
 
-            selectButtons.add(btn);
-            circuitPane.getChildren().addAll(selectLabel, btn);
+            selectButtons[i] = btn;
+            selectWires[i] = selectLine;
+            circuitPane.getChildren().addAll(selectLine, selectLabel, btn);
+            styleSelect(i);
         }
 
-        double outputY = startY + muxHeight / 2;
+        double outputY = MUX_Y + muxHeight / 2;
         outputLed = new Circle(30, LED_OFF_COLOR);
         outputLed.setStroke(Color.BLACK);
-        outputLed.setLayoutX(startX + muxWidth + 120);
+        outputLed.setLayoutX(MUX_X + MUX_WIDTH + 120);
         outputLed.setLayoutY(outputY);
+        ledTarget = LED_OFF_COLOR;
+        ledTransition = new FillTransition(Duration.millis(200), outputLed);
+
+        connector = new Line(MUX_X, inputY(0), MUX_X + MUX_WIDTH, outputY);
+        connector.setStrokeWidth(5);
+        outputWire = new Line(MUX_X + MUX_WIDTH, outputY, outputLed.getLayoutX() - 30, outputY);
+        outputWire.setStrokeWidth(5);
 
         Label yLabel = new Label("Y");
         yLabel.setFont(Font.font("Arial", FontWeight.BOLD, 28));
@@ -184,88 +254,82 @@ public class MuxModule {
         selectedIndexLabel.setLayoutX(outputLed.getLayoutX() - 40);
         selectedIndexLabel.setLayoutY(outputY + 40);
 
-        circuitPane.getChildren().addAll(outputLed, yLabel, selectedIndexLabel);
+        circuitPane.getChildren().addAll(connector, outputWire, outputLed, yLabel, selectedIndexLabel);
 
+        shownActiveIndex = -1;
         updateVisuals();
     }
 
-    private void updateVisuals() {
-        int numDataInputs = (currentMuxType == MuxType.MUX_4_TO_1) ? 4 : 8;
-        int numSelectInputs = (currentMuxType == MuxType.MUX_4_TO_1) ? 2 : 3;
+    private void toggleData(int index) {
+        dataInputs[index] = !dataInputs[index];
+        packedData[0] ^= 1L << index;
+        styleDataToggle(index);
+        updateVisuals();
+    }
 
-        for (int i = 0; i < numDataInputs; i++) {
-            dataButtons.get(i).setText(dataInputs[i] ? "1" : "0");
-            dataButtons.get(i).setStyle(dataInputs[i] ? ACTIVE_STYLE : INACTIVE_STYLE);
+    private void toggleSelect(int index) {
+        selectInputs[index] = !selectInputs[index];
+        styleSelect(index);
+        updateVisuals();
+    }
+
+    private void styleDataToggle(int index) {
+        Node toggle = dataToggles[index];
+        if (toggle instanceof Button) {
+            ((Button) toggle).setText(dataInputs[index] ? "1" : "0");
+            toggle.setStyle(dataInputs[index] ? ACTIVE_STYLE : INACTIVE_STYLE);
+        } else {
+            ((Rectangle) toggle).setFill(dataInputs[index] ? TOGGLE_ON_COLOR : TOGGLE_OFF_COLOR);
         }
+    }
+
+    private void styleSelect(int index) {
+        selectButtons[index].setText(selectInputs[index] ? "1" : "0");
+        selectButtons[index].setStyle(selectInputs[index] ? ACTIVE_STYLE : INACTIVE_STYLE);
+        selectWires[index].setStroke(selectInputs[index] ? PATH_ACTIVE_1_COLOR : PATH_INACTIVE_COLOR);
+    }
+
+    /**
+     * Evaluates the mux and updates the output LED, label and paths.
+     */
+    private void updateVisuals() {
+        int numSelectInputs = selectCount();
+        int activeIndex = 0;
         for (int i = 0; i < numSelectInputs; i++) {
-            selectButtons.get(i).setText(selectInputs[i] ? "1" : "0");
-            selectButtons.get(i).setStyle(selectInputs[i] ? ACTIVE_STYLE : INACTIVE_STYLE);
+            activeIndex = (activeIndex << 1) | (selectInputs[i] ? 1 : 0);
         }
 
-        boolean output;
-        int activeIndex;
-        if (currentMuxType == MuxType.MUX_4_TO_1) {
-            boolean[] s = {selectInputs[0], selectInputs[1]};
-            boolean[] d = {dataInputs[0], dataInputs[1], dataInputs[2], dataInputs[3]};
-            output = mux4to1.getOutput(d, s);
-            activeIndex = (s[0] ? 2 : 0) + (s[1] ? 1 : 0);
-        } else {
-            boolean[] s = {selectInputs[0], selectInputs[1], selectInputs[2]};
-            output = mux8to1.getOutput(dataInputs, s[0], s[1], s[2]);
-            activeIndex = (s[0] ? 4 : 0) + (s[1] ? 2 : 0) + (s[2] ? 1 : 0);
-        }
+        boolean output = mux.select(packedData, activeIndex) != 0;
 
         Color ledEndColor = output ? PATH_ACTIVE_1_COLOR : LED_OFF_COLOR;
-        FillTransition ft = new FillTransition(Duration.millis(200), outputLed, (Color) outputLed.getFill(), ledEndColor);
-        ft.play();
+        if (ledEndColor != ledTarget) {
+            ledTransition.stop();
+            ledTransition.setFromValue((Color) outputLed.getFill());
+            ledTransition.setToValue(ledEndColor);
+            ledTransition.playFromStart();
+            ledTarget = ledEndColor;
+        }
 
         selectedIndexLabel.setText("(Selects I" + activeIndex + ")");
 
-        drawPaths(numDataInputs, activeIndex, output);
+        updatePaths(activeIndex);
     }
 
-    private void drawPaths(int numDataInputs, int activeIndex, boolean outputValue) {
-        circuitPane.getChildren().removeIf(n -> n instanceof Line);
-
-        double muxStartX = 300;
-        double muxWidth = 180;
-        double muxHeight = 50 + numDataInputs * 50;
-        double startY = 50;
-        double outputY = startY + muxHeight / 2;
-
+    /**
+     * Recolors the path from the selected input to the output. Only the
+     * previously and newly selected input wires change; the connector is moved
+     * rather than replaced.
+     */
+    private void updatePaths(int activeIndex) {
         Color activePathColor = dataInputs[activeIndex] ? PATH_ACTIVE_1_COLOR : PATH_ACTIVE_0_COLOR;
-
-        // Draw Input Paths
-        for (int i = 0; i < numDataInputs; i++) {
-            double yPos = startY + 30 + i * 50;
-            Line path = new Line(muxStartX - 30, yPos, muxStartX, yPos);
-            path.setStrokeWidth(5);
-            path.setStroke((i == activeIndex) ? activePathColor : PATH_INACTIVE_COLOR);
-            circuitPane.getChildren().add(path);
+        if (shownActiveIndex >= 0 && shownActiveIndex != activeIndex) {
+            inputWires[shownActiveIndex].setStroke(PATH_INACTIVE_COLOR);
         }
-
-        // Draw Active Connector Path
-        double activeInputY = startY + 30 + activeIndex * 50;
-        Line connector = new Line(muxStartX, activeInputY, muxStartX + muxWidth, outputY);
+        inputWires[activeIndex].setStroke(activePathColor);
+        connector.setStartY(inputY(activeIndex));
         connector.setStroke(activePathColor);
-        connector.setStrokeWidth(5);
-        circuitPane.getChildren().add(connector);
-
-        // Draw Output Path
-        Line outputPath = new Line(muxStartX + muxWidth, outputY, outputLed.getLayoutX() - 30, outputY);
-        outputPath.setStroke(activePathColor);
-        outputPath.setStrokeWidth(5);
-        circuitPane.getChildren().add(outputPath);
-
-        // Draw Select Lines Connection
-        int numSelectInputs = selectButtons.size();
-        for (int i = 0; i < numSelectInputs; i++) {
-            Button btn = selectButtons.get(i);
-            Line selectLine = new Line(btn.getLayoutX() + 25, btn.getLayoutY(), btn.getLayoutX() + 25, startY + muxHeight);
-            selectLine.setStrokeWidth(3);
-            selectLine.setStroke(selectInputs[i] ? PATH_ACTIVE_1_COLOR : PATH_INACTIVE_COLOR);
-            circuitPane.getChildren().add(selectLine);
-        }
+        outputWire.setStroke(activePathColor);
+        shownActiveIndex = activeIndex;
     }
 
     private Label createTitleArea() {
@@ -277,16 +341,15 @@ public class MuxModule {
 
     private HBox createModeSelector() {
         ToggleGroup group = new ToggleGroup();
-        RadioButton mux4Btn = new RadioButton("4-to-1 MUX");
-        RadioButton mux8Btn = new RadioButton("8-to-1 MUX");
-        mux4Btn.setToggleGroup(group);
-        mux8Btn.setToggleGroup(group);
-        mux4Btn.setSelected(true);
-        mux4Btn.setTextFill(Color.WHITE);
-        mux8Btn.setTextFill(Color.WHITE);
-        mux4Btn.setOnAction(e -> setMuxType(MuxType.MUX_4_TO_1));
-        mux8Btn.setOnAction(e -> setMuxType(MuxType.MUX_8_TO_1));
-        HBox selectorBox = new HBox(20, mux4Btn, mux8Btn);
+        HBox selectorBox = new HBox(20);
+        for (int muxSize : SIZES) {
+            RadioButton button = new RadioButton(muxSize + "-to-1 MUX");
+            button.setToggleGroup(group);
+            button.setSelected(muxSize == size);
+            button.setTextFill(Color.WHITE);
+            button.setOnAction(e -> setMuxSize(muxSize));
+            selectorBox.getChildren().add(button);
+        }
         selectorBox.setAlignment(Pos.CENTER);
         selectorBox.setPadding(new Insets(0, 0, 10, 0));
         return selectorBox;
@@ -1,8 +1,12 @@
 package com.alperenulukaya.modules;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Map;
 
-import com.alperenulukaya.logic.ShiftRegister4Bit;
+import com.alperenulukaya.logic.Crc;
+import com.alperenulukaya.logic.Prbs;
+import com.alperenulukaya.logic.UniversalShiftRegister;
 import com.alperenulukaya.util.TimingDiagram;
 
 import javafx.geometry.Insets;
@@ -10,6 +14,7 @@ import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ToggleButton;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
@@ -20,19 +25,38 @@ import javafx.scene.shape.Rectangle;
 /**
  * A UI module to demonstrate a 4-bit SISO (Serial-In, Serial-Out) Shift
  * Register. Features interactive controls and a real-time timing diagram.
+ * Besides single clock pulses, a PRBS-15 stream of {@value #STREAM_BITS}
+ * bits can be pushed through in one bulk shift.
+ *
+ * In CRC mode the four flip-flops become the CRC-4/G-704 register: each clock
+ * pulse feeds D_in through the XOR feedback taps bit by bit, and a stream is
+ * run through both the bit-serial register and the table-driven CRC so the
+ * two results can be compared.
  */
 public class ShiftRegisterModule {
 
+    private static final int STREAM_BITS = 1024;
+
     private final VBox view;
-    private final ShiftRegister4Bit shiftRegister = new ShiftRegister4Bit();
+    private final UniversalShiftRegister shiftRegister = new UniversalShiftRegister(4);
+    private final Prbs streamSource = new Prbs(Prbs.Polynomial.PRBS15);
+    private final Crc crc = Crc.CRC4_G704;
+    private final long[] stream = new long[STREAM_BITS / 64];
+    private final long[] streamOut = new long[STREAM_BITS / 64];
 
     // UI Elements
     private final Circle[] leds = new Circle[4];
     private Button dataInButton;
+    private Label streamLabel;
     private TimingDiagram timingDiagram;
 
     // State Variables
     private boolean dataInputState = false;
+    private long bitsClocked;
+    private long onesOut;
+    private boolean crcMode;
+    private String crcCheck = "";
+    private long crcRegister = crc.initial();
 
     // UI Constants
     private final String ACTIVE_STYLE = "-fx-background-color: #4CAF50; -fx-font-size: 16px; -fx-text-fill: white;";
@@ -70,7 +94,7 @@ public class ShiftRegisterModule {
         dataInButton.setPrefWidth(120);
         dataInButton.setOnAction(e -> {
             dataInputState = !dataInputState;
-            shiftRegister.setDataInput(dataInputState);
+            shiftRegister.setSerialInput(dataInputState);
             updateVisuals();
         });
 
@@ -97,7 +121,15 @@ public class ShiftRegisterModule {
         clockButton.setStyle("-fx-font-size: 18px;");
         clockButton.setOnAction(e -> {
             addTimingState(false); // Low clock state
-            shiftRegister.clock();
+            if (crcMode) {
+                crcRegister = crc.clockBit(crcRegister, dataInputState);
+            } else {
+                if (shiftRegister.getSerialOut()) {
+                    onesOut++;
+                }
+                shiftRegister.clock();
+            }
+            bitsClocked++;
             addTimingState(true);  // High clock state, showing result
             updateVisuals();
         });
@@ -107,19 +139,85 @@ public class ShiftRegisterModule {
         resetButton.setStyle("-fx-font-size: 18px;");
         resetButton.setOnAction(e -> {
             shiftRegister.reset();
+            crcRegister = crc.initial();
+            crcCheck = "";
+            streamSource.reset();
             dataInputState = false;
+            bitsClocked = 0;
+            onesOut = 0;
             timingDiagram.clear();
             updateVisuals();
         });
 
-        HBox controlBox = new HBox(20, clockButton, resetButton);
+        Button streamButton = new Button("Stream " + STREAM_BITS + " Bits");
+        streamButton.setPrefWidth(200);
+        streamButton.setStyle("-fx-font-size: 18px;");
+        streamButton.setOnAction(e -> {
+            streamBits();
+            updateVisuals();
+        });
+
+        ToggleButton crcButton = new ToggleButton("CRC Mode");
+        crcButton.setPrefWidth(140);
+        crcButton.setStyle("-fx-font-size: 18px;");
+        crcButton.setOnAction(e -> {
+            crcMode = crcButton.isSelected();
+            updateVisuals();
+        });
+
+        HBox controlBox = new HBox(20, clockButton, streamButton, crcButton, resetButton);
         controlBox.setAlignment(Pos.CENTER);
 
-        VBox container = new VBox(30, circuitBox, controlBox);
+        streamLabel = new Label();
+        streamLabel.setStyle("-fx-font-size: 16px; -fx-text-fill: white;");
+
+        VBox container = new VBox(30, circuitBox, controlBox, streamLabel);
         container.setAlignment(Pos.CENTER);
         return container;
     }
 
+    /**
+     * Clocks the next {@value #STREAM_BITS} PRBS bits through in one go. The
+     * shift register takes them in a single bulk shift, counting the ones that
+     * come out at Q3. In CRC mode they go through the CRC twice, bit-serially
+     * and table-driven, and the label shows whether both agree.
+     */
+    private void streamBits() {
+        streamSource.nextBits(stream, 0, STREAM_BITS);
+        addTimingState(false);
+        if (crcMode) {
+            // The CRC is reflected, so it takes each byte LSB first: the stream's bit order.
+            ByteBuffer bytes = ByteBuffer.allocate(STREAM_BITS / 8).order(ByteOrder.LITTLE_ENDIAN);
+            bytes.asLongBuffer().put(stream);
+            long tableRegister = crc.update(crcRegister, bytes.array(), 0, STREAM_BITS / 8);
+            crcRegister = crc.updateBitSerial(crcRegister, bytes.array(), 0, STREAM_BITS / 8);
+            crcCheck = String.format("   CRC-4 bit-serial %X, table %X: %s", crc.getRegisterValue(crcRegister),
+                    crc.getRegisterValue(tableRegister), tableRegister == crcRegister ? "match" : "MISMATCH");
+        } else {
+            shiftRegister.shiftLeftSerial(stream, 0, STREAM_BITS, streamOut, 0);
+            for (long word : streamOut) {
+                onesOut += Long.bitCount(word);
+            }
+        }
+        bitsClocked += STREAM_BITS;
+        addTimingState(true);
+    }
+
+    /**
+     * @return Q0 to Q3: the shift register, or the CRC register in CRC mode.
+     */
+    private boolean[] currentBits() {
+        if (!crcMode) {
+            return shiftRegister.getBits();
+        }
+        long value = crc.getRegisterValue(crcRegister);
+        boolean[] bits = new boolean[4];
+        for (int i = 0; i < 4; i++) {
+            bits[i] = (value >>> i & 1) != 0;
+        }
+        return bits;
+    }
+
     private VBox createFlipFlopBox(int index) {
         Rectangle body = new Rectangle(80, 100, Color.CORNFLOWERBLUE);
         body.setStroke(Color.BLACK);
@@ -136,7 +234,7 @@ public class ShiftRegisterModule {
     }
 
     private void addTimingState(boolean clkState) {
-        boolean[] bits = shiftRegister.getBits();
+        boolean[] bits = currentBits();
         timingDiagram.addState(Map.of(
                 "CLK", clkState,
                 "D_in", dataInputState,
@@ -151,9 +249,11 @@ public class ShiftRegisterModule {
         dataInButton.setText("D_in = " + (dataInputState ? "1" : "0"));
         dataInButton.setStyle(dataInputState ? ACTIVE_STYLE : INACTIVE_STYLE);
 
-        boolean[] bits = shiftRegister.getBits();
+        boolean[] bits = currentBits();
         for (int i = 0; i < 4; i++) {
             leds[i].setFill(bits[i] ? LED_ON_COLOR : LED_OFF_COLOR);
         }
+        streamLabel.setText(String.format("Bits clocked: %d   Ones shifted out: %d", bitsClocked, onesOut)
+                + (crcMode ? crcCheck : ""));
     }
 }
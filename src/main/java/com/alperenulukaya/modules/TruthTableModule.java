@@ -0,0 +1,191 @@
+package com.alperenulukaya.modules;
+
+import java.util.AbstractList;
+import java.util.concurrent.CompletableFuture;
+
+import com.alperenulukaya.logic.LogicComponent;
+import com.alperenulukaya.logic.TruthTable;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+/**
+ * A UI module that shows the complete truth table of any
+ * {@link LogicComponent}. Tables are enumerated off the JavaFX thread and
+ * cached by {@link TruthTable#of(LogicComponent)}, so choosing a component
+ * again is instant.
+ *
+ * The table view is virtualized twice over: the TableView only creates cells
+ * for the visible rows, and its items are a list that computes row numbers on
+ * demand, so even the 16-million-row table of a 24-input component holds no
+ * per-row objects. Every cell reads its bit straight from the table's bitsets.
+ */
+public class TruthTableModule {
+
+    private final VBox view;
+    private final ComboBox<LogicComponent> componentBox = new ComboBox<>();
+    private final TableView<Integer> tableView = new TableView<>();
+    private final TextField rowField = new TextField();
+    private final Label statusLabel = new Label();
+    private int generation;
+
+    // UI Constants
+    private final String ONE_STYLE = "-fx-text-fill: #2E7D32; -fx-font-weight: bold; -fx-alignment: center;";
+    private final String ZERO_STYLE = "-fx-text-fill: #777777; -fx-alignment: center;";
+    private final String OUTPUT_HEADER_STYLE = "-fx-background-color: #DCE8F5;";
+
+    public TruthTableModule() {
+        view = new VBox(15);
+        view.setPadding(new Insets(20));
+        view.setAlignment(Pos.TOP_CENTER);
+
+        Label title = new Label("Truth Table Generator");
+        title.setStyle("-fx-font-size: 28px; -fx-font-weight: bold; -fx-text-fill: white;");
+
+        componentBox.getItems().addAll(LogicComponent.values());
+        componentBox.setOnAction(e -> showComponent(componentBox.getValue()));
+
+        rowField.setPromptText("Row");
+        rowField.setPrefWidth(110);
+        rowField.setOnAction(e -> goToRow());
+        Button goButton = new Button("Go to Row");
+        goButton.setOnAction(e -> goToRow());
+
+        Label componentLabel = new Label("Component:");
+        componentLabel.setTextFill(Color.WHITE);
+        HBox controls = new HBox(15, componentLabel, componentBox, rowField, goButton);
+        controls.setAlignment(Pos.CENTER);
+
+        statusLabel.setFont(Font.font("Consolas", 14));
+        statusLabel.setTextFill(Color.LIGHTGRAY);
+
+        tableView.setColumnResizePolicy(TableView.UNCONSTRAINED_RESIZE_POLICY);
+        tableView.setPlaceholder(new Label("Select a component"));
+        VBox.setVgrow(tableView, Priority.ALWAYS);
+
+        view.getChildren().addAll(title, controls, statusLabel, tableView);
+
+        componentBox.getSelectionModel().select(LogicComponent.FULL_ADDER);
+        showComponent(LogicComponent.FULL_ADDER);
+    }
+
+    public Node getView() {
+        return view;
+    }
+
+    public void stopTimeline() {
+        /* No timeline */ }
+
+    /**
+     * Builds or fetches the table in the background; a result that arrives
+     * after another component was chosen is dropped.
+     */
+    private void showComponent(LogicComponent component) {
+        int request = ++generation;
+        componentBox.setDisable(true);
+        statusLabel.setText("Enumerating " + (1L << component.getInputCount()) + " rows of " + component + "...");
+        long start = System.nanoTime();
+        CompletableFuture.supplyAsync(component::getTruthTable).whenComplete((table, error) -> Platform.runLater(() -> {
+            if (request != generation) {
+                return;
+            }
+            componentBox.setDisable(false);
+            if (error != null) {
+                statusLabel.setText("Could not build the table: " + error.getMessage());
+                return;
+            }
+            showTable(table, (System.nanoTime() - start) / 1e6);
+        }));
+    }
+
+    private void showTable(TruthTable table, double millis) {
+        tableView.getColumns().clear();
+
+        TableColumn<Integer, Integer> rowColumn = new TableColumn<>("Row");
+        rowColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue()));
+        rowColumn.setSortable(false);
+        rowColumn.setPrefWidth(80);
+        tableView.getColumns().add(rowColumn);
+
+        String[] inputNames = table.getInputNames();
+        for (int i = 0; i < inputNames.length; i++) {
+            final int column = i;
+            tableView.getColumns().add(bitColumn(inputNames[i], row -> table.getInput(row, column)));
+        }
+        String[] outputNames = table.getOutputNames();
+        StringBuilder ones = new StringBuilder();
+        for (int i = 0; i < outputNames.length; i++) {
+            final int column = i;
+            TableColumn<Integer, String> outputColumn = bitColumn(outputNames[i], row -> table.getOutput(row, column));
+            outputColumn.setStyle(OUTPUT_HEADER_STYLE);
+            tableView.getColumns().add(outputColumn);
+            if (i < 8) {
+                ones.append(String.format("  %s=1: %d", outputNames[i], table.getOnesCount(i)));
+            }
+        }
+
+        int rows = (int) table.getRowCount();
+        tableView.setItems(FXCollections.observableList(new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return rows;
+            }
+        }));
+        statusLabel.setText(String.format("%s: %d inputs, %d outputs, %d rows (%.1f ms)%s", table.getName(),
+                table.getInputCount(), table.getOutputCount(), table.getRowCount(), millis, ones));
+    }
+
+    private interface BitSource {
+        boolean get(long row);
+    }
+
+    private TableColumn<Integer, String> bitColumn(String name, BitSource source) {
+        TableColumn<Integer, String> column = new TableColumn<>(name);
+        column.setCellValueFactory(cell -> new ReadOnlyStringWrapper(source.get(cell.getValue()) ? "1" : "0"));
+        column.setCellFactory(c -> new TableCell<Integer, String>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty ? null : item);
+                setStyle(empty ? null : "1".equals(item) ? ONE_STYLE : ZERO_STYLE);
+            }
+        });
+        column.setSortable(false);
+        column.setPrefWidth(Math.max(45, name.length() * 9 + 20));
+        return column;
+    }
+
+    private void goToRow() {
+        try {
+            int row = Integer.parseInt(rowField.getText().trim());
+            if (row >= 0 && row < tableView.getItems().size()) {
+                tableView.scrollTo(row);
+                tableView.getSelectionModel().clearAndSelect(row);
+            }
+        } catch (NumberFormatException e) {
+            rowField.clear();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.alperenulukaya.util;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongBinaryOperator;
+import java.util.stream.LongStream;
+
+import com.alperenulukaya.logic.Alu;
+import com.alperenulukaya.logic.BitLanes;
+import com.alperenulukaya.logic.Divider;
+import com.alperenulukaya.logic.Multiplier;
+import com.alperenulukaya.logic.Netlist;
+
+/**
+ * Exhaustively verifies the {@link Multiplier} and {@link Divider} netlists
+ * against Java arithmetic, reporting each circuit's gate counts and logic
+ * depth.
+ *
+ * Verification is bit-parallel: {@link Netlist#evaluateChunk} runs 64
+ * consecutive input vectors through the netlist at once, and the chunks are
+ * independent, so they run in parallel on all cores. An 8-bit circuit has
+ * 2^16 operand pairs, 1024 chunks.
+ *
+ * In alu mode it checks instead that the word-level and gate-level paths of
+ * {@link Alu} agree on the result, the flags and the comparator outputs:
+ * exhaustively up to {@link #EXHAUSTIVE_ALU_WIDTH} bits, and on random
+ * operations at every wider width up to 64.
+ *
+ * Run with: java -cp target/classes com.alperenulukaya.util.ArithmeticVerifier [max width]
+ *      or:  java -cp target/classes com.alperenulukaya.util.ArithmeticVerifier alu [operations per width]
+ */
+public class ArithmeticVerifier {
+
+    public static final int EXHAUSTIVE_ALU_WIDTH = 4;
+
+    /**
+     * The outcome of one exhaustive run.
+     */
+    public static final class Result {
+        private final long vectors;
+        private final long mismatches;
+        private final long firstMismatch;
+
+        Result(long vectors, long mismatches, long firstMismatch) {
+            this.vectors = vectors;
+            this.mismatches = mismatches;
+            this.firstMismatch = firstMismatch;
+        }
+
+        public long getVectors() {
+            return vectors;
+        }
+
+        public long getMismatches() {
+            return mismatches;
+        }
+
+        /**
+         * @return The lowest failing input vector, or -1 if none failed.
+         */
+        public long getFirstMismatch() {
+            return firstMismatch;
+        }
+    }
+
+    private ArithmeticVerifier() {
+    }
+
+    /**
+     * Checks a two-operand netlist on every input. The netlist's inputs are
+     * operand A in the low half and operand B in the high half.
+     * @param expected The expected outputs, output i being bit i, for operands a and b.
+     */
+    public static Result verify(Netlist netlist, LongBinaryOperator expected) {
+        int inputs = netlist.getInputCount();
+        int width = inputs / 2;
+        int outputs = netlist.getOutputCount();
+        if (inputs > 40 || outputs > 64) {
+            throw new IllegalArgumentException("Netlist too large to verify exhaustively: " + inputs + " inputs");
+        }
+        long vectors = 1L << inputs;
+        long chunks = Math.max(1, vectors >>> 6);
+        long valid = vectors >= 64 ? -1L : BitLanes.mask((int) vectors);
+        long operandMask = BitLanes.mask(width);
+        AtomicLong mismatches = new AtomicLong();
+        AtomicLong firstMismatch = new AtomicLong(Long.MAX_VALUE);
+
+        LongStream.range(0, chunks).parallel().forEach(chunk -> {
+            long[] out = new long[outputs];
+            netlist.evaluateChunk(chunk, new long[inputs], netlist.newValueBuffer(), out);
+
+            long[] want = new long[outputs];
+            for (int lane = 0; lane < 64 && lane < vectors; lane++) {
+                long vector = chunk << 6 | lane;
+                long value = expected.applyAsLong(vector & operandMask, vector >>> width & operandMask);
+                for (int i = 0; i < outputs; i++) {
+                    want[i] |= (value >>> i & 1) << lane;
+                }
+            }
+            long failing = 0;
+            for (int i = 0; i < outputs; i++) {
+                failing |= out[i] ^ want[i];
+            }
+            failing &= valid;
+            if (failing != 0) {
+                mismatches.addAndGet(Long.bitCount(failing));
+                firstMismatch.accumulateAndGet(chunk << 6 | Long.numberOfTrailingZeros(failing), Math::min);
+            }
+        });
+        long first = firstMismatch.get();
+        return new Result(vectors, mismatches.get(), first == Long.MAX_VALUE ? -1 : first);
+    }
+
+    /**
+     * @return The expected product: unsigned, or two's complement for BOOTH, modulo 2^2N.
+     */
+    static LongBinaryOperator product(Multiplier multiplier) {
+        int width = multiplier.getWidth();
+        long mask = BitLanes.mask(2 * width);
+        if (multiplier.isSigned()) {
+            int shift = 64 - width;
+            return (a, b) -> ((a << shift >> shift) * (b << shift >> shift)) & mask;
+        }
+        return (a, b) -> (a * b) & mask;
+    }
+
+    /**
+     * @return The expected quotient and remainder, with the divide-by-zero result of the circuit.
+     */
+    static LongBinaryOperator quotientAndRemainder(Divider divider) {
+        int width = divider.getWidth();
+        long mask = BitLanes.mask(width);
+        return (a, b) -> b == 0 ? mask | a << width : a / b | (a % b) << width;
+    }
+
+    /**
+     * Runs one operation through both ALU paths.
+     * @return A description of the difference, or null if they agree.
+     */
+    static String compareAluPaths(Alu words, Alu gates, Alu.Operation op, long a, long b, boolean carryIn) {
+        long expected = words.execute(op, a, b, carryIn);
+        long actual = gates.executeGates(op, a, b, carryIn);
+        if (expected == actual && words.getFlags() == gates.getFlags()
+                && (op != Alu.Operation.CMP || words.isAGreaterThanB() == gates.isAGreaterThanB()
+                        && words.isALessThanB() == gates.isALessThanB()
+                        && words.isAEqualsB() == gates.isAEqualsB())) {
+            return null;
+        }
+        return String.format("%s a=0x%X b=0x%X c=%b: words 0x%X flags %X, gates 0x%X flags %X", op, a, b, carryIn,
+                expected, words.getFlags(), actual, gates.getFlags());
+    }
+
+    /**
+     * Checks the two paths of an ALU of the given width. Narrow ALUs get every
+     * operation, A, carry and B up to 255 (which covers every shift amount up
+     * to the 127 the ALU clamps to); wider ones get random operations, half of
+     * them with shift-sized B values.
+     * @return The first difference, or null if all operations agreed.
+     */
+    static String verifyAlu(int width, long operations, long seed) {
+        Alu words = new Alu(width);
+        Alu gates = new Alu(width);
+        Alu.Operation[] ops = Alu.Operation.values();
+        if (width <= EXHAUSTIVE_ALU_WIDTH) {
+            for (Alu.Operation op : ops) {
+                for (long a = 0; a < 1L << width; a++) {
+                    for (long b = 0; b < 256; b++) {
+                        for (int c = 0; c < 2; c++) {
+                            String failure = compareAluPaths(words, gates, op, a, b, c != 0);
+                            if (failure != null) {
+                                return failure;
+                            }
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+        SplittableRandom random = new SplittableRandom(seed + width);
+        for (long i = 0; i < operations; i++) {
+            long b = random.nextBoolean() ? random.nextLong() : random.nextInt(2 * width + 2);
+            String failure = compareAluPaths(words, gates, ops[random.nextInt(ops.length)], random.nextLong(), b,
+                    random.nextBoolean());
+            if (failure != null) {
+                return failure;
+            }
+        }
+        return null;
+    }
+
+    private static void verifyAlus(long operations) {
+        boolean ok = true;
+        for (int width = 1; width <= 64; width++) {
+            String failure = verifyAlu(width, operations, 1);
+            if (failure != null) {
+                System.out.printf("Alu %2d bits: %s%n", width, failure);
+                ok = false;
+            }
+        }
+        System.out.printf("Alu word and gate paths, widths 1 to 64 (exhaustive to %d, then %d random operations): %s%n",
+                EXHAUSTIVE_ALU_WIDTH, operations, ok ? "agree" : "DIFFER");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static String gateCounts(Netlist netlist) {
+        StringBuilder sb = new StringBuilder();
+        for (Netlist.GateType type : Netlist.GateType.values()) {
+            sb.append(String.format(" %s %-4d", type, netlist.getGateCount(type)));
+        }
+        return sb.toString();
+    }
+
+    private static boolean report(String name, int width, Netlist netlist, LongBinaryOperator expected) {
+        long start = System.nanoTime();
+        Result result = verify(netlist, expected);
+        System.out.printf("%-26s %2d bits  gates %5d (%s)  depth %3d  %7d vectors  %d mismatches (%.2f s)%n", name,
+                width, netlist.getGateCount(), gateCounts(netlist).trim(), netlist.getDepth(), result.getVectors(),
+                result.getMismatches(), (System.nanoTime() - start) / 1e9);
+        if (result.getFirstMismatch() >= 0) {
+            long vector = result.getFirstMismatch();
+            long a = vector & BitLanes.mask(width);
+            long b = vector >>> width & BitLanes.mask(width);
+            System.out.printf("    first mismatch: a=%d b=%d expected %d got %d%n", a, b, expected.applyAsLong(a, b),
+                    netlist.evaluate(vector));
+        }
+        return result.getMismatches() == 0;
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("alu")) {
+            verifyAlus(args.length > 1 ? Long.parseLong(args[1]) : 10_000);
+            return;
+        }
+        int maxWidth = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        System.out.printf("Verifying widths 1 to %d exhaustively on %d threads%n", maxWidth,
+                Runtime.getRuntime().availableProcessors());
+        boolean ok = true;
+        for (int width = 1; width <= maxWidth; width++) {
+            for (Multiplier.Architecture architecture : Multiplier.Architecture.values()) {
+                Multiplier multiplier = new Multiplier(architecture, width);
+                ok &= report("Multiplier " + architecture, width, multiplier.getNetlist(), product(multiplier));
+            }
+            for (Divider.Algorithm algorithm : Divider.Algorithm.values()) {
+                Divider divider = new Divider(algorithm, width);
+                ok &= report("Divider " + algorithm, width, divider.getNetlist(), quotientAndRemainder(divider));
+            }
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
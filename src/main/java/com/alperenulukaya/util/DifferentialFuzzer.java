@@ -0,0 +1,274 @@
+package com.alperenulukaya.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import com.alperenulukaya.logic.BlockCacheEngine;
+import com.alperenulukaya.logic.CpuCore;
+import com.alperenulukaya.logic.CpuSnapshot;
+import com.alperenulukaya.logic.ExecutionEngine;
+import com.alperenulukaya.logic.InterpreterEngine;
+import com.alperenulukaya.logic.JitEngine;
+import com.alperenulukaya.logic.MicrocodedControlUnit;
+import com.alperenulukaya.logic.OutputPort;
+import com.alperenulukaya.logic.PipelinedCpu;
+import com.alperenulukaya.logic.ReferenceEngine;
+
+/**
+ * A differential fuzzer that checks an {@link ExecutionEngine} against the
+ * reference {@link CpuCore#step()} loop on random programs.
+ *
+ * Each program runs on two cores in lock-step: the engine under test and the
+ * reference engine are given the same instruction budgets, and after every
+ * call the instructions executed, the complete architectural state, the cycle
+ * count and the values written to the output port must agree. Budgets are
+ * drawn at random: a third of them are single instructions, so every
+ * intermediate state gets compared, and the rest are long enough for block
+ * and JIT engines to run their compiled paths.
+ *
+ * Program i is generated from the seed and i alone, so programs are fuzzed in
+ * parallel and any failure can be reproduced from its index. A failing program
+ * is minimized by greedily clearing cells, operands and opcodes while it still
+ * fails, which usually leaves the two or three instructions that matter.
+ *
+ * Run with: java -cp target/classes com.alperenulukaya.util.DifferentialFuzzer [programs] [seed]
+ */
+public class DifferentialFuzzer {
+
+    private static final int MAX_REPORTED_FAILURES = 10;
+    private static final int[] OPCODES = { 0b0001, 0b0010, 0b0011, 0b0100, 0b1111, 0b0000 };
+
+    /**
+     * A program on which the engine disagreed with the reference.
+     */
+    public static final class Failure {
+        private final long index;
+        private final int[] program;
+        private final int[] minimized;
+        private final String difference;
+
+        Failure(long index, int[] program, int[] minimized, String difference) {
+            this.index = index;
+            this.program = program;
+            this.minimized = minimized;
+            this.difference = difference;
+        }
+
+        public long getIndex() {
+            return index;
+        }
+
+        public int[] getProgram() {
+            return program.clone();
+        }
+
+        /**
+         * @return The smallest variant found that still fails.
+         */
+        public int[] getMinimizedProgram() {
+            return minimized.clone();
+        }
+
+        /**
+         * @return How the minimized program diverged.
+         */
+        public String getDifference() {
+            return difference;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format("program %d: %s%n", index, difference));
+            for (int address = 0; address < minimized.length; address++) {
+                if (minimized[address] != 0) {
+                    sb.append(String.format("    0x%X: %02X  %s%n", address, minimized[address],
+                            CpuCore.disassemble(minimized[address])));
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    private final long seed;
+    private final long stepsPerProgram;
+
+    /**
+     * @param seed The seed every program and budget is derived from.
+     * @param stepsPerProgram The number of instructions each program runs for, unless it halts.
+     */
+    public DifferentialFuzzer(long seed, long stepsPerProgram) {
+        this.seed = seed;
+        this.stepsPerProgram = stepsPerProgram;
+    }
+
+    /**
+     * Fuzzes an engine on programs 0 to count - 1, using every available processor.
+     * @param engine Creates the engine under test for a core.
+     * @param count The number of programs.
+     * @param failures Receives up to ten minimized failures, in program order.
+     * @return The number of failing programs.
+     */
+    public long fuzz(Function<CpuCore, ExecutionEngine> engine, long count, List<Failure> failures) {
+        List<Failure> found = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong failing = new AtomicLong();
+        LongStream.range(0, count).parallel().forEach(index -> {
+            int[] program = generate(index);
+            String difference = check(engine, program, index);
+            if (difference != null && failing.incrementAndGet() <= MAX_REPORTED_FAILURES) {
+                int[] minimized = minimize(engine, program, index);
+                found.add(new Failure(index, program, minimized, check(engine, minimized, index)));
+            }
+        });
+        found.sort((a, b) -> Long.compare(a.getIndex(), b.getIndex()));
+        failures.addAll(found);
+        return failing.get();
+    }
+
+    /**
+     * Generates program i. Most cells are instructions with a random operand
+     * and some are arbitrary bytes, so unused opcodes and odd data values get
+     * covered too. A few are arbitrary ints, which loadProgram stores unmasked
+     * and every engine must decode as NOP. Only one program in four contains
+     * HLT; the others wrap around memory until their budget is used up.
+     */
+    public int[] generate(long index) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+        boolean halts = random.nextInt(4) == 0;
+        int[] program = new int[CpuCore.MEMORY_SIZE];
+        for (int address = 0; address < program.length; address++) {
+            int kind = random.nextInt(16);
+            int cell;
+            if (kind < 3) {
+                cell = random.nextInt(256);
+            } else if (kind == 15) {
+                cell = random.nextInt();
+            } else {
+                cell = OPCODES[kind == 3 ? 4 : random.nextInt(OPCODES.length - 1)] << 4 | random.nextInt(16);
+            }
+            program[address] = !halts && cell >> 4 == 0b1111 ? cell & 0x0F : cell;
+        }
+        return program;
+    }
+
+    /**
+     * Runs a program on the engine and the reference in lock-step. The budgets
+     * depend only on the program index, so variants of a program during
+     * minimization are run the same way.
+     * @return A description of the first difference, or null if they agree.
+     */
+    public String check(Function<CpuCore, ExecutionEngine> engine, int[] program, long index) {
+        CpuCore expectedCore = new CpuCore();
+        CpuCore actualCore = new CpuCore();
+        expectedCore.loadProgram(program, 0);
+        actualCore.loadProgram(program, 0);
+        ExecutionEngine reference = new ReferenceEngine(expectedCore);
+        ExecutionEngine candidate = engine.apply(actualCore);
+        OutputPort expectedPort = expectedCore.getIoBus().getOutputPort();
+        OutputPort actualPort = actualCore.getIoBus().getOutputPort();
+
+        SplittableRandom budgets = new SplittableRandom(~index ^ seed);
+        long steps = 0;
+        while (steps < stepsPerProgram && !expectedCore.isHalted()) {
+            long budget = Math.min(stepsPerProgram - steps, budgets.nextInt(3) == 0 ? 1 : 1 + budgets.nextInt(96));
+            long expected = reference.run(budget);
+            long actual;
+            try {
+                actual = candidate.run(budget);
+            } catch (RuntimeException e) {
+                return String.format("%s threw %s after %d steps", candidate.getName(), e, steps);
+            }
+            if (actual != expected) {
+                return String.format("after %d steps, run(%d) executed %d instructions instead of %d",
+                        steps, budget, actual, expected);
+            }
+            steps += expected;
+            CpuSnapshot state = CpuSnapshot.of(expectedCore);
+            if (!state.matches(actualCore)) {
+                return String.format("after %d steps: expected %s, got %s", steps, state, CpuSnapshot.of(actualCore));
+            }
+            if (actualCore.getCycleCount() != expectedCore.getCycleCount()) {
+                return String.format("after %d steps: cycle count %d instead of %d", steps,
+                        actualCore.getCycleCount(), expectedCore.getCycleCount());
+            }
+            int expectedOutput;
+            while ((expectedOutput = expectedPort.poll()) >= 0) {
+                int actualOutput = actualPort.poll();
+                if (actualOutput != expectedOutput) {
+                    return String.format("after %d steps: output %d instead of %d", steps, actualOutput, expectedOutput);
+                }
+            }
+            if (actualPort.size() > 0) {
+                return String.format("after %d steps: %d extra output values", steps, actualPort.size());
+            }
+        }
+        // A block that fell back to the lower tier would pass unnoticed without this.
+        if (candidate instanceof JitEngine && ((JitEngine) candidate).getCompileFailures() > 0) {
+            return String.format("%d blocks failed to compile", ((JitEngine) candidate).getCompileFailures());
+        }
+        return null;
+    }
+
+    /**
+     * Simplifies a failing program one cell at a time, keeping each change that
+     * still fails, until no change helps: a cell is first cleared to 0 (NOP 0),
+     * then its operand cleared, then its opcode replaced by NOP.
+     */
+    public int[] minimize(Function<CpuCore, ExecutionEngine> engine, int[] program, long index) {
+        int[] current = program.clone();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int address = 0; address < current.length; address++) {
+                int original = current[address];
+                for (int candidate : new int[] { 0, original & 0xF0, original & 0x0F }) {
+                    if (candidate == current[address]) {
+                        continue;
+                    }
+                    int kept = current[address];
+                    current[address] = candidate;
+                    if (check(engine, current, index) != null) {
+                        changed = true;
+                        break;
+                    }
+                    current[address] = kept;
+                }
+            }
+        }
+        return current;
+    }
+
+    public static void main(String[] args) {
+        long count = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        List<Function<CpuCore, ExecutionEngine>> engines = new ArrayList<>();
+        engines.add(InterpreterEngine::new);
+        engines.add(BlockCacheEngine::new);
+        engines.add(JitEngine::new);
+        engines.add(PipelinedCpu::new);
+        engines.add(MicrocodedControlUnit::new);
+
+        DifferentialFuzzer fuzzer = new DifferentialFuzzer(seed, 2_000);
+        System.out.printf("Fuzzing %d programs per engine on %d threads, seed %d%n", count,
+                Runtime.getRuntime().availableProcessors(), seed);
+        boolean ok = true;
+        for (Function<CpuCore, ExecutionEngine> engine : engines) {
+            List<Failure> failures = new ArrayList<>();
+            long start = System.nanoTime();
+            long failing = fuzzer.fuzz(engine, count, failures);
+            System.out.printf("%-20s %d failing programs (%.1f s)%n", engine.apply(new CpuCore()).getName(), failing,
+                    (System.nanoTime() - start) / 1e9);
+            for (Failure failure : failures) {
+                System.out.print(failure);
+            }
+            ok &= failing == 0;
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.alperenulukaya.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import com.alperenulukaya.logic.Assembler;
+import com.alperenulukaya.logic.BlockCacheEngine;
+import com.alperenulukaya.logic.CpuCore;
+import com.alperenulukaya.logic.CpuCore.Flag;
+import com.alperenulukaya.logic.CpuCore.Register;
+import com.alperenulukaya.logic.ExecutionEngine;
+import com.alperenulukaya.logic.InterpreterEngine;
+import com.alperenulukaya.logic.JitEngine;
+import com.alperenulukaya.logic.MicrocodedControlUnit;
+import com.alperenulukaya.logic.OutputPort;
+import com.alperenulukaya.logic.PipelinedCpu;
+import com.alperenulukaya.logic.ReferenceEngine;
+
+/**
+ * A command-line benchmark that runs the same long-running program on every
+ * execution engine and reports throughput and speedup over the reference
+ * {@link CpuCore#step()} loop. It also checks that all engines end in the same
+ * architectural state.
+ *
+ * Run with: java -cp target/classes com.alperenulukaya.util.EngineBenchmark [millions of steps]
+ */
+public class EngineBenchmark {
+
+    // A program without HLT: the PC wraps forever and the data cells execute as NOPs.
+    private static final String PROGRAM = String.join("\n",
+            "        LDA x",
+            "        ADD one",
+            "        STA x",
+            "        OUT",
+            "        ADD one",
+            "        ADD one",
+            "        STA y",
+            "        LDA y",
+            "        ADD x",
+            "        OUT",
+            "        NOP",
+            "        NOP",
+            "        NOP",
+            "one:    .byte 1",
+            "x:      .byte 0",
+            "y:      .byte 0");
+
+    private final int[] image = new Assembler().assemble(PROGRAM);
+    private final List<Function<CpuCore, ExecutionEngine>> engines = new ArrayList<>();
+
+    public EngineBenchmark() {
+        engines.add(ReferenceEngine::new);
+        engines.add(InterpreterEngine::new);
+        engines.add(BlockCacheEngine::new);
+        engines.add(JitEngine::new);
+        engines.add(PipelinedCpu::new);
+        engines.add(MicrocodedControlUnit::new);
+    }
+
+    public static void main(String[] args) {
+        long steps = (args.length > 0 ? Long.parseLong(args[0]) : 50) * 1_000_000L;
+        new EngineBenchmark().run(steps);
+    }
+
+    public void run(long steps) {
+        // The reference loop formats a description string per step, so give it a smaller budget.
+        long referenceSteps = Math.max(1, steps / 20);
+        double referenceNanosPerStep = 0;
+        String referenceState = null;
+
+        System.out.printf("%-20s %12s %10s %9s%n", "Engine", "steps", "ns/step", "speedup");
+        for (Function<CpuCore, ExecutionEngine> factory : engines) {
+            CpuCore core = new CpuCore();
+            ExecutionEngine engine = factory.apply(core);
+            long budget = engine instanceof ReferenceEngine ? referenceSteps : steps;
+
+            // Warm up so the JIT has compiled the hot loops before timing.
+            core.loadProgram(image, 0);
+            runDraining(engine, Math.min(budget, 2_000_000L));
+
+            core.reset();
+            core.loadProgram(image, 0);
+            long start = System.nanoTime();
+            long executed = runDraining(engine, budget);
+            double nanosPerStep = (System.nanoTime() - start) / (double) executed;
+
+            if (engine instanceof ReferenceEngine) {
+                referenceNanosPerStep = nanosPerStep;
+                referenceState = stateAfter(new ReferenceEngine(new CpuCore()), referenceSteps);
+            }
+            String verdict = referenceState != null
+                    && referenceState.equals(stateAfter(factory.apply(new CpuCore()), referenceSteps)) ? "" : "  STATE MISMATCH";
+            if (engine instanceof JitEngine && ((JitEngine) engine).getCompileFailures() > 0) {
+                // Failed blocks run on the block cache, so the timing would not be the JIT's.
+                verdict += "  COMPILE FAILURES: " + ((JitEngine) engine).getCompileFailures();
+            }
+            System.out.printf("%-20s %12d %10.2f %8.1fx%s%n", engine.getName(), executed, nanosPerStep,
+                    referenceNanosPerStep / nanosPerStep, verdict);
+        }
+    }
+
+    /**
+     * Runs the whole budget, draining the output port each time it stalls the engine.
+     */
+    private static long runDraining(ExecutionEngine engine, long steps) {
+        OutputPort port = engine.getCore().getIoBus().getOutputPort();
+        long executed = 0;
+        while (executed < steps && !engine.getCore().isHalted()) {
+            executed += engine.run(steps - executed);
+            port.drainTo(value -> { });
+        }
+        return executed;
+    }
+
+    private String stateAfter(ExecutionEngine engine, long steps) {
+        CpuCore core = engine.getCore();
+        core.reset();
+        core.loadProgram(image, 0);
+        runDraining(engine, steps);
+        StringBuilder sb = new StringBuilder();
+        for (Register reg : Register.values()) {
+            sb.append(reg).append('=').append(core.getRegisterValue(reg)).append(' ');
+        }
+        for (Flag flag : Flag.values()) {
+            sb.append(flag).append('=').append(core.getFlagValue(flag)).append(' ');
+        }
+        return sb.append(Arrays.toString(core.getMemoryState())).toString();
+    }
+}
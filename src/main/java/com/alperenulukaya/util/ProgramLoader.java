@@ -0,0 +1,219 @@
+package com.alperenulukaya.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntConsumer;
+
+import com.alperenulukaya.logic.Assembler;
+import com.alperenulukaya.logic.CpuCore;
+import com.alperenulukaya.logic.ExecutionEngine;
+import com.alperenulukaya.logic.InterpreterEngine;
+import com.alperenulukaya.logic.LoopDetector;
+
+/**
+ * Loads CPU memory images from disk.
+ *
+ * A binary image file is a flat sequence of 16-byte images, one byte per memory
+ * cell, so a batch of N programs is simply N images concatenated. The file is
+ * memory-mapped and images are copied straight from the mapping into a
+ * {@link CpuCore}, so running thousands of programs costs no parsing or
+ * per-program allocation.
+ *
+ * A loader instance reuses one scratch buffer and is therefore not thread-safe;
+ * open one loader per thread for parallel batch runs.
+ *
+ * Run a batch with: java -cp target/classes com.alperenulukaya.util.ProgramLoader file [max steps]
+ */
+public class ProgramLoader implements AutoCloseable {
+
+    public static final int IMAGE_SIZE = CpuCore.MEMORY_SIZE;
+
+    // Mappings are limited to 2 GB each, so large files are split into segments.
+    private static final long SEGMENT_SIZE = (1L << 30);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long programCount;
+    private final int[] scratch = new int[IMAGE_SIZE];
+
+    /**
+     * Receives the outcome of each program in a batch run.
+     */
+    public interface ResultHandler {
+        void accept(long index, LoopDetector.Result result);
+    }
+
+    private ProgramLoader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size % IMAGE_SIZE != 0) {
+            throw new IOException("Image file size " + size + " is not a multiple of " + IMAGE_SIZE + " bytes");
+        }
+        this.programCount = size / IMAGE_SIZE;
+
+        int segmentCount = (int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        this.segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long offset = i * SEGMENT_SIZE;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(SEGMENT_SIZE, size - offset));
+        }
+    }
+
+    /**
+     * Memory-maps a binary image file.
+     * @param file The file containing one or more concatenated 16-byte images.
+     * @return A loader over all images in the file.
+     * @throws IOException if the file cannot be read or has a bad length.
+     */
+    public static ProgramLoader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ProgramLoader(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of images in the mapped file.
+     */
+    public long getProgramCount() {
+        return programCount;
+    }
+
+    /**
+     * Resets the CPU and loads the image at the given index into its memory.
+     * @param index The zero-based image index.
+     * @param core The CPU to load into.
+     */
+    public void loadInto(long index, CpuCore core) {
+        readImage(index, scratch);
+        core.reset();
+        core.loadProgram(scratch, 0);
+    }
+
+    /**
+     * Copies the image at the given index into a caller-supplied array.
+     * @param index The zero-based image index.
+     * @param target An array of at least 16 cells.
+     */
+    public void readImage(long index, int[] target) {
+        if (index < 0 || index >= programCount) {
+            throw new IndexOutOfBoundsException("Image " + index + " of " + programCount);
+        }
+        long position = index * IMAGE_SIZE;
+        ByteBuffer segment = segments[(int) (position / SEGMENT_SIZE)];
+        int offset = (int) (position % SEGMENT_SIZE);
+        for (int i = 0; i < IMAGE_SIZE; i++) {
+            target[i] = segment.get(offset + i) & 0xFF;
+        }
+    }
+
+    /**
+     * Runs every image to completion on the engine's core. Programs without a
+     * HLT usually loop forever; the {@link LoopDetector} ends those as soon as
+     * their state repeats instead of letting them use the whole budget.
+     * @param engine The engine to run with; each image is loaded into its core.
+     * @param maxSteps The instruction budget per program.
+     * @param output Receives every value the programs output, in order.
+     * @param handler Receives each image's index and result, in order.
+     */
+    public void runAll(ExecutionEngine engine, long maxSteps, IntConsumer output, ResultHandler handler) {
+        LoopDetector detector = new LoopDetector();
+        for (long index = 0; index < programCount; index++) {
+            loadInto(index, engine.getCore());
+            handler.accept(index, detector.run(engine, maxSteps, output));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes images as a binary batch file that {@link #open(Path)} can map.
+     * @param file The destination file (overwritten).
+     * @param images The 16-cell images to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeImages(Path file, List<int[]> images) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int[] image : images) {
+                if (buffer.remaining() < IMAGE_SIZE) {
+                    flush(buffer, out);
+                }
+                for (int i = 0; i < IMAGE_SIZE; i++) {
+                    buffer.put((byte) (i < image.length ? image[i] : 0));
+                }
+            }
+            flush(buffer, out);
+        }
+    }
+
+    /**
+     * Reads a single program for interactive use. Files ending in ".asm" are
+     * assembled; any other file is treated as a binary image and its first
+     * image is returned.
+     * @param file The program file.
+     * @return A 16-cell memory image.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if assembly fails.
+     */
+    public static int[] readProgram(Path file) throws IOException {
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".asm")) {
+            return new Assembler().assemble(Files.readString(file, StandardCharsets.UTF_8));
+        }
+        try (ProgramLoader loader = open(file)) {
+            if (loader.getProgramCount() == 0) {
+                throw new IOException("Image file is empty");
+            }
+            int[] image = new int[IMAGE_SIZE];
+            loader.readImage(0, image);
+            return image;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ProgramLoader <image file> [max steps]");
+            System.exit(2);
+        }
+        long maxSteps = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+        long[] outcomes = new long[LoopDetector.Outcome.values().length];
+        long[] steps = new long[1];
+        long[] outputs = new long[1];
+        long start = System.nanoTime();
+        try (ProgramLoader loader = open(Paths.get(args[0]))) {
+            loader.runAll(new InterpreterEngine(new CpuCore()), maxSteps, value -> outputs[0]++, (index, result) -> {
+                outcomes[result.getOutcome().ordinal()]++;
+                steps[0] += result.getSteps();
+            });
+            System.out.printf("%d programs, %d steps, %d outputs (%.2f s)%n", loader.getProgramCount(), steps[0],
+                    outputs[0], (System.nanoTime() - start) / 1e9);
+        }
+        for (LoopDetector.Outcome outcome : LoopDetector.Outcome.values()) {
+            System.out.printf("%-17s %d%n", outcome, outcomes[outcome.ordinal()]);
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,80 @@
+package com.alperenulukaya.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.alperenulukaya.logic.CpuCore;
+import com.alperenulukaya.logic.CpuCore.Register;
+import com.alperenulukaya.logic.CpuSnapshot;
+import com.alperenulukaya.logic.SessionRecorder;
+import com.alperenulukaya.logic.SessionReplayer;
+import com.alperenulukaya.logic.SevenSegmentDisplay;
+
+/**
+ * Records short sessions the way CPUModule drives its core and checks that
+ * {@link SessionReplayer} reproduces them.
+ *
+ * The display session maps the 7-segment display at 0xF and runs OUT
+ * followed by LDA F. The core writes OUT values to the display, so the load
+ * must read the value just output, in the recording and in the replay alike.
+ *
+ * Run with: java -cp target/classes com.alperenulukaya.util.ReplayCheck
+ */
+public class ReplayCheck {
+
+    private ReplayCheck() {
+    }
+
+    /**
+     * @return A description of the failure, or null if the check passed.
+     */
+    static String checkOutputThroughMappedDisplay() throws IOException {
+        final int displayAddress = 0xF;
+        final int value = 7;
+        int[] program = new int[CpuCore.MEMORY_SIZE];
+        program[0] = 0x1E; // LDA E
+        program[1] = 0x40; // OUT
+        program[2] = 0x1F; // LDA F
+        program[3] = 0xF0; // HLT
+        program[0xE] = value;
+
+        CpuCore recorded = new CpuCore();
+        SevenSegmentDisplay display = new SevenSegmentDisplay();
+        recorded.getIoBus().setOutputDevice(display);
+        recorded.loadProgram(program, 0);
+        Path file = Files.createTempFile("out-display", ".cpulog");
+        try {
+            try (SessionRecorder recorder = SessionRecorder.open(file)) {
+                recorder.recordState(recorded);
+                recorder.recordDisplay(recorded, displayAddress, true, display.getDigit());
+                recorded.getIoBus().map(displayAddress, 1, display);
+                for (int i = 0; i < 4; i++) {
+                    recorder.recordSteps(recorded, 1);
+                    recorded.step();
+                }
+                recorder.recordCheckpoint(recorded);
+            }
+            int loaded = recorded.getRegisterValue(Register.AC);
+            if (loaded != value) {
+                return String.format("recorded core loaded %d from the display after OUT %d", loaded, value);
+            }
+            SessionReplayer.Result result = SessionReplayer.replay(file);
+            if (!result.isReproduced()) {
+                return result.toString();
+            }
+            return result.getFinalState().matches(recorded) ? null
+                    : "replayed state " + result.getFinalState() + " differs from " + CpuSnapshot.of(recorded);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String failure = checkOutputThroughMappedDisplay();
+        System.out.println("OUT then LDA of the mapped display: " + (failure == null ? "reproduced" : failure));
+        if (failure != null) {
+            System.exit(1);
+        }
+    }
+}